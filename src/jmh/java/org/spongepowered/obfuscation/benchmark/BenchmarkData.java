@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.benchmark;
+
+import org.spongepowered.obfuscation.data.MappingsSet;
+import org.spongepowered.obfuscation.data.MutableMappingsSet;
+
+import java.util.Random;
+
+/**
+ * Helpers for building the inputs of the benchmarks.
+ */
+public final class BenchmarkData {
+
+    private static final String[] PRIMITIVES = {"I", "J", "Z", "F", "D"};
+
+    /**
+     * Gets the short obfuscated name for the given index, in the order a, b,
+     * ..., z, aa, ab, ...
+     */
+    public static String obfName(int index) {
+        StringBuilder name = new StringBuilder();
+        int n = index;
+        do {
+            name.append((char) ('a' + n % 26));
+            n = n / 26 - 1;
+        } while (n >= 0);
+        return name.reverse().toString();
+    }
+
+    /**
+     * Creates a random method descriptor referencing some of the first
+     * type_count obfuscated types.
+     */
+    public static String randomDesc(Random random, int type_count) {
+        StringBuilder desc = new StringBuilder("(");
+        int params = random.nextInt(4);
+        for (int i = 0; i < params; i++) {
+            desc.append(randomType(random, type_count));
+        }
+        desc.append(')');
+        if (random.nextInt(3) == 0) {
+            desc.append('V');
+        } else {
+            desc.append(randomType(random, type_count));
+        }
+        return desc.toString();
+    }
+
+    private static String randomType(Random random, int type_count) {
+        int kind = random.nextInt(4);
+        if (kind == 0) {
+            return PRIMITIVES[random.nextInt(PRIMITIVES.length)];
+        } else if (kind == 1) {
+            return "Ljava/lang/String;";
+        } else if (kind == 2) {
+            return "[L" + obfName(random.nextInt(type_count)) + ";";
+        }
+        return "L" + obfName(random.nextInt(type_count)) + ";";
+    }
+
+    /**
+     * Creates a mappings set with the given number of types each having the
+     * given number of fields and methods.
+     */
+    public static MappingsSet createMappings(long seed, int types, int fields, int methods) {
+        Random random = new Random(seed);
+        MappingsSet set = new MutableMappingsSet();
+        for (int i = 0; i < types; i++) {
+            String obf = obfName(i);
+            set.addTypeMapping(obf, "net/minecraft/pkg" + (i % 64) + "/Class" + i);
+            for (int j = 0; j < fields; j++) {
+                set.addFieldMapping(obf, obfName(j), "field_" + i + "_" + j);
+            }
+            for (int j = 0; j < methods; j++) {
+                set.addMethodMapping(obf, obfName(j), randomDesc(random, types), "method_" + i + "_" + j);
+            }
+        }
+        return set;
+    }
+
+    private BenchmarkData() {
+    }
+
+}
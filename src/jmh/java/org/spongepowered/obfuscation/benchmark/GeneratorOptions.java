@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.benchmark;
+
+/**
+ * The shape of the programs built by the {@link SyntheticJarGenerator}.
+ * Chances are the probability of the feature per class, per member or per
+ * method as described on each option.
+ */
+public class GeneratorOptions {
+
+    /**
+     * The number of classes including nested classes and enums.
+     */
+    public int classes = 1000;
+    /**
+     * The maximum number of fields declared by a class.
+     */
+    public int fields = 6;
+    /**
+     * The maximum number of new methods declared by a class, overrides are
+     * in addition to these.
+     */
+    public int methods = 6;
+    /**
+     * The maximum depth of the class hierarchy below Object.
+     */
+    public int max_depth = 4;
+
+    /**
+     * The chance a class extends another generated class.
+     */
+    public float subclass_chance = 0.3f;
+    /**
+     * The chance a subclass overrides each method of its superclass.
+     */
+    public float override_chance = 0.2f;
+    /**
+     * The chance a class is a static inner class of another class.
+     */
+    public float inner_chance = 0.1f;
+    /**
+     * The chance a class is an anonymous class created in a method of
+     * another class.
+     */
+    public float anon_chance = 0.1f;
+    /**
+     * The chance a class is an enum.
+     */
+    public float enum_chance = 0.05f;
+    /**
+     * The chance a method stores a unique string constant.
+     */
+    public float constant_chance = 0.8f;
+    /**
+     * The chance a method references an enum constant.
+     */
+    public float enum_ref_chance = 0.1f;
+
+    /**
+     * The chance each member is removed in the next release.
+     */
+    public float remove_chance = 0.03f;
+    /**
+     * The chance each class gains a new field and a new method in the next
+     * release.
+     */
+    public float add_chance = 0.05f;
+    /**
+     * The chance the statements of each method are reordered in the next
+     * release.
+     */
+    public float reorder_chance = 0.2f;
+
+}
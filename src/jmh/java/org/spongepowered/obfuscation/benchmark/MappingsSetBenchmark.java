@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spongepowered.obfuscation.data.MappingsSet;
+import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks method lookups and signature mapping against a large mappings
+ * set. Each invocation performs a batch of lookups in a random order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MappingsSetBenchmark {
+
+    private static final int BATCH = 1024;
+
+    @Param({"5000", "50000"})
+    public int types;
+
+    private MappingsSet mappings;
+    private MethodMapping[] lookups;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.mappings = BenchmarkData.createMappings(1, this.types, 4, 8);
+        List<MethodMapping> all = new ArrayList<>();
+        for (String key : this.mappings.getMappedMethods()) {
+            all.addAll(this.mappings.getMethods(key));
+        }
+        Collections.shuffle(all, new Random(2));
+        this.lookups = all.subList(0, Math.min(BATCH, all.size())).toArray(new MethodMapping[0]);
+    }
+
+    @Benchmark
+    public void mapMethod(Blackhole bh) {
+        for (MethodMapping mth : this.lookups) {
+            bh.consume(this.mappings.mapMethod(mth.getObfOwner(), mth.getObf(), mth.getObfSignature()));
+        }
+    }
+
+    @Benchmark
+    public void mapSig(Blackhole bh) {
+        for (MethodMapping mth : this.lookups) {
+            bh.consume(MethodMapping.mapSig(mth.getObfSignature(), this.mappings));
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.obfuscation.merge.MergeEngine;
+import org.spongepowered.obfuscation.merge.data.MatchEntry;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks voting on and removing candidates from a type match.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MatchEntryBenchmark {
+
+    @Param({"16", "1024"})
+    public int candidates;
+
+    private TypeEntry old_type;
+    private TypeEntry[] new_types;
+    private int[] order;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SourceSet old_set = new SourceSet();
+        SourceSet new_set = new SourceSet();
+        this.old_type = MergeEngine.createDummyType(old_set, "old");
+        this.new_types = new TypeEntry[this.candidates];
+        for (int i = 0; i < this.candidates; i++) {
+            this.new_types[i] = MergeEngine.createDummyType(new_set, "new" + i);
+        }
+        // a skewed vote order so that a few candidates collect most votes
+        Random random = new Random(3);
+        this.order = new int[this.candidates * 4];
+        for (int i = 0; i < this.order.length; i++) {
+            int a = random.nextInt(this.candidates);
+            int b = random.nextInt(this.candidates);
+            this.order[i] = Math.min(a, b);
+        }
+    }
+
+    @Benchmark
+    public MatchEntry vote() {
+        MatchEntry match = new MatchEntry(this.old_type);
+        for (int i : this.order) {
+            match.vote(this.new_types[i]);
+        }
+        return match;
+    }
+
+    @Benchmark
+    public MatchEntry voteAndRemove() {
+        MatchEntry match = vote();
+        for (int i = 0; i < this.candidates; i += 2) {
+            match.removeVote(this.new_types[i]);
+        }
+        return match;
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.obfuscation.ObfuscationMapper;
+import org.spongepowered.obfuscation.data.MappingsIO;
+import org.spongepowered.obfuscation.data.MappingsSet;
+import org.spongepowered.obfuscation.data.MutableMappingsSet;
+import org.spongepowered.obfuscation.merge.MergeEngine;
+import org.spongepowered.obfuscation.merge.SourceIndex;
+import org.spongepowered.obfuscation.source.SourceSetLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a full merge between a generated program and its next release.
+ * The jars are decompiled once per trial, each invocation runs a fresh
+ * engine with the default operations. Larger programs can be selected with
+ * -p classes=10000,50000.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MergeBenchmark {
+
+    @Param({"1000"})
+    public int classes;
+
+    private Path dir;
+    private SourceIndex old_index;
+    private SourceIndex new_index;
+    private MappingsSet old_mappings;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        LibraryConfiguration.quiet = true;
+        this.dir = Files.createTempDirectory("merge_bench");
+        GeneratorOptions options = new GeneratorOptions();
+        options.classes = this.classes;
+        SyntheticJarGenerator generator = new SyntheticJarGenerator(6, options);
+        SyntheticJarGenerator.Obfuscation old_obf = generator.obfuscate(7);
+        SyntheticJarGenerator.Obfuscation new_obf = generator.nextRelease(8).obfuscate(9);
+        old_obf.writeJar(this.dir.resolve("old.jar"));
+        old_obf.writeMappings(this.dir.resolve("old.srg"));
+        new_obf.writeJar(this.dir.resolve("new.jar"));
+
+        SourceSetLoader loader = new SourceSetLoader(this.dir, SourceSetLoader::createJavaDecompiler, null);
+        this.old_index = new SourceIndex(loader.load("old.jar").getSourceSet());
+        this.new_index = new SourceIndex(loader.load("new.jar").getSourceSet());
+        this.old_mappings = MappingsIO.load(this.dir.resolve("old.srg"));
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+        Files.deleteIfExists(this.dir.resolve("old.jar"));
+        Files.deleteIfExists(this.dir.resolve("old.srg"));
+        Files.deleteIfExists(this.dir.resolve("new.jar"));
+        Files.deleteIfExists(this.dir);
+    }
+
+    @Benchmark
+    public MappingsSet merge() {
+        MappingsSet new_mappings = new MutableMappingsSet();
+        MergeEngine engine = ObfuscationMapper.createEngine(this.old_index, this.old_mappings, this.new_index, new_mappings);
+        engine.merge();
+        return new_mappings;
+    }
+
+}
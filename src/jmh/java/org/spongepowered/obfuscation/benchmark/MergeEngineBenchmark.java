@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.obfuscation.data.MutableMappingsSet;
+import org.spongepowered.obfuscation.merge.MergeEngine;
+import org.spongepowered.obfuscation.merge.data.MatchEntry;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks promoting type matches while many other matches are still
+ * pending.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MergeEngineBenchmark {
+
+    @Param({"1000", "10000"})
+    public int pending;
+
+    private TypeEntry[] old_types;
+    private TypeEntry[] new_types;
+    private SourceSet old_set;
+    private SourceSet new_set;
+    private MergeEngine engine;
+
+    @Setup(Level.Trial)
+    public void setupTypes() {
+        this.old_set = new SourceSet();
+        this.new_set = new SourceSet();
+        this.old_types = new TypeEntry[this.pending];
+        this.new_types = new TypeEntry[this.pending];
+        for (int i = 0; i < this.pending; i++) {
+            this.old_types[i] = MergeEngine.createDummyType(this.old_set, "old" + i);
+            this.new_types[i] = MergeEngine.createDummyType(this.new_set, "new" + i);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setupEngine() {
+        this.engine = new MergeEngine(this.old_set, new MutableMappingsSet(), this.new_set, new MutableMappingsSet());
+        Random random = new Random(5);
+        for (int i = 0; i < this.pending; i++) {
+            // each pending match has its true candidate and a few others
+            this.engine.vote(this.old_types[i], this.new_types[i]);
+            for (int j = 0; j < 3; j++) {
+                this.engine.vote(this.old_types[i], this.new_types[random.nextInt(this.pending)]);
+            }
+        }
+    }
+
+    @Benchmark
+    public MergeEngine setAsMatched() {
+        for (int i = 0; i < this.pending; i++) {
+            MatchEntry match = this.engine.getPendingMatch(this.old_types[i]);
+            match.setNewType(this.new_types[i]);
+            this.engine.setAsMatched(match);
+        }
+        return this.engine;
+    }
+
+}
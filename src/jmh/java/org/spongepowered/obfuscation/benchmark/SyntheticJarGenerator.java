@@ -0,0 +1,897 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.benchmark;
+
+import static org.objectweb.asm.Opcodes.AASTORE;
+import static org.objectweb.asm.Opcodes.ACC_ENUM;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_STATIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ACC_SYNTHETIC;
+import static org.objectweb.asm.Opcodes.ACONST_NULL;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ANEWARRAY;
+import static org.objectweb.asm.Opcodes.ARETURN;
+import static org.objectweb.asm.Opcodes.BIPUSH;
+import static org.objectweb.asm.Opcodes.CHECKCAST;
+import static org.objectweb.asm.Opcodes.DUP;
+import static org.objectweb.asm.Opcodes.GETFIELD;
+import static org.objectweb.asm.Opcodes.GETSTATIC;
+import static org.objectweb.asm.Opcodes.IADD;
+import static org.objectweb.asm.Opcodes.ICONST_0;
+import static org.objectweb.asm.Opcodes.ICONST_1;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.IRETURN;
+import static org.objectweb.asm.Opcodes.NEW;
+import static org.objectweb.asm.Opcodes.POP;
+import static org.objectweb.asm.Opcodes.PUTFIELD;
+import static org.objectweb.asm.Opcodes.PUTSTATIC;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.SIPUSH;
+import static org.objectweb.asm.Opcodes.V1_8;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Generates obfuscated jars of a random but reproducible program along with
+ * the srg mappings from the obfuscated names back to the original names.
+ *
+ * <p>A generated program may be mutated into a next release, which keeps the
+ * original names of surviving members but adds and removes members and
+ * reorders the statements of some methods. Each obfuscation of a program
+ * shuffles the obfuscated names, so the mappings of an obfuscated next
+ * release are the ground truth for a merge from the previous release.</p>
+ */
+public class SyntheticJarGenerator {
+
+    /**
+     * Writes a pair of releases and their mappings to a directory.
+     *
+     * <p>Usage: output_dir [classes] [seed]</p>
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: SyntheticJarGenerator output_dir [classes] [seed]");
+            return;
+        }
+        Path out = Paths.get(args[0]);
+        GeneratorOptions options = new GeneratorOptions();
+        if (args.length > 1) {
+            options.classes = Integer.parseInt(args[1]);
+        }
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        Files.createDirectories(out);
+
+        long start = System.nanoTime();
+        SyntheticJarGenerator old_release = new SyntheticJarGenerator(seed, options);
+        SyntheticJarGenerator new_release = old_release.nextRelease(seed + 1);
+        Obfuscation old_obf = old_release.obfuscate(seed + 2);
+        Obfuscation new_obf = new_release.obfuscate(seed + 3);
+        old_obf.writeJar(out.resolve("old.jar"));
+        old_obf.writeMappings(out.resolve("old.srg"));
+        new_obf.writeJar(out.resolve("new.jar"));
+        new_obf.writeMappings(out.resolve("new.srg"));
+        long end = System.nanoTime();
+        System.out.println("Generated " + old_release.getClassCount() + " classes in " + (end - start) / 1000000 + "ms");
+        System.out.println("Map with: old.jar old.srg new.jar output.srg --validation=new.srg");
+    }
+
+    private static final String PACKAGE = "net/minecraft/gen/";
+
+    static enum Kind {
+        CLASS,
+        INNER,
+        ANON,
+        ENUM,
+    }
+
+    private final GeneratorOptions options;
+    private final List<ClassModel> classes = new ArrayList<>();
+    private final Map<String, ClassModel> classes_by_name = new HashMap<>();
+    private int next_member = 0;
+
+    /**
+     * Generates a new program of the given shape.
+     */
+    public SyntheticJarGenerator(long seed, GeneratorOptions options) {
+        this.options = options;
+        Random random = new Random(seed);
+        for (int i = 0; i < options.classes; i++) {
+            generateClass(random, i);
+        }
+        for (ClassModel cls : this.classes) {
+            generateMembers(random, cls);
+        }
+        for (ClassModel cls : this.classes) {
+            for (MethodModel mth : cls.methods) {
+                generateBody(random, mth);
+            }
+        }
+        for (ClassModel cls : this.classes) {
+            if (cls.kind == Kind.ANON) {
+                MethodModel enclosing = cls.outer.methods.get(random.nextInt(cls.outer.methods.size()));
+                enclosing.statements.add(0, Statement.newAnon(cls));
+                cls.enclosing = enclosing;
+            }
+        }
+    }
+
+    private SyntheticJarGenerator(GeneratorOptions options) {
+        this.options = options;
+    }
+
+    public int getClassCount() {
+        return this.classes.size();
+    }
+
+    private void addClass(ClassModel cls) {
+        this.classes.add(cls);
+        this.classes_by_name.put(cls.name, cls);
+        if (cls.outer != null) {
+            cls.outer.nested.add(cls);
+        }
+    }
+
+    private void generateClass(Random random, int index) {
+        float roll = random.nextFloat();
+        ClassModel outer = pick(random, index, Kind.CLASS, Integer.MAX_VALUE);
+        ClassModel cls;
+        if (outer != null && roll < this.options.anon_chance) {
+            outer.anon_count++;
+            cls = new ClassModel(index, Kind.ANON, outer.name + "$" + outer.anon_count);
+            cls.outer = outer;
+        } else if (outer != null && roll < this.options.anon_chance + this.options.inner_chance) {
+            cls = new ClassModel(index, Kind.INNER, outer.name + "$Inner" + index);
+            cls.outer = outer;
+        } else if (roll < this.options.anon_chance + this.options.inner_chance + this.options.enum_chance) {
+            cls = new ClassModel(index, Kind.ENUM, PACKAGE + "Enum" + index);
+        } else {
+            cls = new ClassModel(index, Kind.CLASS, PACKAGE + "Class" + index);
+        }
+        if (cls.kind != Kind.ENUM && random.nextFloat() < this.options.subclass_chance) {
+            cls.parent = pick(random, index, Kind.CLASS, this.options.max_depth);
+            if (cls.parent != null) {
+                cls.depth = cls.parent.depth + 1;
+            }
+        }
+        addClass(cls);
+    }
+
+    /**
+     * Picks a random class of the given kind with an index less than the
+     * given bound and a depth less than the given depth, or null if none is
+     * found after a few attempts. Inner classes are accepted in place of
+     * classes.
+     */
+    private ClassModel pick(Random random, int bound, Kind kind, int max_depth) {
+        if (bound == 0) {
+            return null;
+        }
+        for (int i = 0; i < 8; i++) {
+            ClassModel cls = this.classes.get(random.nextInt(bound));
+            boolean kind_matches = cls.kind == kind || (kind == Kind.CLASS && cls.kind == Kind.INNER);
+            if (kind_matches && cls.depth < max_depth) {
+                return cls;
+            }
+        }
+        return null;
+    }
+
+    private void generateMembers(Random random, ClassModel cls) {
+        // the first field of each class holds the constants stored by its
+        // methods
+        cls.fields.add(new FieldModel(nextFieldName(), "Ljava/lang/String;", FieldModel.NORMAL));
+        if (cls.kind == Kind.ENUM) {
+            int constants = 2 + random.nextInt(4);
+            for (int i = 0; i < constants; i++) {
+                cls.fields.add(new FieldModel("CONSTANT_" + i, "L" + cls.name + ";", FieldModel.CONSTANT));
+            }
+            cls.fields.add(new FieldModel("$VALUES", "[L" + cls.name + ";", FieldModel.VALUES));
+        }
+        int fields = random.nextInt(Math.max(this.options.fields, 1));
+        for (int i = 0; i < fields; i++) {
+            cls.fields.add(new FieldModel(nextFieldName(), randomType(random), FieldModel.NORMAL));
+        }
+        if (cls.parent != null) {
+            for (MethodModel mth : cls.parent.methods) {
+                if (random.nextFloat() < this.options.override_chance) {
+                    MethodModel override = new MethodModel(mth.name, mth.desc);
+                    override.overrides = mth;
+                    cls.methods.add(override);
+                }
+            }
+        }
+        int methods = 1 + random.nextInt(Math.max(this.options.methods, 1));
+        for (int i = 0; i < methods; i++) {
+            cls.methods.add(new MethodModel(nextMethodName(), randomDesc(random)));
+        }
+        for (MethodModel mth : cls.methods) {
+            mth.owner = cls;
+        }
+    }
+
+    private String nextFieldName() {
+        return "field_" + this.next_member++;
+    }
+
+    private String nextMethodName() {
+        return "method_" + this.next_member++;
+    }
+
+    private void generateBody(Random random, MethodModel mth) {
+        ClassModel cls = mth.owner;
+        if (random.nextFloat() < this.options.constant_chance) {
+            mth.statements.add(Statement.constant("constant " + mth.name + " of " + cls.name));
+        }
+        int invokes = 1 + random.nextInt(2);
+        for (int i = 0; i < invokes; i++) {
+            ClassModel target = pick(random, this.classes.size(), Kind.CLASS, Integer.MAX_VALUE);
+            if (target != null) {
+                mth.statements.add(Statement.invoke(target.methods.get(random.nextInt(target.methods.size()))));
+            }
+        }
+        List<FieldModel> ints = new ArrayList<>();
+        for (FieldModel fld : cls.fields) {
+            if (fld.desc.equals("I")) {
+                ints.add(fld);
+            }
+        }
+        if (!ints.isEmpty()) {
+            mth.statements.add(Statement.increment(ints.get(random.nextInt(ints.size()))));
+        }
+        if (random.nextFloat() < this.options.enum_ref_chance) {
+            ClassModel target = pick(random, this.classes.size(), Kind.ENUM, Integer.MAX_VALUE);
+            if (target != null) {
+                List<FieldModel> constants = new ArrayList<>();
+                for (FieldModel fld : target.fields) {
+                    if (fld.kind == FieldModel.CONSTANT) {
+                        constants.add(fld);
+                    }
+                }
+                mth.statements.add(Statement.enumRef(target, constants.get(random.nextInt(constants.size()))));
+            }
+        }
+    }
+
+    private String randomDesc(Random random) {
+        StringBuilder desc = new StringBuilder("(");
+        int params = random.nextInt(3);
+        for (int i = 0; i < params; i++) {
+            desc.append(randomType(random));
+        }
+        desc.append(')');
+        if (random.nextInt(3) == 0) {
+            desc.append('V');
+        } else {
+            desc.append(randomType(random));
+        }
+        return desc.toString();
+    }
+
+    private String randomType(Random random) {
+        int kind = random.nextInt(3);
+        if (kind == 0 || this.classes.isEmpty()) {
+            return "I";
+        } else if (kind == 1) {
+            return "Ljava/lang/String;";
+        }
+        return "L" + this.classes.get(random.nextInt(this.classes.size())).name + ";";
+    }
+
+    /**
+     * Creates the next release of this program. Members which are not part
+     * of an override, an enum or an anonymous class's enclosing method may be
+     * removed, statements referencing removed members are removed with them.
+     */
+    public SyntheticJarGenerator nextRelease(long seed) {
+        Random random = new Random(seed);
+        SyntheticJarGenerator next = new SyntheticJarGenerator(this.options);
+        next.next_member = this.next_member;
+        Map<ClassModel, ClassModel> class_map = new IdentityHashMap<>();
+        Map<FieldModel, FieldModel> field_map = new IdentityHashMap<>();
+        Map<MethodModel, MethodModel> method_map = new IdentityHashMap<>();
+        Set<MethodModel> fixed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ClassModel cls : this.classes) {
+            for (MethodModel mth : cls.methods) {
+                if (mth.overrides != null) {
+                    fixed.add(mth);
+                    fixed.add(mth.overrides);
+                }
+            }
+            if (cls.enclosing != null) {
+                fixed.add(cls.enclosing);
+            }
+        }
+
+        for (ClassModel cls : this.classes) {
+            ClassModel copy = new ClassModel(cls.index, cls.kind, cls.name);
+            copy.depth = cls.depth;
+            copy.anon_count = cls.anon_count;
+            copy.outer = class_map.get(cls.outer);
+            copy.parent = class_map.get(cls.parent);
+            class_map.put(cls, copy);
+            next.addClass(copy);
+
+            for (FieldModel fld : cls.fields) {
+                boolean removable = fld.kind == FieldModel.NORMAL && fld != cls.fields.get(0);
+                if (removable && random.nextFloat() < this.options.remove_chance) {
+                    continue;
+                }
+                FieldModel fld_copy = new FieldModel(fld.name, fld.desc, fld.kind);
+                field_map.put(fld, fld_copy);
+                copy.fields.add(fld_copy);
+            }
+            for (MethodModel mth : cls.methods) {
+                if (!fixed.contains(mth) && copy.methods.size() > 0 && random.nextFloat() < this.options.remove_chance) {
+                    continue;
+                }
+                MethodModel mth_copy = new MethodModel(mth.name, mth.desc);
+                mth_copy.owner = copy;
+                mth_copy.overrides = method_map.get(mth.overrides);
+                method_map.put(mth, mth_copy);
+                copy.methods.add(mth_copy);
+            }
+        }
+
+        List<MethodModel> added = new ArrayList<>();
+        for (ClassModel cls : this.classes) {
+            ClassModel copy = class_map.get(cls);
+            for (MethodModel mth : cls.methods) {
+                MethodModel mth_copy = method_map.get(mth);
+                if (mth_copy == null) {
+                    continue;
+                }
+                for (Statement stmt : mth.statements) {
+                    Statement stmt_copy = stmt.copy(class_map, field_map, method_map);
+                    if (stmt_copy != null) {
+                        mth_copy.statements.add(stmt_copy);
+                    }
+                }
+                if (random.nextFloat() < this.options.reorder_chance) {
+                    Collections.shuffle(mth_copy.statements, random);
+                }
+            }
+            copy.enclosing = method_map.get(cls.enclosing);
+            if (random.nextFloat() < this.options.add_chance) {
+                copy.fields.add(new FieldModel(next.nextFieldName(), next.randomType(random), FieldModel.NORMAL));
+                MethodModel mth = new MethodModel(next.nextMethodName(), next.randomDesc(random));
+                mth.owner = copy;
+                copy.methods.add(mth);
+                added.add(mth);
+            }
+        }
+        for (MethodModel mth : added) {
+            next.generateBody(random, mth);
+        }
+        return next;
+    }
+
+    /**
+     * Creates a new obfuscation of the program, the obfuscated names are
+     * shuffled using the given seed.
+     */
+    public Obfuscation obfuscate(long seed) {
+        return new Obfuscation(new Random(seed));
+    }
+
+    static class ClassModel {
+
+        final int index;
+        final Kind kind;
+        final String name;
+        int depth = 0;
+        int anon_count = 0;
+        ClassModel outer;
+        ClassModel parent;
+        MethodModel enclosing;
+        final List<ClassModel> nested = new ArrayList<>();
+        final List<FieldModel> fields = new ArrayList<>();
+        final List<MethodModel> methods = new ArrayList<>();
+
+        ClassModel(int index, Kind kind, String name) {
+            this.index = index;
+            this.kind = kind;
+            this.name = name;
+        }
+
+    }
+
+    static class FieldModel {
+
+        static final int NORMAL = 0;
+        static final int CONSTANT = 1;
+        static final int VALUES = 2;
+
+        final String name;
+        final String desc;
+        final int kind;
+
+        FieldModel(String name, String desc, int kind) {
+            this.name = name;
+            this.desc = desc;
+            this.kind = kind;
+        }
+
+    }
+
+    static class MethodModel {
+
+        final String name;
+        final String desc;
+        ClassModel owner;
+        MethodModel overrides;
+        final List<Statement> statements = new ArrayList<>();
+
+        MethodModel(String name, String desc) {
+            this.name = name;
+            this.desc = desc;
+        }
+
+    }
+
+    static class Statement {
+
+        static final int CONSTANT = 0;
+        static final int INVOKE = 1;
+        static final int INCREMENT = 2;
+        static final int ENUM_REF = 3;
+        static final int NEW_ANON = 4;
+
+        static Statement constant(String value) {
+            Statement stmt = new Statement(CONSTANT);
+            stmt.constant = value;
+            return stmt;
+        }
+
+        static Statement invoke(MethodModel method) {
+            Statement stmt = new Statement(INVOKE);
+            stmt.method = method;
+            return stmt;
+        }
+
+        static Statement increment(FieldModel field) {
+            Statement stmt = new Statement(INCREMENT);
+            stmt.field = field;
+            return stmt;
+        }
+
+        static Statement enumRef(ClassModel owner, FieldModel field) {
+            Statement stmt = new Statement(ENUM_REF);
+            stmt.owner = owner;
+            stmt.field = field;
+            return stmt;
+        }
+
+        static Statement newAnon(ClassModel owner) {
+            Statement stmt = new Statement(NEW_ANON);
+            stmt.owner = owner;
+            return stmt;
+        }
+
+        final int kind;
+        String constant;
+        ClassModel owner;
+        MethodModel method;
+        FieldModel field;
+
+        Statement(int kind) {
+            this.kind = kind;
+        }
+
+        /**
+         * Copies this statement into a next release, returns null if a
+         * member it references was removed.
+         */
+        Statement copy(Map<ClassModel, ClassModel> classes, Map<FieldModel, FieldModel> fields, Map<MethodModel, MethodModel> methods) {
+            Statement copy = new Statement(this.kind);
+            copy.constant = this.constant;
+            if (this.owner != null) {
+                copy.owner = classes.get(this.owner);
+            }
+            if (this.method != null) {
+                copy.method = methods.get(this.method);
+                if (copy.method == null) {
+                    return null;
+                }
+            }
+            if (this.field != null) {
+                copy.field = fields.get(this.field);
+                if (copy.field == null) {
+                    return null;
+                }
+            }
+            return copy;
+        }
+
+    }
+
+    /**
+     * A single obfuscation of the generated program.
+     */
+    public class Obfuscation {
+
+        private final String[] class_names;
+        private final Map<FieldModel, String> field_names = new IdentityHashMap<>();
+        private final Map<MethodModel, String> method_names = new IdentityHashMap<>();
+
+        Obfuscation(Random random) {
+            List<ClassModel> classes = SyntheticJarGenerator.this.classes;
+            this.class_names = new String[classes.size()];
+            List<ClassModel> top_level = new ArrayList<>();
+            for (ClassModel cls : classes) {
+                if (cls.outer == null) {
+                    top_level.add(cls);
+                }
+            }
+            String[] names = shuffledNames(random, top_level.size(), 0);
+            for (int i = 0; i < top_level.size(); i++) {
+                this.class_names[top_level.get(i).index] = names[i];
+            }
+            // outer classes always have a lower index than their nested
+            // classes, as do superclasses
+            int[] method_offsets = new int[classes.size()];
+            for (ClassModel cls : classes) {
+                if (cls.outer != null) {
+                    String outer = this.class_names[cls.outer.index];
+                    if (cls.kind == Kind.ANON) {
+                        this.class_names[cls.index] = outer + cls.name.substring(cls.name.lastIndexOf('$'));
+                    }
+                }
+                List<ClassModel> inner = new ArrayList<>();
+                for (ClassModel child : cls.nested) {
+                    if (child.kind == Kind.INNER) {
+                        inner.add(child);
+                    }
+                }
+                String[] inner_names = shuffledNames(random, inner.size(), 0);
+                for (int i = 0; i < inner.size(); i++) {
+                    this.class_names[inner.get(i).index] = this.class_names[cls.index] + "$" + inner_names[i];
+                }
+
+                String[] fields = shuffledNames(random, cls.fields.size(), 0);
+                for (int i = 0; i < fields.length; i++) {
+                    this.field_names.put(cls.fields.get(i), fields[i]);
+                }
+                // new methods are named after all methods of the superclasses
+                // so that they never accidentally override one
+                int offset = cls.parent == null ? 0 : method_offsets[cls.parent.index];
+                List<MethodModel> declared = new ArrayList<>();
+                for (MethodModel mth : cls.methods) {
+                    if (mth.overrides != null) {
+                        this.method_names.put(mth, this.method_names.get(mth.overrides));
+                    } else {
+                        declared.add(mth);
+                    }
+                }
+                String[] methods = shuffledNames(random, declared.size(), offset);
+                for (int i = 0; i < methods.length; i++) {
+                    this.method_names.put(declared.get(i), methods[i]);
+                }
+                method_offsets[cls.index] = offset + declared.size();
+            }
+        }
+
+        private String[] shuffledNames(Random random, int count, int offset) {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                names.add(BenchmarkData.obfName(offset + i));
+            }
+            Collections.shuffle(names, random);
+            return names.toArray(new String[count]);
+        }
+
+        private String obf(ClassModel cls) {
+            return this.class_names[cls.index];
+        }
+
+        private String obfDesc(String desc) {
+            StringBuilder out = new StringBuilder();
+            int i = 0;
+            while (i < desc.length()) {
+                char next = desc.charAt(i);
+                if (next == 'L') {
+                    int end = desc.indexOf(';', i);
+                    ClassModel type = SyntheticJarGenerator.this.classes_by_name.get(desc.substring(i + 1, end));
+                    out.append('L').append(type == null ? desc.substring(i + 1, end) : obf(type)).append(';');
+                    i = end + 1;
+                } else {
+                    out.append(next);
+                    i++;
+                }
+            }
+            return out.toString();
+        }
+
+        /**
+         * Writes the obfuscated program to the given jar.
+         */
+        public void writeJar(Path jar) throws IOException {
+            try (JarOutputStream out = new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(jar)))) {
+                for (ClassModel cls : SyntheticJarGenerator.this.classes) {
+                    out.putNextEntry(new JarEntry(obf(cls) + ".class"));
+                    out.write(generate(cls));
+                    out.closeEntry();
+                }
+            }
+        }
+
+        /**
+         * Writes the srg mappings from the obfuscated names to the original
+         * names.
+         */
+        public void writeMappings(Path srg) throws IOException {
+            List<ClassModel> classes = SyntheticJarGenerator.this.classes;
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(Files.newOutputStream(srg), StandardCharsets.UTF_8))) {
+                for (ClassModel cls : classes) {
+                    out.println("CL: " + obf(cls) + " " + cls.name);
+                }
+                for (ClassModel cls : classes) {
+                    for (FieldModel fld : cls.fields) {
+                        out.println("FD: " + obf(cls) + "/" + this.field_names.get(fld) + " " + cls.name + "/" + fld.name);
+                    }
+                }
+                for (ClassModel cls : classes) {
+                    for (MethodModel mth : cls.methods) {
+                        out.println("MD: " + obf(cls) + "/" + this.method_names.get(mth) + " " + obfDesc(mth.desc) + " " + cls.name + "/" + mth.name
+                                + " " + mth.desc);
+                    }
+                }
+            }
+        }
+
+        private void visitInnerClass(ClassWriter cw, ClassModel cls) {
+            String name = obf(cls);
+            if (cls.kind == Kind.ANON) {
+                cw.visitInnerClass(name, null, null, 0);
+            } else {
+                cw.visitInnerClass(name, obf(cls.outer), name.substring(name.lastIndexOf('$') + 1), ACC_PUBLIC | ACC_STATIC);
+            }
+        }
+
+        private byte[] generate(ClassModel cls) {
+            String name = obf(cls);
+            String super_name = cls.parent == null ? "java/lang/Object" : obf(cls.parent);
+            int access = ACC_PUBLIC | ACC_SUPER;
+            String signature = null;
+            if (cls.kind == Kind.ENUM) {
+                super_name = "java/lang/Enum";
+                access |= ACC_FINAL | ACC_ENUM;
+                signature = "Ljava/lang/Enum<L" + name + ";>;";
+            }
+            ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            cw.visit(V1_8, access, name, signature, super_name, null);
+            if (cls.kind == Kind.ANON) {
+                cw.visitOuterClass(obf(cls.outer), this.method_names.get(cls.enclosing), obfDesc(cls.enclosing.desc));
+            }
+            if (cls.outer != null) {
+                visitInnerClass(cw, cls);
+            }
+            for (ClassModel child : cls.nested) {
+                visitInnerClass(cw, child);
+            }
+
+            for (FieldModel fld : cls.fields) {
+                int fld_access = ACC_PUBLIC;
+                if (fld.kind == FieldModel.CONSTANT) {
+                    fld_access = ACC_PUBLIC | ACC_STATIC | ACC_FINAL | ACC_ENUM;
+                } else if (fld.kind == FieldModel.VALUES) {
+                    fld_access = ACC_PRIVATE | ACC_STATIC | ACC_FINAL | ACC_SYNTHETIC;
+                }
+                cw.visitField(fld_access, this.field_names.get(fld), obfDesc(fld.desc), null, null).visitEnd();
+            }
+
+            if (cls.kind == Kind.ENUM) {
+                generateEnumMethods(cw, cls);
+            } else {
+                MethodVisitor init = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+                init.visitCode();
+                init.visitVarInsn(ALOAD, 0);
+                init.visitMethodInsn(INVOKESPECIAL, super_name, "<init>", "()V", false);
+                init.visitInsn(RETURN);
+                init.visitMaxs(0, 0);
+                init.visitEnd();
+            }
+
+            for (MethodModel mth : cls.methods) {
+                MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, this.method_names.get(mth), obfDesc(mth.desc), null, null);
+                mv.visitCode();
+                for (Statement stmt : mth.statements) {
+                    generateStatement(mv, cls, stmt);
+                }
+                String ret = mth.desc.substring(mth.desc.indexOf(')') + 1);
+                if (ret.equals("V")) {
+                    mv.visitInsn(RETURN);
+                } else if (ret.equals("I")) {
+                    mv.visitInsn(ICONST_0);
+                    mv.visitInsn(IRETURN);
+                } else {
+                    mv.visitInsn(ACONST_NULL);
+                    mv.visitInsn(ARETURN);
+                }
+                mv.visitMaxs(0, 0);
+                mv.visitEnd();
+            }
+            cw.visitEnd();
+            return cw.toByteArray();
+        }
+
+        private void generateStatement(MethodVisitor mv, ClassModel cls, Statement stmt) {
+            String name = obf(cls);
+            switch (stmt.kind) {
+                case Statement.CONSTANT:
+                    mv.visitVarInsn(ALOAD, 0);
+                    mv.visitLdcInsn(stmt.constant);
+                    mv.visitFieldInsn(PUTFIELD, name, this.field_names.get(cls.fields.get(0)), "Ljava/lang/String;");
+                    break;
+                case Statement.INVOKE: {
+                    MethodModel target = stmt.method;
+                    String target_name = obf(target.owner);
+                    mv.visitTypeInsn(NEW, target_name);
+                    mv.visitInsn(DUP);
+                    mv.visitMethodInsn(INVOKESPECIAL, target_name, "<init>", "()V", false);
+                    for (Type param : Type.getArgumentTypes(target.desc)) {
+                        mv.visitInsn(param.getSort() == Type.INT ? ICONST_0 : ACONST_NULL);
+                    }
+                    mv.visitMethodInsn(INVOKEVIRTUAL, target_name, this.method_names.get(target), obfDesc(target.desc), false);
+                    if (!target.desc.endsWith(")V")) {
+                        mv.visitInsn(POP);
+                    }
+                    break;
+                }
+                case Statement.INCREMENT: {
+                    String fld = this.field_names.get(stmt.field);
+                    mv.visitVarInsn(ALOAD, 0);
+                    mv.visitVarInsn(ALOAD, 0);
+                    mv.visitFieldInsn(GETFIELD, name, fld, "I");
+                    mv.visitInsn(ICONST_1);
+                    mv.visitInsn(IADD);
+                    mv.visitFieldInsn(PUTFIELD, name, fld, "I");
+                    break;
+                }
+                case Statement.ENUM_REF: {
+                    String owner = obf(stmt.owner);
+                    mv.visitFieldInsn(GETSTATIC, owner, this.field_names.get(stmt.field), "L" + owner + ";");
+                    mv.visitInsn(POP);
+                    break;
+                }
+                case Statement.NEW_ANON: {
+                    String anon = obf(stmt.owner);
+                    mv.visitTypeInsn(NEW, anon);
+                    mv.visitInsn(DUP);
+                    mv.visitMethodInsn(INVOKESPECIAL, anon, "<init>", "()V", false);
+                    mv.visitInsn(POP);
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unknown statement kind " + stmt.kind);
+            }
+        }
+
+        private void generateEnumMethods(ClassWriter cw, ClassModel cls) {
+            String name = obf(cls);
+            String desc = "L" + name + ";";
+            FieldModel values = null;
+            List<FieldModel> constants = new ArrayList<>();
+            for (FieldModel fld : cls.fields) {
+                if (fld.kind == FieldModel.CONSTANT) {
+                    constants.add(fld);
+                } else if (fld.kind == FieldModel.VALUES) {
+                    values = fld;
+                }
+            }
+            String values_name = this.field_names.get(values);
+
+            MethodVisitor init = cw.visitMethod(ACC_PRIVATE, "<init>", "(Ljava/lang/String;I)V", null, null);
+            init.visitCode();
+            init.visitVarInsn(ALOAD, 0);
+            init.visitVarInsn(ALOAD, 1);
+            init.visitVarInsn(ILOAD, 2);
+            init.visitMethodInsn(INVOKESPECIAL, "java/lang/Enum", "<init>", "(Ljava/lang/String;I)V", false);
+            init.visitInsn(RETURN);
+            init.visitMaxs(0, 0);
+            init.visitEnd();
+
+            MethodVisitor clinit = cw.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+            clinit.visitCode();
+            for (int i = 0; i < constants.size(); i++) {
+                clinit.visitTypeInsn(NEW, name);
+                clinit.visitInsn(DUP);
+                clinit.visitLdcInsn(constants.get(i).name);
+                pushInt(clinit, i);
+                clinit.visitMethodInsn(INVOKESPECIAL, name, "<init>", "(Ljava/lang/String;I)V", false);
+                clinit.visitFieldInsn(PUTSTATIC, name, this.field_names.get(constants.get(i)), desc);
+            }
+            pushInt(clinit, constants.size());
+            clinit.visitTypeInsn(ANEWARRAY, name);
+            for (int i = 0; i < constants.size(); i++) {
+                clinit.visitInsn(DUP);
+                pushInt(clinit, i);
+                clinit.visitFieldInsn(GETSTATIC, name, this.field_names.get(constants.get(i)), desc);
+                clinit.visitInsn(AASTORE);
+            }
+            clinit.visitFieldInsn(PUTSTATIC, name, values_name, "[" + desc);
+            clinit.visitInsn(RETURN);
+            clinit.visitMaxs(0, 0);
+            clinit.visitEnd();
+
+            MethodVisitor values_mth = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "values", "()[" + desc, null, null);
+            values_mth.visitCode();
+            values_mth.visitFieldInsn(GETSTATIC, name, values_name, "[" + desc);
+            values_mth.visitMethodInsn(INVOKEVIRTUAL, "[" + desc, "clone", "()Ljava/lang/Object;", false);
+            values_mth.visitTypeInsn(CHECKCAST, "[" + desc);
+            values_mth.visitInsn(ARETURN);
+            values_mth.visitMaxs(0, 0);
+            values_mth.visitEnd();
+
+            MethodVisitor value_of = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "valueOf", "(Ljava/lang/String;)" + desc, null, null);
+            value_of.visitCode();
+            value_of.visitLdcInsn(Type.getObjectType(name));
+            value_of.visitVarInsn(ALOAD, 0);
+            value_of.visitMethodInsn(INVOKESTATIC, "java/lang/Enum", "valueOf", "(Ljava/lang/Class;Ljava/lang/String;)Ljava/lang/Enum;", false);
+            value_of.visitTypeInsn(CHECKCAST, name);
+            value_of.visitInsn(ARETURN);
+            value_of.visitMaxs(0, 0);
+            value_of.visitEnd();
+        }
+
+        private void pushInt(MethodVisitor mv, int value) {
+            if (value <= 5) {
+                mv.visitInsn(ICONST_0 + value);
+            } else if (value <= Byte.MAX_VALUE) {
+                mv.visitIntInsn(BIPUSH, value);
+            } else {
+                mv.visitIntInsn(SIPUSH, value);
+            }
+        }
+
+    }
+
+}
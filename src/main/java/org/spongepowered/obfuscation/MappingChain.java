@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation;
+
+import org.spongepowered.obfuscation.daemon.SourceIndexCache;
+import org.spongepowered.obfuscation.data.MappingUsageFinder;
+import org.spongepowered.obfuscation.data.MappingsIO;
+import org.spongepowered.obfuscation.data.MappingsSet;
+import org.spongepowered.obfuscation.data.MutableMappingsSet;
+import org.spongepowered.obfuscation.data.UnknownMemberMapper;
+import org.spongepowered.obfuscation.data.UnknownTypeMapper;
+import org.spongepowered.obfuscation.merge.MergeEngine;
+import org.spongepowered.obfuscation.merge.SourceIndex;
+import org.spongepowered.obfuscation.source.SourceSetLoader;
+import org.spongepowered.obfuscation.source.SourceSetLoader.LoadResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Maps a sequence of consecutive versions in a single run. The mappings
+ * produced for each version are written and read back for the merge of the
+ * next version. The next step therefore sees the names as written, including
+ * those generated for colliding methods, just as a separate run on the
+ * written file would. The source index of each jar is kept only for the two
+ * steps that it takes part in.
+ */
+public class MappingChain {
+
+    private final Path root;
+    private final SourceSetLoader loader;
+    private final SourceIndexCache sources;
+
+    /**
+     * Creates a new chain, if a source cache is given then the jars are taken
+     * from it rather than loaded again.
+     */
+    public MappingChain(Path root, SourceSetLoader loader, SourceIndexCache sources) {
+        this.root = root;
+        this.loader = loader;
+        this.sources = sources;
+    }
+
+    private SourceIndex load(String jar) throws IOException {
+        if (this.sources != null) {
+            return this.sources.get(this.root, jar, this.loader);
+        }
+        LoadResult loaded = this.loader.load(jar);
+        loaded.print(jar);
+        return new SourceIndex(loaded.getSourceSet());
+    }
+
+    /**
+     * Gets the path the mappings for the given jar are written to.
+     */
+    public Path getOutputPath(String jar) {
+        String name = Paths.get(jar).getFileName().toString();
+        int ext = name.lastIndexOf('.');
+        if (ext > 0) {
+            name = name.substring(0, ext);
+        }
+        return this.root.resolve(name + ".srg");
+    }
+
+    /**
+     * Maps each jar in turn starting from the given mappings of the first jar
+     * and returns the mappings of the last jar.
+     */
+    public MappingsSet run(List<String> jars, MappingsSet base) throws IOException {
+        if (jars.size() < 2) {
+            throw new IllegalArgumentException("A chain requires at least two jars");
+        }
+        SourceIndex old_index = load(jars.get(0));
+        MappingsSet old_mappings = base;
+        for (int i = 1; i < jars.size(); i++) {
+            String jar = jars.get(i);
+            SourceIndex new_index = load(jar);
+            MappingsSet new_mappings = new MutableMappingsSet();
+
+            System.out.println("Mapping " + jars.get(i - 1) + " -> " + jar);
+            MergeEngine engine = ObfuscationMapper.createEngine(old_index, old_mappings, new_index, new_mappings);
+            engine.merge();
+
+            MappingUsageFinder usage = new MappingUsageFinder(old_mappings);
+            old_index.getSourceSet().accept(usage);
+            System.out.printf("Mapped %d/%d classes, %d/%d fields, %d/%d methods\n", new_mappings.typeCount(), usage.getSeenTypes(),
+                    new_mappings.fieldCount(), usage.getSeenFields(), new_mappings.methodCount(), usage.getSeenMethods());
+
+            UnknownTypeMapper unknown_type = new UnknownTypeMapper(engine, new_mappings, null);
+            new_index.getSourceSet().accept(unknown_type);
+            UnknownMemberMapper unknown = new UnknownMemberMapper(new_mappings, engine, null);
+            new_index.getSourceSet().accept(unknown);
+
+            Path out = getOutputPath(jar);
+            System.out.println("Writing mappings to " + out.toAbsolutePath().toString());
+            ObfuscationMapper.addOutputPackages(new_mappings);
+            MappingsIO.write(out.toAbsolutePath(), new_mappings, unknown.getNext());
+            new_mappings.getConflicts().printSummary();
+
+            // the old side is no longer needed, the new side becomes the old
+            // side of the next step as it was written
+            old_index = new_index;
+            old_mappings = MappingsIO.load(out.toAbsolutePath()).freeze();
+        }
+        return old_mappings;
+    }
+
+}
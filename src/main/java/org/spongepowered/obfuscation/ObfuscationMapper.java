@@ -26,20 +26,22 @@ package org.spongepowered.obfuscation;
 
 import org.spongepowered.despector.ast.SourceSet;
 import org.spongepowered.despector.config.LibraryConfiguration;
-import org.spongepowered.despector.decompiler.BaseDecompiler;
-import org.spongepowered.despector.decompiler.Decompilers;
-import org.spongepowered.despector.decompiler.DirectoryWalker;
 import org.spongepowered.despector.util.TypeHelper;
-import org.spongepowered.despector.util.serialization.AstLoader;
-import org.spongepowered.despector.util.serialization.MessagePacker;
+import org.spongepowered.obfuscation.config.ObfConfig;
 import org.spongepowered.obfuscation.config.ObfConfigManager;
+import org.spongepowered.obfuscation.daemon.MapperDaemon;
+import org.spongepowered.obfuscation.daemon.SourceIndexCache;
+import org.spongepowered.obfuscation.data.ConcurrentMappingsSet;
 import org.spongepowered.obfuscation.data.MappingUsageFinder;
+import org.spongepowered.obfuscation.data.MappingsDiff;
 import org.spongepowered.obfuscation.data.MappingsIO;
 import org.spongepowered.obfuscation.data.MappingsSet;
-import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
+import org.spongepowered.obfuscation.data.MappingsValidator;
 import org.spongepowered.obfuscation.data.UnknownMemberMapper;
 import org.spongepowered.obfuscation.data.UnknownTypeMapper;
+import org.spongepowered.obfuscation.data.ValidationReport;
 import org.spongepowered.obfuscation.merge.MergeEngine;
+import org.spongepowered.obfuscation.merge.SourceIndex;
 import org.spongepowered.obfuscation.merge.operation.CustomMethodMergers;
 import org.spongepowered.obfuscation.merge.operation.MatchDiscreteFields;
 import org.spongepowered.obfuscation.merge.operation.MatchDiscreteMethods;
@@ -54,16 +56,18 @@ import org.spongepowered.obfuscation.merge.operation.MergeMatchedMethods;
 import org.spongepowered.obfuscation.merge.operation.MergeMatchedTypes;
 import org.spongepowered.obfuscation.merge.operation.MergeSyntheticOverloads;
 import org.spongepowered.obfuscation.merge.operation.VoteCollector;
+import org.spongepowered.obfuscation.merge.stats.MergeStatistics;
+import org.spongepowered.obfuscation.source.AstCache;
+import org.spongepowered.obfuscation.source.SourceSetLoader;
+import org.spongepowered.obfuscation.source.SourceSetLoader.LoadResult;
 
-import java.io.BufferedInputStream;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -74,15 +78,21 @@ public class ObfuscationMapper {
 
     private static final Map<String, Consumer<String>> flags = new HashMap<>();
     private static boolean is_cached = false;
+    private static String cache_dir = null;
     private static boolean output_unmatched = false;
     private static String validation_mappings = null;
+    private static String validation_report = null;
     private static String seed_mappings = null;
     private static String prev_mappings = null;
+    private static boolean chain = false;
+    private static String stats_out = null;
+    private static boolean delta = false;
+    private static Path working_dir = Paths.get("");
 
     static {
         flags.put("--config=", (arg) -> {
             String config = arg.substring(9);
-            Path config_path = Paths.get(".").resolve(config);
+            Path config_path = working_dir.resolve(config);
             ObfConfigManager.load(config_path);
             if (!Files.exists(config_path)) {
                 ObfConfigManager.update();
@@ -91,33 +101,162 @@ public class ObfuscationMapper {
         flags.put("--validation=", (arg) -> {
             validation_mappings = arg.substring(13);
         });
+        flags.put("--validation_report=", (arg) -> {
+            validation_report = arg.substring(20);
+        });
         flags.put("--seed=", (arg) -> {
             seed_mappings = arg.substring(7);
         });
         flags.put("--previous=", (arg) -> {
             prev_mappings = arg.substring(11);
         });
+        flags.put("--ast_cache=", (arg) -> {
+            is_cached = true;
+            cache_dir = arg.substring(12);
+        });
         flags.put("--cache", (arg) -> {
             is_cached = true;
         });
         flags.put("--output_unmatched", (arg) -> {
             output_unmatched = true;
         });
+        flags.put("--chain", (arg) -> {
+            chain = true;
+        });
+        flags.put("--stats=", (arg) -> {
+            stats_out = arg.substring(8);
+        });
+        flags.put("--delta", (arg) -> {
+            delta = true;
+        });
+    }
+
+    /**
+     * Adds the configured output package mappings to the given set.
+     */
+    public static void addOutputPackages(MappingsSet mappings) {
+        for (String pkg : ObfConfigManager.getConfig().output_packages) {
+            int split = pkg.indexOf(' ');
+            if (split == -1) {
+                System.err.println("Invalid output package: " + pkg);
+                continue;
+            }
+            String obf = pkg.substring(0, split);
+            String mapped = pkg.substring(split + 1).trim();
+            // packages already mapped by the set take precedence
+            if (mappings.mapPackage(obf) == null && mappings.inversePackage(mapped) == null) {
+                mappings.addPackageMapping(obf, mapped);
+            }
+        }
+    }
+
+    /**
+     * Creates a merge engine with the default set of operations.
+     */
+    public static MergeEngine createEngine(SourceIndex old_index, MappingsSet old_mappings, SourceIndex new_index, MappingsSet new_mappings) {
+        MergeEngine engine = new MergeEngine(old_index, old_mappings, new_index, new_mappings);
+
+        engine.addOperation(new MergeSyntheticOverloads());
+        engine.addOperation(new MatchStringConstants());
+        engine.addOperation(new MatchEnums());
+        engine.addOperation(new MergeInitializers());
+        engine.addOperation(new MatchReferences());
+        engine.addOperation(new MatchDiscreteFields());
+        engine.addOperation(new MatchMethodGroups());
+        engine.addOperation(new MatchDiscreteMethods());
+        engine.addOperation(new MatchInnerClasses());
+        engine.addOperation(new MergeMatchedTypes());
+        engine.addOperation(new CustomMethodMergers());
+        engine.addOperation(new MergeMatchedMethods());
+        engine.addOperation(new MergeMatchedFields());
+        engine.addOperation(new VoteCollector());
+        engine.addOperation(MergeEngine.jumpTo(3, (e) -> {
+            int ch = e.getChangesLastCycle();
+            e.resetChanges();
+            return ch > 0;
+        }));
+        return engine;
     }
 
     public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].startsWith("--daemon=")) {
+            int port = Integer.parseInt(args[0].substring(9));
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].startsWith("--config=")) {
+                    flags.get("--config=").accept(args[i]);
+                }
+            }
+            LibraryConfiguration.quiet = true;
+            LibraryConfiguration.parallel = true;
+            MapperDaemon daemon = new MapperDaemon(port, ObfConfigManager.getConfig().daemon_cache_size);
+            daemon.run();
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--convert")) {
+            if (args.length != 3) {
+                System.out.println("Usage: java -jar ObfuscationMapper.jar --convert input_mappings output_mappings");
+                return;
+            }
+            MappingsIO.convert(Paths.get(args[1]), Paths.get(args[2]));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--apply")) {
+            if (args.length != 4) {
+                System.out.println("Usage: java -jar ObfuscationMapper.jar --apply base_mappings delta output_mappings");
+                return;
+            }
+            MappingsIO.applyDelta(Paths.get(args[1]), Paths.get(args[2]), Paths.get(args[3]));
+            return;
+        }
+        if (args.length > 0 && args[0].startsWith("--submit=")) {
+            int port = Integer.parseInt(args[0].substring(9));
+            List<String> job = Arrays.asList(args).subList(1, args.length);
+            if (!MapperDaemon.submit(port, Paths.get(""), job)) {
+                System.exit(1);
+            }
+            return;
+        }
+        run(Paths.get(""), args, null);
+    }
+
+    private static void resetFlags() {
+        is_cached = false;
+        cache_dir = null;
+        output_unmatched = false;
+        validation_mappings = null;
+        validation_report = null;
+        seed_mappings = null;
+        prev_mappings = null;
+        chain = false;
+        stats_out = null;
+        delta = false;
+    }
+
+    /**
+     * Runs a single mapping job with the given arguments. If a source cache
+     * is given then the jars are taken from it rather than loaded again.
+     */
+    public static void run(Path root, String[] args, SourceIndexCache sources) throws IOException {
+        resetFlags();
+        working_dir = root;
         if (args.length == 0) {
             System.out.println("Usage: java -jar ObfuscationMapper.jar old.jar old_mappings.srg new.jar output_mappings.srg");
+            System.out.println("       java -jar ObfuscationMapper.jar --chain first.jar first_mappings.srg second.jar [third.jar ...]");
+            System.out.println("       java -jar ObfuscationMapper.jar --daemon=port [--config=file]");
+            System.out.println("       java -jar ObfuscationMapper.jar --submit=port [args...]");
+            System.out.println("       java -jar ObfuscationMapper.jar --convert input_mappings output_mappings");
+            System.out.println("       java -jar ObfuscationMapper.jar --apply base_mappings delta output_mappings");
             return;
         }
 
         LibraryConfiguration.quiet = true;
-        LibraryConfiguration.parallel = false;
+        LibraryConfiguration.parallel = true;
 
         String old_jar = null;
         String old_mappings_dir = null;
         String new_jar = null;
         String output_mappings = null;
+        List<String> chain_jars = new ArrayList<>();
         int o = 0;
         outer: for (int i = 0; i < args.length; i++) {
             if (args[i].startsWith("-")) {
@@ -130,12 +269,17 @@ public class ObfuscationMapper {
                 System.err.println("Unknown flag: " + args[i]);
             } else if (o == 0) {
                 old_jar = args[i];
+                chain_jars.add(args[i]);
             } else if (o == 1) {
                 old_mappings_dir = args[i];
             } else if (o == 2) {
                 new_jar = args[i];
+                chain_jars.add(args[i]);
             } else if (o == 3) {
                 output_mappings = args[i];
+                chain_jars.add(args[i]);
+            } else {
+                chain_jars.add(args[i]);
             }
             o++;
         }
@@ -146,195 +290,148 @@ public class ObfuscationMapper {
             return;
         }
         if (output_mappings == null) {
-            output_mappings = "output.srg";
+            output_mappings = delta ? "output" + MappingsDiff.DELTA_EXTENSION : "output.srg";
         }
 
-        Path root = Paths.get("");
         Path old_mappings_root = root.resolve(old_mappings_dir);
 
-        if (!Files.exists(old_mappings_root)) {
+        if (MappingsIO.findFiles(old_mappings_root).isEmpty()) {
             System.err.println("Unknown mappings: " + old_mappings_root.toAbsolutePath().toString());
             return;
         }
 
-        MappingsSet old_mappings = MappingsIO.load(old_mappings_root);
+        MappingsSet old_mappings = MappingsIO.load(old_mappings_root).freeze();
+
+        AstCache cache = null;
+        if (is_cached) {
+            ObfConfig config = ObfConfigManager.getConfig();
+            Path cache_path = root.resolve(cache_dir != null ? cache_dir : config.cache_directory);
+            cache = new AstCache(cache_path, config.cache_max_size * 1024 * 1024);
+        }
+        SourceSetLoader loader = new SourceSetLoader(root, SourceSetLoader::createJavaDecompiler, cache);
+
+        if (chain) {
+            if (seed_mappings != null || validation_mappings != null || prev_mappings != null || delta) {
+                System.err.println("Seed, validation, previous mappings and delta output are ignored in chain mode");
+            }
+            MappingChain mapping_chain = new MappingChain(root, loader, sources);
+            mapping_chain.run(chain_jars, old_mappings);
+            return;
+        }
+
+        if (delta) {
+            if (seed_mappings == null && prev_mappings == null) {
+                System.err.println("Delta output needs seed or previous mappings");
+                return;
+            }
+            if (!output_mappings.endsWith(MappingsDiff.DELTA_EXTENSION)) {
+                System.err.println("Delta output must be written to a " + MappingsDiff.DELTA_EXTENSION + " file: " + output_mappings);
+                return;
+            }
+        } else if (output_mappings.endsWith(MappingsDiff.DELTA_EXTENSION)) {
+            System.err.println("Full mappings cannot be written to a delta file, run with --delta: " + output_mappings);
+            return;
+        }
+
         MappingsSet new_mappings = null;
+        MappingsSet baseline = null;
         if (seed_mappings != null) {
             Path seed = root.resolve(seed_mappings);
-            if (!Files.exists(seed)) {
+            if (MappingsIO.findFiles(seed).isEmpty()) {
                 System.err.println("Unknown seed mappings: " + seed.toAbsolutePath().toString());
                 return;
             }
             new_mappings = MappingsIO.load(seed);
+            if (delta) {
+                // the seed is extended in place so a copy is kept to compare
+                // the output against
+                baseline = new_mappings.freeze();
+            }
+            // the new mappings are written by several threads at the end of
+            // the merge
+            MappingsSet loaded = new_mappings;
+            new_mappings = new ConcurrentMappingsSet(loaded.getConflicts());
+            new_mappings.merge(loaded);
         } else {
-            new_mappings = new MappingsSet();
+            new_mappings = new ConcurrentMappingsSet();
         }
 
         MappingsSet validation = null;
         if (validation_mappings != null) {
             Path validation_mappings_path = root.resolve(validation_mappings);
-            if (!Files.exists(validation_mappings_path)) {
+            if (MappingsIO.findFiles(validation_mappings_path).isEmpty()) {
                 System.err.println("Validation mappings " + validation_mappings + " not found");
             } else {
                 System.out.println("Loading validation mappings");
-                validation = MappingsIO.load(validation_mappings_path);
+                validation = MappingsIO.load(validation_mappings_path).freeze();
             }
         }
 
         MappingsSet previous = null;
         if (prev_mappings != null) {
             Path prev_mappings_path = root.resolve(prev_mappings);
-            if (!Files.exists(prev_mappings_path)) {
+            if (MappingsIO.findFiles(prev_mappings_path).isEmpty()) {
                 System.err.println("Previous mappings " + prev_mappings + " not found");
+                if (delta && baseline == null) {
+                    return;
+                }
             } else {
                 System.out.println("Loading previous mappings");
-                previous = MappingsIO.load(prev_mappings_path);
+                // only the entries of unmatched members are looked up
+                previous = MappingsIO.openLazy(prev_mappings_path);
             }
         }
 
-        SourceSet old_sourceset = new SourceSet();
-        SourceSet new_sourceset = new SourceSet();
-
-        BaseDecompiler decompiler = Decompilers.JAVA;
-
-        Path old_serialized = root.resolve(old_jar.replace('/', '_').replace('\\', '_') + ".ast");
-        if (is_cached && Files.exists(old_serialized)) {
-            long start = System.nanoTime();
-            AstLoader.loadSources(old_sourceset, new BufferedInputStream(new FileInputStream(old_serialized.toFile())));
-            long end = System.nanoTime();
-            System.out.println("Loaded cached ast with " + old_sourceset.getAllClasses().size() + " classes from the older version");
-            System.out.println("Loaded in " + ((end - start) / 1000000) + "ms");
+        SourceIndex old_index;
+        SourceIndex new_index;
+        if (sources != null) {
+            old_index = sources.get(root, old_jar, loader);
+            new_index = sources.get(root, new_jar, loader);
         } else {
-            long start = System.nanoTime();
-            Path old_jar_path = root.resolve(old_jar);
-            DirectoryWalker walker = new DirectoryWalker(old_jar_path);
-            walker.walk(old_sourceset, decompiler);
-            decompiler.flushTasks();
-            long end = System.nanoTime();
-            System.out.println("Loaded and decompiled " + old_sourceset.getAllClasses().size() + " classes from the older version");
-            System.out.println("Loaded in " + ((end - start) / 1000000) + "ms");
-            int failed = LibraryConfiguration.failed_method_count;
-            int total = LibraryConfiguration.total_method_count;
-            System.out.println("Failed to decompile " + failed + "/" + total + " (" + ((failed / (float) total) * 100) + "%)");
-            LibraryConfiguration.failed_method_count = 0;
-            LibraryConfiguration.total_method_count = 0;
-            if (is_cached) {
-                try (MessagePacker packer = new MessagePacker(new FileOutputStream(old_serialized.toFile()))) {
-                    old_sourceset.writeTo(packer);
-                }
-            }
+            List<LoadResult> loaded = loader.loadAll(Arrays.asList(old_jar, new_jar));
+            loaded.get(0).print("older");
+            loaded.get(1).print("newer");
+            old_index = new SourceIndex(loaded.get(0).getSourceSet());
+            new_index = new SourceIndex(loaded.get(1).getSourceSet());
         }
-        Path new_serialized = root.resolve(new_jar.replace('/', '_').replace('\\', '_') + ".ast");
-        if (is_cached && Files.exists(new_serialized)) {
-            long start = System.nanoTime();
-            AstLoader.loadSources(new_sourceset, new BufferedInputStream(new FileInputStream(new_serialized.toFile())));
-            long end = System.nanoTime();
-            System.out.println("Loaded cached ast with " + new_sourceset.getAllClasses().size() + " classes from the newer version");
-            System.out.println("Loaded in " + ((end - start) / 1000000) + "ms");
-        } else {
-            long start = System.nanoTime();
-            Path new_jar_path = root.resolve(new_jar);
-            DirectoryWalker walker = new DirectoryWalker(new_jar_path);
-            walker.walk(new_sourceset, decompiler);
-            decompiler.flushTasks();
-            long end = System.nanoTime();
-            System.out.println("Loaded and decompiled " + new_sourceset.getAllClasses().size() + " classes from the newer version");
-            System.out.println("Loaded in " + ((end - start) / 1000000) + "ms");
-            int failed = LibraryConfiguration.failed_method_count;
-            int total = LibraryConfiguration.total_method_count;
-            System.out.println("Failed to decompile " + failed + "/" + total + " (" + ((failed / (float) total) * 100) + "%)");
-            LibraryConfiguration.failed_method_count = 0;
-            LibraryConfiguration.total_method_count = 0;
-            if (is_cached) {
-                try (MessagePacker packer = new MessagePacker(new FileOutputStream(new_serialized.toFile()))) {
-                    new_sourceset.writeTo(packer);
-                }
-            }
+        SourceSet old_sourceset = old_index.getSourceSet();
+        SourceSet new_sourceset = new_index.getSourceSet();
+
+        MergeEngine engine = createEngine(old_index, old_mappings, new_index, new_mappings);
+        MergeStatistics stats = null;
+        if (stats_out != null) {
+            stats = new MergeStatistics();
+            engine.addListener(stats);
         }
 
-        MergeEngine engine = new MergeEngine(old_sourceset, old_mappings, new_sourceset, new_mappings);
-
-        engine.addOperation(new MergeSyntheticOverloads());
-        engine.addOperation(new MatchStringConstants());
-        engine.addOperation(new MatchEnums());
-        engine.addOperation(new MergeInitializers());
-        engine.addOperation(new MatchReferences());
-        engine.addOperation(new MatchDiscreteFields());
-        engine.addOperation(new MatchMethodGroups());
-        engine.addOperation(new MatchDiscreteMethods());
-        engine.addOperation(new MatchInnerClasses());
-        engine.addOperation(new MergeMatchedTypes());
-        engine.addOperation(new CustomMethodMergers());
-        engine.addOperation(new MergeMatchedMethods());
-        engine.addOperation(new MergeMatchedFields());
-        engine.addOperation(new VoteCollector());
-        engine.addOperation(MergeEngine.jumpTo(3, (e) -> {
-            int ch = e.getChangesLastCycle();
-            e.resetChanges();
-            return ch > 0;
-        }));
-
         engine.merge();
 
+        if (stats != null) {
+            stats.printSummary();
+            Path stats_path = root.resolve(stats_out);
+            System.out.println("Writing merge stats to " + stats_path.toAbsolutePath().toString());
+            stats.write(stats_path);
+        }
+
         MappingUsageFinder usage = new MappingUsageFinder(old_mappings);
         old_sourceset.accept(usage);
 
-        if (validation != null) {
-            int type_validation_errors = 0;
-            int method_validation_errors = 0;
-            int field_validation_errors = 0;
-
-            for (String mapped : new_mappings.getMappedTypes()) {
-                String new_mapped = new_mappings.mapTypeSafe(mapped);
-                String val_mapped = validation.mapType(mapped);
-                if (!new_mapped.equals(val_mapped)) {
-                    System.out.println("Mapped " + mapped + " to " + new_mapped + " but should have been " + val_mapped);
-                    type_validation_errors++;
-                }
-            }
-
-            for (String mapped : new_mappings.getMappedMethods()) {
-                for (MethodMapping map : new_mappings.getMethods(mapped)) {
-                    String new_mapped = new_mappings.mapMethodSafe(map.getObfOwner(), map.getObf(), map.getObfSignature());
-                    String val_mapped = validation.mapMethodSafe(map.getObfOwner(), map.getObf(), map.getObfSignature());
-                    if (!new_mapped.equals(val_mapped)) {
-                        System.out.println("Mapped method " + mapped + " to " + new_mapped + " but should have been " + val_mapped);
-                        method_validation_errors++;
-                    }
-                }
-            }
+        System.out.println("Mapped " + new_mappings.packagesCount() + " packages");
+        float type_percent = (new_mappings.typeCount() / (float) usage.getSeenTypes()) * 100.0f;
+        System.out.printf("Mapped %d/%d classes (%.2f%%)\n", new_mappings.typeCount(), usage.getSeenTypes(), type_percent);
+        float field_percent = (new_mappings.fieldCount() / (float) usage.getSeenFields()) * 100.0f;
+        System.out.printf("Mapped %d/%d fields (%.2f%%)\n", new_mappings.fieldCount(), usage.getSeenFields(), field_percent);
+        float method_percent = (new_mappings.methodCount() / (float) usage.getSeenMethods()) * 100.0f;
+        System.out.printf("Mapped %d/%d methods (%.2f%%)\n", new_mappings.methodCount(), usage.getSeenMethods(), method_percent);
 
-            for (String mapped : new_mappings.getMappedFields()) {
-                String new_mapped = new_mappings.mapField(mapped);
-                String val_mapped = validation.mapField(mapped);
-                if (!new_mapped.equals(val_mapped)) {
-                    System.out.println("Mapped field " + mapped + " to " + new_mapped + " but should have been " + val_mapped);
-                    field_validation_errors++;
-                }
+        if (validation != null) {
+            ValidationReport report = MappingsValidator.validate(new_mappings, validation);
+            report.printSummary();
+            if (validation_report != null) {
+                Path report_path = root.resolve(validation_report);
+                System.out.println("Writing validation report to " + report_path.toAbsolutePath().toString());
+                report.write(report_path);
             }
-
-            System.out.println("Mapped " + new_mappings.packagesCount() + " packages");
-            float type_percent = (new_mappings.typeCount() / (float) usage.getSeenTypes()) * 100.0f;
-            System.out.printf("Mapped %d/%d classes (%.2f%%)\n", new_mappings.typeCount(), usage.getSeenTypes(), type_percent);
-            float field_percent = (new_mappings.fieldCount() / (float) usage.getSeenFields()) * 100.0f;
-            System.out.printf("Mapped %d/%d fields (%.2f%%)\n", new_mappings.fieldCount(), usage.getSeenFields(), field_percent);
-            float method_percent = (new_mappings.methodCount() / (float) usage.getSeenMethods()) * 100.0f;
-            System.out.printf("Mapped %d/%d methods (%.2f%%)\n", new_mappings.methodCount(), usage.getSeenMethods(), method_percent);
-
-            System.out.println("Type validation errors: " + type_validation_errors);
-            System.out.println("Field validation errors: " + field_validation_errors);
-            System.out.println("Method validation errors: " + method_validation_errors);
-            int total_mapped = new_mappings.typeCount() + new_mappings.fieldCount() + new_mappings.methodCount();
-            int error_count = type_validation_errors + method_validation_errors + field_validation_errors;
-            System.out.printf("Accuracy: %.2f%%\n", (1 - (error_count / (float) total_mapped)) * 100);
-        } else {
-            System.out.println("Mapped " + new_mappings.packagesCount() + " packages");
-            float type_percent = (new_mappings.typeCount() / (float) usage.getSeenTypes()) * 100.0f;
-            System.out.printf("Mapped %d/%d classes (%.2f%%)\n", new_mappings.typeCount(), usage.getSeenTypes(), type_percent);
-            float field_percent = (new_mappings.fieldCount() / (float) usage.getSeenFields()) * 100.0f;
-            System.out.printf("Mapped %d/%d fields (%.2f%%)\n", new_mappings.fieldCount(), usage.getSeenFields(), field_percent);
-            float method_percent = (new_mappings.methodCount() / (float) usage.getSeenMethods()) * 100.0f;
-            System.out.printf("Mapped %d/%d methods (%.2f%%)\n", new_mappings.methodCount(), usage.getSeenMethods(), method_percent);
         }
 
         if (output_unmatched) {
@@ -371,7 +468,14 @@ public class ObfuscationMapper {
         new_sourceset.accept(unknown);
 
         Path mappings_out = root.resolve(output_mappings);
-        MappingsIO.write(mappings_out.toAbsolutePath(), new_mappings, unknown.getNext());
+        addOutputPackages(new_mappings);
+        if (delta) {
+            // the seed is preferred as the baseline over the previous mappings
+            MappingsIO.writeDelta(mappings_out.toAbsolutePath(), baseline != null ? baseline : previous, new_mappings, unknown.getNext());
+        } else {
+            MappingsIO.write(mappings_out.toAbsolutePath(), new_mappings, unknown.getNext());
+        }
+        new_mappings.getConflicts().printSummary();
 
     }
 
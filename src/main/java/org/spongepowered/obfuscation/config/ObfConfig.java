@@ -27,6 +27,7 @@ package org.spongepowered.obfuscation.config;
 import ninja.leaping.configurate.objectmapping.Setting;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -34,7 +35,30 @@ import java.util.List;
  */
 public class ObfConfig {
 
-    @Setting(value = "excluded-packages", comment = "Packages to ignore")
+    @Setting(value = "excluded-packages", comment = "Packages to ignore, matched against the mapped names of types")
     public List<String> excluded_packages = new ArrayList<>();
 
+    @Setting(value = "cache-directory", comment = "The directory to store cached asts in when running with --cache")
+    public String cache_directory = ".ast_cache";
+
+    @Setting(value = "cache-max-size", comment = "The maximum size of the ast cache in megabytes")
+    public long cache_max_size = 4096;
+
+    @Setting(value = "daemon-cache-size", comment = "The number of loaded jars kept in memory when running as a daemon")
+    public int daemon_cache_size = 4;
+
+    @Setting(value = "output-packages", comment = "Package mappings added to the output mappings, each as the obfuscated and mapped package separated by a space")
+    public List<String> output_packages = new ArrayList<>(Arrays.asList(". net/minecraft/src", "net net", "net/minecraft net/minecraft",
+            "net/minecraft/client net/minecraft/client", "net/minecraft/client/main net/minecraft/client/main", "net/minecraft/realms net/minecraft/realms",
+            "net/minecraft/server net/minecraft/server"));
+
+    @Setting(value = "lazy-cache-size", comment = "The number of looked up entries cached by lazily opened mappings")
+    public int lazy_cache_size = 16384;
+
+    @Setting(value = "lazy-index-sidecar", comment = "Whether lazily opened mappings store their index in a sidecar file")
+    public boolean lazy_index_sidecar = true;
+
+    @Setting(value = "load-threads", comment = "The number of threads used to parse large mappings files, 0 to use one per processor")
+    public int load_threads = 0;
+
 }
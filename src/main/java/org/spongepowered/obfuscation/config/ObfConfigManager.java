@@ -28,6 +28,7 @@ import ninja.leaping.configurate.ConfigurationOptions;
 import ninja.leaping.configurate.commented.CommentedConfigurationNode;
 import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
 import ninja.leaping.configurate.objectmapping.ObjectMapper;
+import org.spongepowered.obfuscation.util.PrefixMatcher;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -44,6 +45,7 @@ public class ObfConfigManager {
     private static ObjectMapper<ObfConfig>.BoundInstance configMapper;
 
     private static ObfConfig config = null;
+    private static PrefixMatcher excluded = null;
 
     /**
      * Gets the global configuration object.
@@ -55,6 +57,33 @@ public class ObfConfigManager {
         return config;
     }
 
+    /**
+     * Gets the matcher for the excluded packages of the global configuration.
+     * The matcher is compiled when the configuration is loaded.
+     */
+    public static PrefixMatcher getExcludedPackages() {
+        if (excluded == null) {
+            excluded = new PrefixMatcher(getConfig().excluded_packages);
+        }
+        return excluded;
+    }
+
+    /**
+     * Replaces the global configuration with the given configuration, such as
+     * one previously returned by {@link #getConfig}, forgetting any
+     * configuration file loaded since.
+     */
+    public static void restore(ObfConfig saved) {
+        if (saved == config) {
+            return;
+        }
+        config = saved;
+        excluded = null;
+        loader = null;
+        node = null;
+        configMapper = null;
+    }
+
     /**
      * Loads the given configuration file.
      */
@@ -70,6 +99,7 @@ public class ObfConfigManager {
             configMapper = ObjectMapper.forClass(ObfConfig.class).bindToNew();
             node = loader.load(ConfigurationOptions.defaults().setHeader(HEADER));
             config = configMapper.populate(node);
+            excluded = new PrefixMatcher(config.excluded_packages);
             configMapper.serialize(node);
             loader.save(node);
         } catch (Exception e) {
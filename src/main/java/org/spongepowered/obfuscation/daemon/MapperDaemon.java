@@ -0,0 +1,301 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.daemon;
+
+import org.spongepowered.obfuscation.ObfuscationMapper;
+import org.spongepowered.obfuscation.config.ObfConfig;
+import org.spongepowered.obfuscation.config.ObfConfigManager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A long running mapper which accepts jobs over a socket bound to the
+ * loopback address. Loaded source sets are kept warm between jobs so that
+ * repeated runs against the same jars skip decompilation and indexing.
+ *
+ * <p>A job is sent as the daemon token on the first line and the working
+ * directory of the client on the second line, followed by one command line
+ * argument per line and ends with an empty line. The token is generated when
+ * the daemon starts and written to a file readable only by the user running
+ * it, see {@link #getTokenFile}, jobs without it are rejected. The output of
+ * the job is streamed back as it is produced and the final line of the
+ * response is either {@link #DONE} or starts with {@link #FAILED}.</p>
+ *
+ * <p>Jobs are run one at a time in the order they are received, as a job
+ * redirects the global output streams and may load its own configuration.
+ * The configuration of the daemon is restored after each job.</p>
+ */
+public class MapperDaemon {
+
+    public static final String DONE = "#done";
+    public static final String FAILED = "#failed";
+    public static final String SHUTDOWN = "--shutdown";
+
+    private static final int TOKEN_SIZE = 32;
+
+    /**
+     * Gets the file holding the token of the daemon listening on the given
+     * port.
+     */
+    public static Path getTokenFile(int port) {
+        return Paths.get(System.getProperty("user.home"), ".obfuscation-mapper", "daemon-" + port + ".token");
+    }
+
+    private final int port;
+    private final SourceIndexCache cache;
+    private String token;
+
+    private volatile boolean running = true;
+
+    public MapperDaemon(int port, int max_entries) {
+        this.port = port;
+        this.cache = new SourceIndexCache(max_entries);
+    }
+
+    public SourceIndexCache getCache() {
+        return this.cache;
+    }
+
+    /**
+     * Accepts and runs jobs until a shutdown request is received.
+     */
+    public void run() throws IOException {
+        try (ServerSocket server = new ServerSocket(this.port, 50, InetAddress.getLoopbackAddress())) {
+            Path token_file = getTokenFile(server.getLocalPort());
+            this.token = createToken();
+            writeToken(token_file, this.token);
+            System.out.println("Listening for jobs on " + server.getLocalSocketAddress());
+            System.out.println("Wrote daemon token to " + token_file.toString());
+            try {
+                // jobs are handled on this thread so that only one job at a
+                // time swaps the global streams and configuration
+                while (this.running) {
+                    try (Socket socket = server.accept()) {
+                        handle(socket);
+                    } catch (IOException e) {
+                        System.err.println("Error communicating with client:");
+                        e.printStackTrace();
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(token_file);
+            }
+        }
+        System.out.println("Shutting down");
+    }
+
+    private static String createToken() {
+        byte[] bytes = new byte[TOKEN_SIZE];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder token = new StringBuilder();
+        for (byte b : bytes) {
+            token.append(Character.forDigit((b >> 4) & 0xF, 16));
+            token.append(Character.forDigit(b & 0xF, 16));
+        }
+        return token.toString();
+    }
+
+    /**
+     * Writes the token to the given file, which is created readable and
+     * writable only by the current user before the token is written.
+     */
+    private static void writeToken(Path token_file, String token) throws IOException {
+        Path dir = token_file.getParent();
+        Files.deleteIfExists(token_file);
+        try {
+            Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            Files.createFile(token_file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createDirectories(dir);
+            Files.createFile(token_file);
+            File file = token_file.toFile();
+            file.setReadable(false, false);
+            file.setWritable(false, false);
+            file.setReadable(true, true);
+            file.setWritable(true, true);
+        }
+        Files.write(token_file, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean checkToken(String attempt) {
+        return attempt != null
+                && MessageDigest.isEqual(attempt.getBytes(StandardCharsets.UTF_8), this.token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handle(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        OutputStream socket_out = socket.getOutputStream();
+        PrintStream client = new PrintStream(socket_out, true, "UTF-8");
+        if (!checkToken(in.readLine())) {
+            System.err.println("Rejected job with an invalid token");
+            client.println(FAILED + " Invalid daemon token");
+            return;
+        }
+        String dir = in.readLine();
+        if (dir == null) {
+            return;
+        }
+        List<String> args = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            args.add(line);
+        }
+        if (args.size() == 1 && args.get(0).equals(SHUTDOWN)) {
+            this.running = false;
+            client.println(DONE);
+            return;
+        }
+        Path root = Paths.get(dir);
+        System.out.println("Running job in " + dir + ": " + String.join(" ", args));
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        ObfConfig config = ObfConfigManager.getConfig();
+        System.setOut(new PrintStream(new TeeOutputStream(out, socket_out), true, "UTF-8"));
+        System.setErr(new PrintStream(new TeeOutputStream(err, socket_out), true, "UTF-8"));
+        long start = System.nanoTime();
+        try {
+            ObfuscationMapper.run(root, args.toArray(new String[args.size()]), this.cache);
+            System.out.println("Finished in " + (System.nanoTime() - start) / 1000000 + "ms");
+            client.println(DONE);
+        } catch (Exception e) {
+            e.printStackTrace();
+            client.println(FAILED + " " + e.getMessage());
+        } finally {
+            System.out.flush();
+            System.err.flush();
+            System.setOut(out);
+            System.setErr(err);
+            ObfConfigManager.restore(config);
+        }
+        System.out.println("Sources cache: " + this.cache.size() + " entries, " + this.cache.getHits() + " hits, " + this.cache.getMisses()
+                + " misses");
+    }
+
+    /**
+     * Submits a job to a daemon running on the given port and prints its
+     * output. Returns true if the job completed successfully.
+     */
+    public static boolean submit(int port, Path dir, List<String> args) throws IOException {
+        Path token_file = getTokenFile(port);
+        if (!Files.isRegularFile(token_file)) {
+            System.err.println("No daemon token found at " + token_file.toString());
+            return false;
+        }
+        String token = new String(Files.readAllBytes(token_file), StandardCharsets.UTF_8).trim();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            PrintStream server = new PrintStream(socket.getOutputStream(), true, "UTF-8");
+            server.println(token);
+            server.println(dir.toAbsolutePath().toString());
+            for (String arg : args) {
+                server.println(arg);
+            }
+            server.println();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.equals(DONE)) {
+                    return true;
+                } else if (line.startsWith(FAILED)) {
+                    System.err.println("Job failed:" + line.substring(FAILED.length()));
+                    return false;
+                }
+                System.out.println(line);
+            }
+            System.err.println("Daemon closed the connection");
+            return false;
+        }
+    }
+
+    /**
+     * Writes to two streams at once, errors writing to the second stream are
+     * ignored so that a disconnected client does not fail the job.
+     */
+    private static class TeeOutputStream extends OutputStream {
+
+        private final OutputStream first;
+        private final OutputStream second;
+        private boolean second_failed = false;
+
+        public TeeOutputStream(OutputStream first, OutputStream second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.first.write(b);
+            if (!this.second_failed) {
+                try {
+                    this.second.write(b);
+                } catch (IOException e) {
+                    this.second_failed = true;
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.first.write(b, off, len);
+            if (!this.second_failed) {
+                try {
+                    this.second.write(b, off, len);
+                } catch (IOException e) {
+                    this.second_failed = true;
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            this.first.flush();
+            if (!this.second_failed) {
+                try {
+                    this.second.flush();
+                } catch (IOException e) {
+                    this.second_failed = true;
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.daemon;
+
+import org.spongepowered.obfuscation.merge.SourceIndex;
+import org.spongepowered.obfuscation.source.SourceSetLoader;
+import org.spongepowered.obfuscation.source.SourceSetLoader.LoadResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded in memory cache of loaded source sets and their indexes, keyed by
+ * the path, size and modification time of the jar they were loaded from. When
+ * full the least recently used entry is dropped.
+ */
+public class SourceIndexCache {
+
+    private final Map<String, SourceIndex> entries;
+
+    private int hits = 0;
+    private int misses = 0;
+
+    public SourceIndexCache(int max_entries) {
+        this.entries = new LinkedHashMap<String, SourceIndex>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SourceIndex> eldest) {
+                if (size() > max_entries) {
+                    System.out.println("Dropping cached sources for " + eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public int getHits() {
+        return this.hits;
+    }
+
+    public int getMisses() {
+        return this.misses;
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Gets the index of the given jar, loading it with the given loader if it
+     * is not already cached.
+     */
+    public synchronized SourceIndex get(Path root, String jar, SourceSetLoader loader) throws IOException {
+        Path jar_path = root.resolve(jar).toAbsolutePath().normalize();
+        String key = jar_path.toString() + "@" + Files.size(jar_path) + "@" + Files.getLastModifiedTime(jar_path).toMillis();
+        SourceIndex index = this.entries.get(key);
+        if (index != null) {
+            this.hits++;
+            System.out.println("Using warm sources for " + jar);
+            return index;
+        }
+        this.misses++;
+        LoadResult loaded = loader.load(jar_path.toString());
+        loaded.print(jar);
+        index = new SourceIndex(loaded.getSourceSet());
+        // build the indexes now so that later jobs find them ready
+        index.getMethodGroups();
+        index.getReferences();
+        this.entries.put(key, index);
+        return index;
+    }
+
+}
@@ -0,0 +1,356 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes the binary form of a {@link FrozenMappingsSet}.
+ *
+ * <p>The file starts with a header holding the format version, a checksum of
+ * the rest of the file and a table of the offset and length of each section.
+ * Names are stored once in a string pool section and referenced by index from
+ * the other sections, which hold the sorted arrays and inverse indices of the
+ * frozen set as is so that nothing needs to be sorted or parsed when the file
+ * is loaded. The loaded set reads its tables directly from the mapped file.</p>
+ */
+final class BinaryMappings {
+
+    /**
+     * The file extension used for binary mappings.
+     */
+    static final String EXTENSION = ".bsrg";
+
+    private static final int MAGIC = 0x4F4D4150;
+    // the magic as it appears at the start of the file
+    static final String MAGIC_STRING = "OMAP";
+    private static final int FORMAT_VERSION = 1;
+    // magic, version and checksum
+    private static final int HEADER_SIZE = 16;
+
+    static final int STRINGS = 0;
+    static final int PACKAGES = 1;
+    static final int TYPES = 2;
+    static final int OWNERS = 3;
+    static final int FIELDS = 4;
+    static final int METHODS = 5;
+    private static final int SECTION_COUNT = 6;
+
+    /**
+     * Writes the given frozen set to the given file. The file is written to a
+     * temporary file first and moved into place once complete.
+     */
+    static void write(Path out, FrozenMappingsSet mappings) throws IOException {
+        Output output = new Output();
+        mappings.write(output);
+        byte[][] sections = output.finish();
+
+        ByteBuffer table = ByteBuffer.allocate(4 + SECTION_COUNT * 8);
+        table.putInt(SECTION_COUNT);
+        int offset = HEADER_SIZE + table.capacity();
+        for (byte[] section : sections) {
+            table.putInt(offset);
+            table.putInt(section.length);
+            offset += section.length;
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(table.array());
+        for (byte[] section : sections) {
+            checksum.update(section);
+        }
+
+        Path parent = out.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, out.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream stream = Files.newOutputStream(tmp); DataOutputStream data = new DataOutputStream(stream)) {
+                data.writeInt(MAGIC);
+                data.writeInt(FORMAT_VERSION);
+                data.writeLong(checksum.getValue());
+                data.write(table.array());
+                for (byte[] section : sections) {
+                    data.write(section);
+                }
+            }
+            try {
+                Files.move(tmp, out, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Memory maps the given file and reads it into a frozen set. Conflicts of
+     * the set are recorded to the given collector.
+     */
+    static FrozenMappingsSet read(Path file, MappingConflicts conflicts) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary mappings too large: " + file.toString());
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (data.remaining() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+                throw new IOException("Not a binary mappings file: " + file.toString());
+            }
+            if (data.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Unsupported binary mappings version " + data.getInt(4) + ": " + file.toString());
+            }
+            CRC32 checksum = new CRC32();
+            ByteBuffer body = data.duplicate();
+            body.position(HEADER_SIZE);
+            checksum.update(body);
+            if (checksum.getValue() != data.getLong(8)) {
+                throw new IOException("Checksum mismatch in binary mappings: " + file.toString());
+            }
+            return new FrozenMappingsSet(new Input(data), conflicts);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException | BufferUnderflowException e) {
+            throw new IOException("Malformed binary mappings: " + file.toString(), e);
+        }
+    }
+
+    /**
+     * Collects the sections of a set as it is written.
+     */
+    static final class Output {
+
+        private final Map<String, Integer> pool = new HashMap<>();
+        private final ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        private final DataOutputStream string_offsets;
+        private final ByteArrayOutputStream string_offsets_bytes = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream[] sections = new ByteArrayOutputStream[SECTION_COUNT];
+        private final DataOutputStream[] streams = new DataOutputStream[SECTION_COUNT];
+
+        Output() {
+            this.string_offsets = new DataOutputStream(this.string_offsets_bytes);
+            for (int i = STRINGS + 1; i < SECTION_COUNT; i++) {
+                this.sections[i] = new ByteArrayOutputStream();
+                this.streams[i] = new DataOutputStream(this.sections[i]);
+            }
+        }
+
+        private int string(String str) throws IOException {
+            if (str == null) {
+                return -1;
+            }
+            Integer index = this.pool.get(str);
+            if (index == null) {
+                index = this.pool.size();
+                this.pool.put(str, index);
+                this.string_offsets.writeInt(this.strings.size());
+                byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+                this.strings.write(bytes, 0, bytes.length);
+            }
+            return index;
+        }
+
+        /**
+         * Writes a table of names to the given section as indices into the
+         * string pool, null names are written as -1.
+         */
+        void writeStrings(int section, FrozenMappingsSet.StringTable values) throws IOException {
+            DataOutputStream out = this.streams[section];
+            out.writeInt(values.size());
+            for (int i = 0; i < values.size(); i++) {
+                out.writeInt(string(values.get(i)));
+            }
+        }
+
+        void writeInts(int section, IntBuffer values) throws IOException {
+            DataOutputStream out = this.streams[section];
+            out.writeInt(values.limit());
+            for (int i = 0; i < values.limit(); i++) {
+                out.writeInt(values.get(i));
+            }
+        }
+
+        void writeInt(int section, int value) throws IOException {
+            this.streams[section].writeInt(value);
+        }
+
+        byte[][] finish() throws IOException {
+            byte[][] result = new byte[SECTION_COUNT][];
+            ByteArrayOutputStream pool_bytes = new ByteArrayOutputStream(8 + this.string_offsets_bytes.size() + this.strings.size());
+            DataOutputStream pool_out = new DataOutputStream(pool_bytes);
+            pool_out.writeInt(this.pool.size());
+            this.string_offsets.writeInt(this.strings.size());
+            this.string_offsets_bytes.writeTo(pool_out);
+            this.strings.writeTo(pool_out);
+            result[STRINGS] = pool_bytes.toByteArray();
+            for (int i = STRINGS + 1; i < SECTION_COUNT; i++) {
+                result[i] = this.sections[i].toByteArray();
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * Reads the sections of a memory mapped set. The int sections are served
+     * as views of the mapped file and names are decoded from the pool when
+     * they are first read, the checksum verified by {@link #read} is the only
+     * pass over the whole file.
+     */
+    static final class Input {
+
+        private final ByteBuffer[] sections = new ByteBuffer[SECTION_COUNT];
+        private final StringPool pool;
+
+        Input(ByteBuffer data) throws IOException {
+            ByteBuffer table = data.duplicate();
+            table.position(HEADER_SIZE);
+            if (table.getInt() != SECTION_COUNT) {
+                throw new IOException("Unexpected section count");
+            }
+            for (int i = 0; i < SECTION_COUNT; i++) {
+                int offset = table.getInt();
+                int length = table.getInt();
+                ByteBuffer section = data.duplicate();
+                section.limit(offset + length);
+                section.position(offset);
+                this.sections[i] = section.slice();
+            }
+
+            ByteBuffer strings = this.sections[STRINGS];
+            int count = strings.getInt();
+            IntBuffer offsets = slice(strings, count + 1);
+            this.pool = new StringPool(offsets, strings.slice());
+        }
+
+        /**
+         * Gets a view of the next int array of the given section and skips
+         * past it.
+         */
+        private static IntBuffer slice(ByteBuffer data, int length) {
+            IntBuffer ints = data.asIntBuffer();
+            ints.limit(length);
+            data.position(data.position() + length * 4);
+            return ints.slice();
+        }
+
+        FrozenMappingsSet.StringTable readStrings(int section) {
+            return new PooledStringTable(readInts(section), this.pool);
+        }
+
+        IntBuffer readInts(int section) {
+            ByteBuffer data = this.sections[section];
+            return slice(data, data.getInt());
+        }
+
+        int readInt(int section) {
+            return this.sections[section].getInt();
+        }
+
+    }
+
+    /**
+     * The string pool of a memory mapped set. Names are decoded by their
+     * offset when first read and cached, concurrent readers may decode a name
+     * twice but always store an equal value.
+     */
+    private static final class StringPool {
+
+        private final IntBuffer offsets;
+        private final ByteBuffer bytes;
+        private final String[] cache;
+
+        StringPool(IntBuffer offsets, ByteBuffer bytes) {
+            this.offsets = offsets;
+            this.bytes = bytes;
+            this.cache = new String[offsets.limit() - 1];
+        }
+
+        String get(int index) {
+            if (index == -1) {
+                return null;
+            }
+            if (index < -1 || index >= this.cache.length) {
+                throw new IndexOutOfBoundsException("String index out of range: " + index);
+            }
+            String value = this.cache[index];
+            if (value == null) {
+                int start = this.offsets.get(index);
+                byte[] data = new byte[this.offsets.get(index + 1) - start];
+                ByteBuffer view = this.bytes.duplicate();
+                view.position(start);
+                view.get(data);
+                value = new String(data, StandardCharsets.UTF_8);
+                this.cache[index] = value;
+            }
+            return value;
+        }
+
+    }
+
+    /**
+     * A table of names stored as indices into the string pool.
+     */
+    private static final class PooledStringTable implements FrozenMappingsSet.StringTable {
+
+        private final IntBuffer indices;
+        private final StringPool pool;
+
+        PooledStringTable(IntBuffer indices, StringPool pool) {
+            this.indices = indices;
+            this.pool = pool;
+        }
+
+        @Override
+        public String get(int index) {
+            return this.pool.get(this.indices.get(index));
+        }
+
+        @Override
+        public int size() {
+            return this.indices.limit();
+        }
+
+    }
+
+    private BinaryMappings() {
+    }
+
+}
@@ -0,0 +1,548 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import com.google.common.util.concurrent.Striped;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A set of mappings which may be read and modified by several threads at
+ * once. Used for the new mappings of a merge, whose matched members are
+ * written concurrently.
+ *
+ * <p>Members are held in per owner concurrent maps so lookups do not lock or
+ * build keys. Inserts lock the stripes of the obfuscated and mapped names they
+ * touch so that the existing mapping wins exactly as in
+ * {@link MutableMappingsSet} and both directions of a mapping are updated
+ * together. A lookup racing an insert may see one direction before the
+ * other. Merges lock every stripe.</p>
+ *
+ * <p>Mapped method signatures are not cached as a type mapping may be added
+ * while a signature referencing it is computed.</p>
+ */
+public class ConcurrentMappingsSet implements MappingsSet {
+
+    private final Striped<Lock> locks = Striped.lock(Runtime.getRuntime().availableProcessors() * 4);
+
+    private final ConcurrentMap<String, String> packages = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> inverse_packages = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> classes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> inverse_classes = new ConcurrentHashMap<>();
+    // owner -> field -> mapped field
+    private final ConcurrentMap<String, ConcurrentMap<String, String>> fields = new ConcurrentHashMap<>();
+    // mapped owner -> mapped field -> field
+    private final ConcurrentMap<String, ConcurrentMap<String, String>> inverse_fields = new ConcurrentHashMap<>();
+    // owner -> method -> descriptor -> mapping
+    private final ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, MethodMapping>>> methods = new ConcurrentHashMap<>();
+    // mapped owner -> mapped method -> descriptor -> mapping
+    private final ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, MethodMapping>>> inverse_methods = new ConcurrentHashMap<>();
+
+    private final AtomicInteger field_count = new AtomicInteger();
+    private final AtomicInteger method_count = new AtomicInteger();
+    private final AtomicInteger method_keys = new AtomicInteger();
+
+    private final MappingConflicts conflicts;
+    private volatile boolean modified = false;
+
+    public ConcurrentMappingsSet() {
+        this(new MappingConflicts());
+    }
+
+    /**
+     * Creates a new set recording conflicts to the given collector.
+     */
+    public ConcurrentMappingsSet(MappingConflicts conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    private static <V> ConcurrentMap<String, V> child(ConcurrentMap<String, ConcurrentMap<String, V>> map, String key) {
+        return map.computeIfAbsent(key, (k) -> new ConcurrentHashMap<>());
+    }
+
+    private static <V> V get(ConcurrentMap<String, ConcurrentMap<String, V>> map, String key, String child) {
+        ConcurrentMap<String, V> children = map.get(key);
+        return children == null ? null : children.get(child);
+    }
+
+    /**
+     * Locks the stripes of the given names, returning the locks to release.
+     */
+    private Iterable<Lock> lock(Object... keys) {
+        Iterable<Lock> held = this.locks.bulkGet(Arrays.asList(keys));
+        for (Lock lock : held) {
+            lock.lock();
+        }
+        return held;
+    }
+
+    private Iterable<Lock> lockAll() {
+        Lock[] all = new Lock[this.locks.size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = this.locks.getAt(i);
+            all[i].lock();
+        }
+        return Arrays.asList(all);
+    }
+
+    private static void unlock(Iterable<Lock> held) {
+        for (Lock lock : held) {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isModified() {
+        return this.modified;
+    }
+
+    @Override
+    public void unmarkModified() {
+        this.modified = false;
+    }
+
+    @Override
+    public String mapPackage(String pkg) {
+        return this.packages.get(pkg);
+    }
+
+    @Override
+    public String inversePackage(String mapped) {
+        return this.inverse_packages.get(mapped);
+    }
+
+    @Override
+    public void addPackageMapping(String obfuscated_package, String mapped_package) {
+        Iterable<Lock> held = lock(obfuscated_package, mapped_package);
+        try {
+            String existing = this.packages.get(obfuscated_package);
+            if (existing != null) {
+                this.conflicts.record(MappingConflicts.Kind.PACKAGE, obfuscated_package, existing, mapped_package);
+                return;
+            }
+            putUnique(this.packages, this.inverse_packages, obfuscated_package, mapped_package);
+            this.modified = true;
+        } finally {
+            unlock(held);
+        }
+    }
+
+    /**
+     * Adds a new entry to a pair of maps forming a bimap. Fails if the value
+     * is already mapped from another key.
+     */
+    private static void putUnique(Map<String, String> map, Map<String, String> inverse, String key, String value) {
+        String existing = inverse.get(value);
+        if (existing != null && !existing.equals(key)) {
+            throw new IllegalArgumentException("value already present: " + value);
+        }
+        map.put(key, value);
+        inverse.put(value, key);
+    }
+
+    @Override
+    public Set<String> getMappedPackages() {
+        return Collections.unmodifiableSet(this.packages.keySet());
+    }
+
+    @Override
+    public Collection<String> getMappedPackageNames() {
+        return Collections.unmodifiableCollection(this.packages.values());
+    }
+
+    @Override
+    public int packagesCount() {
+        return this.packages.size();
+    }
+
+    @Override
+    public String mapType(String obfuscated_type) {
+        return this.classes.get(obfuscated_type);
+    }
+
+    @Override
+    public String inverseType(String mapped_type) {
+        return this.inverse_classes.get(mapped_type);
+    }
+
+    @Override
+    public void addTypeMapping(String obfuscated_type, String mapped_type) {
+        Iterable<Lock> held = lock(obfuscated_type, mapped_type);
+        try {
+            String existing = this.classes.get(obfuscated_type);
+            if (existing != null) {
+                if (!existing.equals(mapped_type)) {
+                    this.conflicts.record(MappingConflicts.Kind.TYPE, obfuscated_type, existing, mapped_type);
+                }
+                return;
+            }
+            putUnique(this.classes, this.inverse_classes, obfuscated_type, mapped_type);
+            this.modified = true;
+        } finally {
+            unlock(held);
+        }
+    }
+
+    @Override
+    public int typeCount() {
+        return this.classes.size();
+    }
+
+    @Override
+    public Set<String> getMappedTypes() {
+        return Collections.unmodifiableSet(this.classes.keySet());
+    }
+
+    @Override
+    public Collection<String> getMappedTypeNames() {
+        return Collections.unmodifiableCollection(this.classes.values());
+    }
+
+    @Override
+    public String mapField(String owner, String fld) {
+        return get(this.fields, owner, fld);
+    }
+
+    @Override
+    public String inverseField(String owner, String mapped) {
+        return get(this.inverse_fields, owner, mapped);
+    }
+
+    @Override
+    public void addFieldMapping(String owner, String old, String mapped) {
+        String mapped_owner = mapType(owner);
+        if (mapped_owner == null) {
+            if (get(this.fields, owner, old) == null) {
+                throw new IllegalStateException("Tried to map field before type");
+            }
+            mapped_owner = owner;
+        }
+        Iterable<Lock> held = lock(owner, mapped_owner);
+        try {
+            String existing = get(this.fields, owner, old);
+            if (existing != null) {
+                this.conflicts.record(MappingConflicts.Kind.FIELD, owner + "/" + old, existing, mapped);
+                return;
+            }
+            String existing_obf = get(this.inverse_fields, mapped_owner, mapped);
+            if (existing_obf != null) {
+                this.conflicts.record(MappingConflicts.Kind.FIELD_TARGET, mapped_owner + "/" + mapped, owner + "/" + existing_obf, owner + "/" + old);
+                return;
+            }
+            child(this.fields, owner).put(old, mapped);
+            child(this.inverse_fields, mapped_owner).put(mapped, old);
+            this.field_count.incrementAndGet();
+            this.modified = true;
+        } finally {
+            unlock(held);
+        }
+    }
+
+    @Override
+    public int fieldCount() {
+        return this.field_count.get();
+    }
+
+    @Override
+    public Set<String> getMappedFields() {
+        return new KeyView<>(this.fields, this.field_count);
+    }
+
+    @Override
+    public Collection<String> getMappedFieldNames() {
+        return new KeyView<>(this.inverse_fields, this.field_count);
+    }
+
+    @Override
+    public MethodMapping getMethodMapping(String owner, String obfuscated_method, String obfuscated_signature) {
+        ConcurrentMap<String, MethodMapping> overloads = get(this.methods, owner, obfuscated_method);
+        return overloads == null ? null : overloads.get(obfuscated_signature);
+    }
+
+    @Override
+    public String mapMethod(String owner, String method, String sig) {
+        MethodMapping mapping = getMethodMapping(owner, method, sig);
+        return mapping == null ? null : mapping.map_method;
+    }
+
+    @Override
+    public String inverseMethod(String owner, String method, String obf_desc) {
+        ConcurrentMap<String, MethodMapping> overloads = get(this.inverse_methods, owner, method);
+        if (overloads == null) {
+            return null;
+        }
+        MethodMapping mapping = overloads.get(obf_desc);
+        return mapping == null ? null : mapping.obf_method;
+    }
+
+    @Override
+    public void addMethodMapping(String obfuscated_owner, String obfuscated_method, String obfuscated_signature, String mapped_method) {
+        MethodMapping mapping = new MethodMapping(this, obfuscated_owner, obfuscated_method, obfuscated_signature, mapped_method);
+        mapping.cache_sig = false;
+        Iterable<Lock> held = lock(obfuscated_owner);
+        try {
+            ConcurrentMap<String, MethodMapping> overloads = child(this.methods, obfuscated_owner).computeIfAbsent(obfuscated_method, (k) -> {
+                this.method_keys.incrementAndGet();
+                return new ConcurrentHashMap<>();
+            });
+            if (overloads.putIfAbsent(obfuscated_signature, mapping) != null) {
+                return;
+            }
+            this.method_count.incrementAndGet();
+            if (mapped_method != null) {
+                child(child(this.inverse_methods, mapTypeSafe(obfuscated_owner)), mapped_method).putIfAbsent(obfuscated_signature, mapping);
+            }
+            this.modified = true;
+        } finally {
+            unlock(held);
+        }
+    }
+
+    @Override
+    public int methodCount() {
+        return this.method_count.get();
+    }
+
+    @Override
+    public Collection<MethodMapping> getMethods(String obfuscated_owner, String obfuscated_method) {
+        ConcurrentMap<String, MethodMapping> overloads = get(this.methods, obfuscated_owner, obfuscated_method);
+        if (overloads == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableCollection(overloads.values());
+    }
+
+    @Override
+    public Set<String> getMappedMethods() {
+        return new KeyView<>(this.methods, this.method_keys);
+    }
+
+    @Override
+    public Set<String> getMemberOwners() {
+        Set<String> owners = new HashSet<>();
+        for (Map.Entry<String, ConcurrentMap<String, String>> entry : this.fields.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                owners.add(entry.getKey());
+            }
+        }
+        for (Map.Entry<String, ConcurrentMap<String, ConcurrentMap<String, MethodMapping>>> entry : this.methods.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                owners.add(entry.getKey());
+            }
+        }
+        return Collections.unmodifiableSet(owners);
+    }
+
+    @Override
+    public Collection<String> getOwnerFields(String owner) {
+        ConcurrentMap<String, String> owner_fields = this.fields.get(owner);
+        if (owner_fields == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(owner_fields.keySet());
+    }
+
+    @Override
+    public Collection<MethodMapping> getOwnerMethods(String owner) {
+        ConcurrentMap<String, ConcurrentMap<String, MethodMapping>> owner_methods = this.methods.get(owner);
+        if (owner_methods == null) {
+            return Collections.emptyList();
+        }
+        List<MethodMapping> all = new ArrayList<>();
+        for (ConcurrentMap<String, MethodMapping> overloads : owner_methods.values()) {
+            all.addAll(overloads.values());
+        }
+        return Collections.unmodifiableList(all);
+    }
+
+    @Override
+    public MappingConflicts getConflicts() {
+        return this.conflicts;
+    }
+
+    @Override
+    public void merge(MappingsSet other) {
+        Iterable<Lock> held = lockAll();
+        try {
+            final int initial_size = packagesCount() + typeCount() + methodCount() + fieldCount();
+            for (String pkg : other.getMappedPackages()) {
+                replace(this.packages, this.inverse_packages, pkg, other.mapPackage(pkg));
+            }
+            for (String type : other.getMappedTypes()) {
+                replace(this.classes, this.inverse_classes, type, other.mapType(type));
+            }
+            for (String key : other.getMappedFields()) {
+                int split = key.lastIndexOf('/');
+                String owner = key.substring(0, split);
+                String fld = key.substring(split + 1);
+                String mapped_owner = other.mapTypeSafe(owner);
+                String mapped = other.mapField(owner, fld);
+                String previous = child(this.fields, owner).put(fld, mapped);
+                if (previous != null) {
+                    child(this.inverse_fields, mapTypeSafe(owner)).remove(previous, fld);
+                } else {
+                    this.field_count.incrementAndGet();
+                }
+                String previous_obf = child(this.inverse_fields, mapped_owner).put(mapped, fld);
+                if (previous_obf != null && !previous_obf.equals(fld)) {
+                    String previous_owner = inverseType(mapped_owner);
+                    ConcurrentMap<String, String> previous_fields = this.fields.get(previous_owner == null ? mapped_owner : previous_owner);
+                    if (previous_fields != null && previous_fields.remove(previous_obf, mapped)) {
+                        this.field_count.decrementAndGet();
+                    }
+                }
+            }
+            for (String key : other.getMappedMethods()) {
+                for (MethodMapping mth : other.getMethods(key)) {
+                    MethodMapping mapping = new MethodMapping(this, mth);
+                    mapping.cache_sig = false;
+                    mapping.map_sig = null;
+                    ConcurrentMap<String, MethodMapping> overloads = child(this.methods, mth.obf_cls).computeIfAbsent(mth.obf_method, (k) -> {
+                        this.method_keys.incrementAndGet();
+                        return new ConcurrentHashMap<>();
+                    });
+                    MethodMapping previous = overloads.put(mth.obfuscated_signature, mapping);
+                    if (previous == null) {
+                        this.method_count.incrementAndGet();
+                    } else if (previous.map_method != null) {
+                        ConcurrentMap<String, MethodMapping> inverse = get(this.inverse_methods, mapTypeSafe(previous.obf_cls), previous.map_method);
+                        if (inverse != null) {
+                            inverse.remove(previous.obfuscated_signature, previous);
+                        }
+                    }
+                    if (mapping.map_method != null) {
+                        child(child(this.inverse_methods, mapTypeSafe(mth.obf_cls)), mapping.map_method).putIfAbsent(mth.obfuscated_signature,
+                                mapping);
+                    }
+                }
+            }
+            int final_size = packagesCount() + typeCount() + methodCount() + fieldCount();
+            if (initial_size != final_size) {
+                this.modified = true;
+            }
+        } finally {
+            unlock(held);
+        }
+    }
+
+    /**
+     * Sets an entry of a pair of maps forming a bimap, removing any entries
+     * the new entry replaces.
+     */
+    private static void replace(Map<String, String> map, Map<String, String> inverse, String key, String value) {
+        String previous = map.put(key, value);
+        if (previous != null && !previous.equals(value)) {
+            inverse.remove(previous, key);
+        }
+        String previous_key = inverse.put(value, key);
+        if (previous_key != null && !previous_key.equals(key)) {
+            map.remove(previous_key, value);
+        }
+    }
+
+    @Override
+    public MappingsSet freeze() {
+        return new FrozenMappingsSet(this);
+    }
+
+    /**
+     * A read only view of the keys of a per owner map formatted as
+     * `owner_name/member_name`.
+     */
+    private static class KeyView<V> extends AbstractSet<String> {
+
+        private final ConcurrentMap<String, ? extends Map<String, V>> map;
+        private final AtomicInteger size;
+
+        KeyView(ConcurrentMap<String, ? extends Map<String, V>> map, AtomicInteger size) {
+            this.map = map;
+            this.size = size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof String)) {
+                return false;
+            }
+            String key = (String) o;
+            int split = key.lastIndexOf('/');
+            if (split == -1) {
+                return false;
+            }
+            Map<String, V> children = this.map.get(key.substring(0, split));
+            return children != null && children.containsKey(key.substring(split + 1));
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            Iterator<? extends Map.Entry<String, ? extends Map<String, V>>> owners = this.map.entrySet().iterator();
+            return new Iterator<String>() {
+
+                private String owner;
+                private Iterator<String> members = Collections.emptyIterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!this.members.hasNext() && owners.hasNext()) {
+                        Map.Entry<String, ? extends Map<String, V>> next = owners.next();
+                        this.owner = next.getKey();
+                        this.members = next.getValue().keySet().iterator();
+                    }
+                    return this.members.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return this.owner + "/" + this.members.next();
+                }
+
+            };
+        }
+
+        @Override
+        public int size() {
+            return this.size.get();
+        }
+
+    }
+
+}
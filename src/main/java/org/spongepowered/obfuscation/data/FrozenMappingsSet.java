@@ -0,0 +1,881 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable set of mappings stored in sorted tables and looked up by binary
+ * search. Created by {@link MappingsSet#freeze()}.
+ *
+ * <p>Members are grouped by owner, the members of an owner occupy the range
+ * given by the offset table of their kind. The inverse lookups use index
+ * tables sorted by the mapped names.</p>
+ *
+ * <p>The tables are either held in memory or are views of a memory mapped
+ * binary file, see {@link BinaryMappings}, in which case names are only
+ * decoded when they are first read.</p>
+ */
+public final class FrozenMappingsSet implements MappingsSet {
+
+    private final StringTable package_obf;
+    private final StringTable package_mapped;
+    private final IntBuffer package_inverse;
+
+    private final StringTable type_obf;
+    private final StringTable type_mapped;
+    private final IntBuffer type_inverse;
+
+    // the owners of all mapped members and their mapped names
+    private final StringTable owners;
+    private final StringTable owner_mapped;
+
+    private final IntBuffer field_offsets;
+    private final IntBuffer field_owner;
+    private final StringTable field_obf;
+    private final StringTable field_mapped;
+    private final IntBuffer field_inverse;
+
+    private final IntBuffer method_offsets;
+    private final IntBuffer method_owner;
+    private final StringTable method_obf;
+    private final StringTable method_desc;
+    private final StringTable method_mapped;
+    private final IntBuffer method_inverse;
+    private final int method_keys;
+    // the mapped signatures of the methods, filled as they are first needed
+    // and shared by every method mapping created for the same method
+    private final String[] method_sig;
+
+    private final MappingConflicts conflicts;
+
+    FrozenMappingsSet(MappingsSet source) {
+        Map<String, String> strings = new HashMap<>();
+        this.conflicts = source.getConflicts();
+
+        String[] package_obf = sorted(source.getMappedPackages(), strings);
+        String[] package_mapped = new String[package_obf.length];
+        for (int i = 0; i < package_obf.length; i++) {
+            package_mapped[i] = intern(source.mapPackage(package_obf[i]), strings);
+        }
+        this.package_obf = new ArrayStringTable(package_obf);
+        this.package_mapped = new ArrayStringTable(package_mapped);
+        this.package_inverse = inverse(package_obf.length, (a, b) -> package_mapped[a].compareTo(package_mapped[b]));
+
+        String[] type_obf = sorted(source.getMappedTypes(), strings);
+        String[] type_mapped = new String[type_obf.length];
+        for (int i = 0; i < type_obf.length; i++) {
+            type_mapped[i] = intern(source.mapType(type_obf[i]), strings);
+        }
+        this.type_obf = new ArrayStringTable(type_obf);
+        this.type_mapped = new ArrayStringTable(type_mapped);
+        this.type_inverse = inverse(type_obf.length, (a, b) -> type_mapped[a].compareTo(type_mapped[b]));
+
+        List<String[]> fields = new ArrayList<>(source.fieldCount());
+        for (String key : source.getMappedFields()) {
+            int split = key.lastIndexOf('/');
+            String owner = key.substring(0, split);
+            String name = key.substring(split + 1);
+            fields.add(new String[] {intern(owner, strings), intern(name, strings), intern(source.mapField(owner, name), strings)});
+        }
+        List<MethodMapping> methods = new ArrayList<>(source.methodCount());
+        for (String key : source.getMappedMethods()) {
+            methods.addAll(source.getMethods(key));
+        }
+
+        Set<String> all_owners = new HashSet<>();
+        for (String[] fld : fields) {
+            all_owners.add(fld[0]);
+        }
+        for (MethodMapping mth : methods) {
+            all_owners.add(intern(mth.getObfOwner(), strings));
+        }
+        String[] owners = sorted(all_owners, strings);
+        String[] owner_mapped = new String[owners.length];
+        for (int i = 0; i < owners.length; i++) {
+            owner_mapped[i] = intern(source.mapTypeSafe(owners[i]), strings);
+        }
+        this.owners = new ArrayStringTable(owners);
+        this.owner_mapped = new ArrayStringTable(owner_mapped);
+
+        fields.sort(Comparator.<String[], String> comparing((f) -> f[0]).thenComparing((f) -> f[1]));
+        int[] field_offsets = new int[owners.length + 1];
+        int[] field_owner = new int[fields.size()];
+        String[] field_obf = new String[fields.size()];
+        String[] field_mapped = new String[fields.size()];
+        int owner = 0;
+        for (int i = 0; i < fields.size(); i++) {
+            String[] fld = fields.get(i);
+            while (!owners[owner].equals(fld[0])) {
+                field_offsets[++owner] = i;
+            }
+            field_owner[i] = owner;
+            field_obf[i] = fld[1];
+            field_mapped[i] = fld[2];
+        }
+        Arrays.fill(field_offsets, owner + 1, field_offsets.length, fields.size());
+        this.field_offsets = IntBuffer.wrap(field_offsets);
+        this.field_owner = IntBuffer.wrap(field_owner);
+        this.field_obf = new ArrayStringTable(field_obf);
+        this.field_mapped = new ArrayStringTable(field_mapped);
+        this.field_inverse = inverse(field_obf.length, (a, b) -> {
+            int cmp = owner_mapped[field_owner[a]].compareTo(owner_mapped[field_owner[b]]);
+            return cmp != 0 ? cmp : field_mapped[a].compareTo(field_mapped[b]);
+        });
+
+        methods.sort(Comparator.comparing(MethodMapping::getObfOwner).thenComparing(MethodMapping::getObf)
+                .thenComparing(MethodMapping::getObfSignature));
+        int[] method_offsets = new int[owners.length + 1];
+        int[] method_owner = new int[methods.size()];
+        String[] method_obf = new String[methods.size()];
+        String[] method_desc = new String[methods.size()];
+        String[] method_mapped = new String[methods.size()];
+        int keys = 0;
+        int mapped_methods = 0;
+        owner = 0;
+        for (int i = 0; i < methods.size(); i++) {
+            MethodMapping mth = methods.get(i);
+            while (!owners[owner].equals(mth.getObfOwner())) {
+                method_offsets[++owner] = i;
+            }
+            method_owner[i] = owner;
+            method_obf[i] = intern(mth.getObf(), strings);
+            method_desc[i] = intern(mth.getObfSignature(), strings);
+            if (mth.isMapped()) {
+                method_mapped[i] = intern(mth.getMapped(), strings);
+                mapped_methods++;
+            }
+            if (i == 0 || method_owner[i - 1] != owner || !method_obf[i - 1].equals(method_obf[i])) {
+                keys++;
+            }
+        }
+        Arrays.fill(method_offsets, owner + 1, method_offsets.length, methods.size());
+        this.method_offsets = IntBuffer.wrap(method_offsets);
+        this.method_owner = IntBuffer.wrap(method_owner);
+        this.method_obf = new ArrayStringTable(method_obf);
+        this.method_desc = new ArrayStringTable(method_desc);
+        this.method_mapped = new ArrayStringTable(method_mapped);
+        this.method_keys = keys;
+        this.method_sig = new String[method_obf.length];
+        Integer[] order = new Integer[mapped_methods];
+        for (int i = 0, j = 0; i < method_mapped.length; i++) {
+            if (method_mapped[i] != null) {
+                order[j++] = i;
+            }
+        }
+        Arrays.sort(order, (a, b) -> compareInverseMethod(a, owner_mapped[method_owner[b]], method_mapped[b], method_desc[b]));
+        int[] method_inverse = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            method_inverse[i] = order[i];
+        }
+        this.method_inverse = IntBuffer.wrap(method_inverse);
+    }
+
+    /**
+     * Reads a set from its binary form, see {@link BinaryMappings}. The tables
+     * of the set are views of the given input so this only reads the section
+     * lengths.
+     */
+    FrozenMappingsSet(BinaryMappings.Input in, MappingConflicts conflicts) throws IOException {
+        this.conflicts = conflicts;
+
+        this.package_obf = in.readStrings(BinaryMappings.PACKAGES);
+        this.package_mapped = in.readStrings(BinaryMappings.PACKAGES);
+        this.package_inverse = in.readInts(BinaryMappings.PACKAGES);
+        check(this.package_mapped.size() == this.package_obf.size() && this.package_inverse.limit() == this.package_obf.size());
+
+        this.type_obf = in.readStrings(BinaryMappings.TYPES);
+        this.type_mapped = in.readStrings(BinaryMappings.TYPES);
+        this.type_inverse = in.readInts(BinaryMappings.TYPES);
+        check(this.type_mapped.size() == this.type_obf.size() && this.type_inverse.limit() == this.type_obf.size());
+
+        this.owners = in.readStrings(BinaryMappings.OWNERS);
+        this.owner_mapped = in.readStrings(BinaryMappings.OWNERS);
+        check(this.owner_mapped.size() == this.owners.size());
+
+        this.field_offsets = in.readInts(BinaryMappings.FIELDS);
+        this.field_owner = in.readInts(BinaryMappings.FIELDS);
+        this.field_obf = in.readStrings(BinaryMappings.FIELDS);
+        this.field_mapped = in.readStrings(BinaryMappings.FIELDS);
+        this.field_inverse = in.readInts(BinaryMappings.FIELDS);
+        check(this.field_offsets.limit() == this.owners.size() + 1 && this.field_owner.limit() == this.field_obf.size()
+                && this.field_mapped.size() == this.field_obf.size() && this.field_inverse.limit() == this.field_obf.size());
+
+        this.method_offsets = in.readInts(BinaryMappings.METHODS);
+        this.method_owner = in.readInts(BinaryMappings.METHODS);
+        this.method_obf = in.readStrings(BinaryMappings.METHODS);
+        this.method_desc = in.readStrings(BinaryMappings.METHODS);
+        this.method_mapped = in.readStrings(BinaryMappings.METHODS);
+        this.method_inverse = in.readInts(BinaryMappings.METHODS);
+        this.method_keys = in.readInt(BinaryMappings.METHODS);
+        check(this.method_offsets.limit() == this.owners.size() + 1 && this.method_owner.limit() == this.method_obf.size()
+                && this.method_desc.size() == this.method_obf.size() && this.method_mapped.size() == this.method_obf.size()
+                && this.method_inverse.limit() <= this.method_obf.size());
+        this.method_sig = new String[this.method_obf.size()];
+    }
+
+    private static void check(boolean valid) throws IOException {
+        if (!valid) {
+            throw new IOException("Mismatched section lengths");
+        }
+    }
+
+    /**
+     * Writes this set in its binary form, see {@link BinaryMappings}.
+     */
+    void write(BinaryMappings.Output out) throws IOException {
+        out.writeStrings(BinaryMappings.PACKAGES, this.package_obf);
+        out.writeStrings(BinaryMappings.PACKAGES, this.package_mapped);
+        out.writeInts(BinaryMappings.PACKAGES, this.package_inverse);
+
+        out.writeStrings(BinaryMappings.TYPES, this.type_obf);
+        out.writeStrings(BinaryMappings.TYPES, this.type_mapped);
+        out.writeInts(BinaryMappings.TYPES, this.type_inverse);
+
+        out.writeStrings(BinaryMappings.OWNERS, this.owners);
+        out.writeStrings(BinaryMappings.OWNERS, this.owner_mapped);
+
+        out.writeInts(BinaryMappings.FIELDS, this.field_offsets);
+        out.writeInts(BinaryMappings.FIELDS, this.field_owner);
+        out.writeStrings(BinaryMappings.FIELDS, this.field_obf);
+        out.writeStrings(BinaryMappings.FIELDS, this.field_mapped);
+        out.writeInts(BinaryMappings.FIELDS, this.field_inverse);
+
+        out.writeInts(BinaryMappings.METHODS, this.method_offsets);
+        out.writeInts(BinaryMappings.METHODS, this.method_owner);
+        out.writeStrings(BinaryMappings.METHODS, this.method_obf);
+        out.writeStrings(BinaryMappings.METHODS, this.method_desc);
+        out.writeStrings(BinaryMappings.METHODS, this.method_mapped);
+        out.writeInts(BinaryMappings.METHODS, this.method_inverse);
+        out.writeInt(BinaryMappings.METHODS, this.method_keys);
+    }
+
+    private static String intern(String str, Map<String, String> strings) {
+        String existing = strings.putIfAbsent(str, str);
+        return existing == null ? str : existing;
+    }
+
+    private static String[] sorted(Collection<String> values, Map<String, String> strings) {
+        String[] array = new String[values.size()];
+        int i = 0;
+        for (String value : values) {
+            array[i++] = intern(value, strings);
+        }
+        Arrays.sort(array);
+        return array;
+    }
+
+    private static IntBuffer inverse(int size, Comparator<Integer> order) {
+        Integer[] indices = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, order);
+        int[] inverse = new int[size];
+        for (int i = 0; i < size; i++) {
+            inverse[i] = indices[i];
+        }
+        return IntBuffer.wrap(inverse);
+    }
+
+    /**
+     * Searches the given range of a sorted table for the given name, with the
+     * same result as {@link Arrays#binarySearch(Object[], int, int, Object)}.
+     */
+    private static int search(StringTable table, int from, int to, String name) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = table.get(mid).compareTo(name);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int search(StringTable table, String name) {
+        return search(table, 0, table.size(), name);
+    }
+
+    private int compareInverseMethod(int index, String owner, String mapped, String desc) {
+        int cmp = this.owner_mapped.get(this.method_owner.get(index)).compareTo(owner);
+        if (cmp != 0) {
+            return cmp;
+        }
+        cmp = this.method_mapped.get(index).compareTo(mapped);
+        if (cmp != 0) {
+            return cmp;
+        }
+        return this.method_desc.get(index).compareTo(desc);
+    }
+
+    private static UnsupportedOperationException frozen() {
+        return new UnsupportedOperationException("Mappings set is frozen");
+    }
+
+    @Override
+    public boolean isModified() {
+        return false;
+    }
+
+    @Override
+    public void unmarkModified() {
+    }
+
+    @Override
+    public String mapPackage(String pkg) {
+        int index = search(this.package_obf, pkg);
+        return index < 0 ? null : this.package_mapped.get(index);
+    }
+
+    @Override
+    public String inversePackage(String mapped) {
+        int index = searchInverse(this.package_inverse, this.package_mapped, mapped);
+        return index < 0 ? null : this.package_obf.get(index);
+    }
+
+    @Override
+    public void addPackageMapping(String obfuscated_package, String mapped_package) {
+        throw frozen();
+    }
+
+    @Override
+    public Set<String> getMappedPackages() {
+        return new SortedTableSet(this.package_obf);
+    }
+
+    @Override
+    public Collection<String> getMappedPackageNames() {
+        return new TableList(this.package_mapped);
+    }
+
+    @Override
+    public int packagesCount() {
+        return this.package_obf.size();
+    }
+
+    @Override
+    public String mapType(String obfuscated_type) {
+        int index = search(this.type_obf, obfuscated_type);
+        return index < 0 ? null : this.type_mapped.get(index);
+    }
+
+    @Override
+    public String inverseType(String mapped_type) {
+        int index = searchInverse(this.type_inverse, this.type_mapped, mapped_type);
+        return index < 0 ? null : this.type_obf.get(index);
+    }
+
+    /**
+     * Searches an inverse index for the given mapped name, returning the index
+     * of the entry or -1 if not found.
+     */
+    private static int searchInverse(IntBuffer inverse, StringTable mapped, String name) {
+        int low = 0;
+        int high = inverse.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int index = inverse.get(mid);
+            int cmp = mapped.get(index).compareTo(name);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void addTypeMapping(String obfuscated_type, String mapped_type) {
+        throw frozen();
+    }
+
+    @Override
+    public int typeCount() {
+        return this.type_obf.size();
+    }
+
+    @Override
+    public Set<String> getMappedTypes() {
+        return new SortedTableSet(this.type_obf);
+    }
+
+    @Override
+    public Collection<String> getMappedTypeNames() {
+        return new TableList(this.type_mapped);
+    }
+
+    private int findField(String owner, String fld) {
+        int owner_index = search(this.owners, owner);
+        if (owner_index < 0) {
+            return -1;
+        }
+        int index = search(this.field_obf, this.field_offsets.get(owner_index), this.field_offsets.get(owner_index + 1), fld);
+        return index < 0 ? -1 : index;
+    }
+
+    @Override
+    public String mapField(String owner, String fld) {
+        int index = findField(owner, fld);
+        return index == -1 ? null : this.field_mapped.get(index);
+    }
+
+    @Override
+    public String inverseField(String owner, String mapped) {
+        int low = 0;
+        int high = this.field_inverse.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int index = this.field_inverse.get(mid);
+            int cmp = this.owner_mapped.get(this.field_owner.get(index)).compareTo(owner);
+            if (cmp == 0) {
+                cmp = this.field_mapped.get(index).compareTo(mapped);
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return this.field_obf.get(index);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void addFieldMapping(String owner, String old, String mapped) {
+        throw frozen();
+    }
+
+    @Override
+    public int fieldCount() {
+        return this.field_obf.size();
+    }
+
+    @Override
+    public Set<String> getMappedFields() {
+        return new MemberKeySet(this.field_owner, this.field_obf, this.field_obf.size()) {
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof String)) {
+                    return false;
+                }
+                String key = (String) o;
+                int split = key.lastIndexOf('/');
+                return split != -1 && findField(key.substring(0, split), key.substring(split + 1)) != -1;
+            }
+
+        };
+    }
+
+    @Override
+    public Collection<String> getMappedFieldNames() {
+        return new AbstractList<String>() {
+
+            @Override
+            public String get(int index) {
+                return FrozenMappingsSet.this.owner_mapped.get(FrozenMappingsSet.this.field_owner.get(index)) + "/"
+                        + FrozenMappingsSet.this.field_mapped.get(index);
+            }
+
+            @Override
+            public int size() {
+                return FrozenMappingsSet.this.field_mapped.size();
+            }
+
+        };
+    }
+
+    /**
+     * Finds the first method of the given owner with the given name and, if
+     * the descriptor is not null, the given descriptor. Returns -1 if not
+     * found.
+     */
+    private int findMethod(String owner, String method, String desc) {
+        int owner_index = search(this.owners, owner);
+        if (owner_index < 0) {
+            return -1;
+        }
+        int low = this.method_offsets.get(owner_index);
+        int high = this.method_offsets.get(owner_index + 1) - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = this.method_obf.get(mid).compareTo(method);
+            if (cmp == 0 && desc != null) {
+                cmp = this.method_desc.get(mid).compareTo(desc);
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else if (desc != null) {
+                return mid;
+            } else {
+                found = mid;
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private MethodMapping createMapping(int index) {
+        return new FrozenMethodMapping(index);
+    }
+
+    /**
+     * Gets the mapped signature of the method at the given index. The types
+     * of a frozen set never change so the signature is mapped at most once,
+     * concurrent callers may both map it but always store the same value.
+     */
+    private String getMappedSignature(int index) {
+        String sig = this.method_sig[index];
+        if (sig == null) {
+            sig = MethodMapping.mapSig(this.method_desc.get(index), this);
+            this.method_sig[index] = sig;
+        }
+        return sig;
+    }
+
+    @Override
+    public MethodMapping getMethodMapping(String owner, String obfuscated_method, String obfuscated_signature) {
+        int index = findMethod(owner, obfuscated_method, obfuscated_signature);
+        return index == -1 ? null : createMapping(index);
+    }
+
+    @Override
+    public String mapMethod(String owner, String method, String sig) {
+        int index = findMethod(owner, method, sig);
+        return index == -1 ? null : this.method_mapped.get(index);
+    }
+
+    @Override
+    public String inverseMethod(String owner, String method, String obf_desc) {
+        int low = 0;
+        int high = this.method_inverse.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int index = this.method_inverse.get(mid);
+            int cmp = compareInverseMethod(index, owner, method, obf_desc);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return this.method_obf.get(index);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void addMethodMapping(String obfuscated_owner, String obfuscated_method, String obfuscated_signature, String mapped_method) {
+        throw frozen();
+    }
+
+    @Override
+    public int methodCount() {
+        return this.method_obf.size();
+    }
+
+    @Override
+    public Collection<MethodMapping> getMethods(String obfuscated_owner, String obfuscated_method) {
+        int start = findMethod(obfuscated_owner, obfuscated_method, null);
+        if (start == -1) {
+            return Collections.emptyList();
+        }
+        int end = start + 1;
+        while (end < this.method_obf.size() && this.method_owner.get(end) == this.method_owner.get(start)
+                && this.method_obf.get(end).equals(obfuscated_method)) {
+            end++;
+        }
+        List<MethodMapping> overloads = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            overloads.add(createMapping(i));
+        }
+        return Collections.unmodifiableList(overloads);
+    }
+
+    @Override
+    public Set<String> getMappedMethods() {
+        return new MemberKeySet(this.method_owner, this.method_obf, this.method_keys) {
+
+            @Override
+            protected boolean isKey(int index) {
+                return index == 0 || this.member_owner.get(index - 1) != this.member_owner.get(index)
+                        || !this.member_names.get(index - 1).equals(this.member_names.get(index));
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof String)) {
+                    return false;
+                }
+                String key = (String) o;
+                int split = key.lastIndexOf('/');
+                return split != -1 && findMethod(key.substring(0, split), key.substring(split + 1), null) != -1;
+            }
+
+        };
+    }
+
+    @Override
+    public Set<String> getMemberOwners() {
+        return new SortedTableSet(this.owners);
+    }
+
+    @Override
+    public Collection<String> getOwnerFields(String owner) {
+        int owner_index = search(this.owners, owner);
+        if (owner_index < 0) {
+            return Collections.emptyList();
+        }
+        return new TableList(this.field_obf).subList(this.field_offsets.get(owner_index), this.field_offsets.get(owner_index + 1));
+    }
+
+    @Override
+    public Collection<MethodMapping> getOwnerMethods(String owner) {
+        int owner_index = search(this.owners, owner);
+        if (owner_index < 0) {
+            return Collections.emptyList();
+        }
+        int start = this.method_offsets.get(owner_index);
+        int end = this.method_offsets.get(owner_index + 1);
+        List<MethodMapping> methods = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            methods.add(createMapping(i));
+        }
+        return Collections.unmodifiableList(methods);
+    }
+
+    @Override
+    public MappingConflicts getConflicts() {
+        return this.conflicts;
+    }
+
+    @Override
+    public void merge(MappingsSet other) {
+        throw frozen();
+    }
+
+    @Override
+    public MappingsSet freeze() {
+        return this;
+    }
+
+    /**
+     * A table of names, null for absent names.
+     */
+    interface StringTable {
+
+        String get(int index);
+
+        int size();
+
+    }
+
+    /**
+     * A table of names held in memory.
+     */
+    private static class ArrayStringTable implements StringTable {
+
+        private final String[] values;
+
+        ArrayStringTable(String[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public String get(int index) {
+            return this.values[index];
+        }
+
+        @Override
+        public int size() {
+            return this.values.length;
+        }
+
+    }
+
+    /**
+     * A read only list view of a table.
+     */
+    private static class TableList extends AbstractList<String> {
+
+        private final StringTable table;
+
+        TableList(StringTable table) {
+            this.table = table;
+        }
+
+        @Override
+        public String get(int index) {
+            return this.table.get(index);
+        }
+
+        @Override
+        public int size() {
+            return this.table.size();
+        }
+
+    }
+
+    /**
+     * A read only set view of a sorted table.
+     */
+    private static class SortedTableSet extends AbstractSet<String> {
+
+        private final StringTable values;
+
+        SortedTableSet(StringTable values) {
+            this.values = values;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && search(this.values, (String) o) >= 0;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new TableList(this.values).iterator();
+        }
+
+        @Override
+        public int size() {
+            return this.values.size();
+        }
+
+    }
+
+    /**
+     * A read only view of the member keys, formatted as
+     * `owner_name/member_name`.
+     */
+    private abstract class MemberKeySet extends AbstractSet<String> {
+
+        protected final IntBuffer member_owner;
+        protected final StringTable member_names;
+        private final int size;
+
+        MemberKeySet(IntBuffer member_owner, StringTable member_names, int size) {
+            this.member_owner = member_owner;
+            this.member_names = member_names;
+            this.size = size;
+        }
+
+        /**
+         * Gets if the member at the given index starts a new key.
+         */
+        protected boolean isKey(int index) {
+            return true;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    while (this.next < MemberKeySet.this.member_names.size() && !isKey(this.next)) {
+                        this.next++;
+                    }
+                    return this.next < MemberKeySet.this.member_names.size();
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int index = this.next++;
+                    return FrozenMappingsSet.this.owners.get(MemberKeySet.this.member_owner.get(index)) + "/"
+                            + MemberKeySet.this.member_names.get(index);
+                }
+
+            };
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+    }
+
+    /**
+     * A method mapping whose mapped signature is kept in the tables of the set
+     * rather than in the mapping, so that it survives the mapping itself.
+     */
+    private class FrozenMethodMapping extends MethodMapping {
+
+        private final int index;
+
+        FrozenMethodMapping(int index) {
+            super(FrozenMappingsSet.this, FrozenMappingsSet.this.owners.get(FrozenMappingsSet.this.method_owner.get(index)),
+                    FrozenMappingsSet.this.method_obf.get(index), FrozenMappingsSet.this.method_desc.get(index),
+                    FrozenMappingsSet.this.method_mapped.get(index));
+            this.index = index;
+        }
+
+        @Override
+        public String getMappedSignature() {
+            return FrozenMappingsSet.this.getMappedSignature(this.index);
+        }
+
+        @Override
+        public void updateSig() {
+        }
+
+    }
+
+}
@@ -0,0 +1,595 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.spongepowered.obfuscation.config.ObfConfigManager;
+import org.spongepowered.obfuscation.util.PrefixMatcher;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A read only set of mappings backed by a memory mapped srg file which parses
+ * entries only as they are looked up.
+ *
+ * <p>On open the offsets of the lines of each kind are collected and sorted by
+ * their obfuscated key, forming an index which is optionally stored in a
+ * sidecar file next to the srg file and reused while the srg file is
+ * unchanged. Forward lookups binary search the index and parse the matching
+ * line, their results are kept in a bounded cache. Inverse lookups and the
+ * views over all mappings load the whole file into a frozen set the first
+ * time they are used.</p>
+ *
+ * <p>Entries are not checked for conflicts, the counts are those of the
+ * lines in the file.</p>
+ */
+public final class LazyMappingsSet implements MappingsSet {
+
+    /**
+     * The extension appended to the name of the srg file to form the name of
+     * its index sidecar.
+     */
+    public static final String INDEX_EXTENSION = ".idx";
+
+    private static final int INDEX_MAGIC = 0x4F4D4C49;
+    private static final int INDEX_VERSION = 1;
+
+    private static final int PACKAGE = 0;
+    private static final int CLASS = 1;
+    private static final int FIELD = 2;
+    private static final int METHOD = 3;
+    private static final byte[][] PREFIXES = {
+            "PK: ".getBytes(StandardCharsets.UTF_8),
+            "CL: ".getBytes(StandardCharsets.UTF_8),
+            "FD: ".getBytes(StandardCharsets.UTF_8),
+            "MD: ".getBytes(StandardCharsets.UTF_8)};
+
+    private final Path file;
+    private final ByteBuffer data;
+    private final int[][] index;
+    private final PrefixMatcher excluded = ObfConfigManager.getExcludedPackages();
+    private final Cache<String, Optional<String>> cache;
+    private final MappingConflicts conflicts = new MappingConflicts();
+    private volatile MappingsSet loaded;
+
+    /**
+     * Opens the given srg file, keeping at most the given number of looked up
+     * entries cached. If sidecar is set the index is read from and written to
+     * a sidecar file.
+     */
+    public LazyMappingsSet(Path file, int cache_size, boolean sidecar) throws IOException {
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Mappings file too large: " + file.toString());
+            }
+            this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        this.cache = CacheBuilder.newBuilder().maximumSize(cache_size).build();
+        Path index_file = file.resolveSibling(file.getFileName().toString() + INDEX_EXTENSION);
+        int[][] index = sidecar ? readIndex(index_file) : null;
+        if (index == null) {
+            index = buildIndex();
+            if (sidecar) {
+                try {
+                    writeIndex(index_file, index);
+                } catch (IOException e) {
+                    System.err.println("Failed to write mappings index " + index_file.toString() + ": " + e.getMessage());
+                }
+            }
+        }
+        this.index = index;
+    }
+
+    private int[][] buildIndex() {
+        int[][] index = new int[PREFIXES.length][];
+        int[] counts = new int[PREFIXES.length];
+        for (int i = 0; i < index.length; i++) {
+            index[i] = new int[1024];
+        }
+        int limit = this.data.limit();
+        int pos = 0;
+        while (pos < limit) {
+            int kind = kind(pos);
+            if (kind != -1) {
+                if (counts[kind] == index[kind].length) {
+                    index[kind] = Arrays.copyOf(index[kind], counts[kind] * 2);
+                }
+                index[kind][counts[kind]++] = pos;
+            }
+            while (pos < limit && this.data.get(pos) != '\n') {
+                pos++;
+            }
+            pos++;
+        }
+        // only the keys of the lines are compared
+        int[] tokens = new int[2];
+        int[] other = new int[2];
+        for (int i = 0; i < index.length; i++) {
+            int[] offsets = Arrays.copyOf(index[i], counts[i]);
+            // files written by this tool are already in key order
+            if (!isSorted(offsets, tokens, other)) {
+                offsets = sort(offsets, tokens, other);
+            }
+            index[i] = offsets;
+        }
+        return index;
+    }
+
+    private int kind(int pos) {
+        if (pos + 4 > this.data.limit()) {
+            return -1;
+        }
+        outer: for (int i = 0; i < PREFIXES.length; i++) {
+            for (int j = 0; j < 4; j++) {
+                if (this.data.get(pos + j) != PREFIXES[i][j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private int compareLines(int a, int b, int[] tokens, int[] other) {
+        tokenize(a, tokens);
+        tokenize(b, other);
+        int length = Math.min(tokens[1] - tokens[0], other[1] - other[0]);
+        for (int i = 0; i < length; i++) {
+            int cmp = (this.data.get(tokens[0] + i) & 0xFF) - (this.data.get(other[0] + i) & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return (tokens[1] - tokens[0]) - (other[1] - other[0]);
+    }
+
+    private boolean isSorted(int[] offsets, int[] tokens, int[] other) {
+        for (int i = 1; i < offsets.length; i++) {
+            if (compareLines(offsets[i - 1], offsets[i], tokens, other) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Merge sorts the given line offsets by key, the sort is stable so the
+     * overloads of a method keep their order in the file.
+     */
+    private int[] sort(int[] offsets, int[] tokens, int[] other) {
+        int[] src = offsets;
+        int[] dst = new int[offsets.length];
+        for (int width = 1; width < src.length; width *= 2) {
+            for (int start = 0; start < src.length; start += width * 2) {
+                int mid = Math.min(start + width, src.length);
+                int end = Math.min(start + width * 2, src.length);
+                int a = start;
+                int b = mid;
+                for (int i = start; i < end; i++) {
+                    if (a < mid && (b >= end || compareLines(src[a], src[b], tokens, other) <= 0)) {
+                        dst[i] = src[a++];
+                    } else {
+                        dst[i] = src[b++];
+                    }
+                }
+            }
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+        return src;
+    }
+
+    private int[][] readIndex(Path index_file) throws IOException {
+        if (!Files.exists(index_file)) {
+            return null;
+        }
+        ByteBuffer index_data;
+        try (FileChannel channel = FileChannel.open(index_file, StandardOpenOption.READ)) {
+            index_data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (index_data.getInt() != INDEX_MAGIC || index_data.getInt() != INDEX_VERSION
+                    || index_data.getLong() != this.data.limit()
+                    || index_data.getLong() != Files.getLastModifiedTime(this.file).toMillis()) {
+                return null;
+            }
+            int[][] index = new int[PREFIXES.length][];
+            for (int i = 0; i < index.length; i++) {
+                index[i] = new int[index_data.getInt()];
+                IntBuffer ints = index_data.asIntBuffer();
+                ints.get(index[i]);
+                index_data.position(index_data.position() + index[i].length * 4);
+                for (int offset : index[i]) {
+                    if (offset < 0 || offset >= this.data.limit()) {
+                        return null;
+                    }
+                }
+            }
+            return index;
+        } catch (RuntimeException e) {
+            // a truncated or otherwise damaged index is rebuilt
+            return null;
+        }
+    }
+
+    private void writeIndex(Path index_file, int[][] index) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(index_file)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(this.data.limit());
+            out.writeLong(Files.getLastModifiedTime(this.file).toMillis());
+            for (int[] offsets : index) {
+                out.writeInt(offsets.length);
+                for (int offset : offsets) {
+                    out.writeInt(offset);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the start and end of the tokens of the line at the given offset,
+     * returning the number of tokens found.
+     */
+    private int tokenize(int pos, int[] tokens) {
+        int limit = this.data.limit();
+        int count = 0;
+        pos += 4;
+        while (pos < limit && count * 2 < tokens.length) {
+            byte b = this.data.get(pos);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            if (b == ' ' || b == '\t') {
+                pos++;
+                continue;
+            }
+            int start = pos;
+            while (pos < limit && (b = this.data.get(pos)) != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                pos++;
+            }
+            tokens[count * 2] = start;
+            tokens[count * 2 + 1] = pos;
+            count++;
+        }
+        return count;
+    }
+
+    private int compare(byte[] key, int start, int end) {
+        int length = Math.min(key.length, end - start);
+        for (int i = 0; i < length; i++) {
+            int cmp = (key[i] & 0xFF) - (this.data.get(start + i) & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return key.length - (end - start);
+    }
+
+    /**
+     * Finds the first entry of the given kind whose key is not less than the
+     * given key.
+     */
+    private int lowerBound(int kind, byte[] key, int[] tokens) {
+        int[] offsets = this.index[kind];
+        int low = 0;
+        int high = offsets.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            tokenize(offsets[mid], tokens);
+            if (compare(key, tokens[0], tokens[1]) > 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = this.data.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int lastSlash(int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (this.data.get(i) == '/') {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Malformed mappings line: " + decode(start, end));
+    }
+
+    /**
+     * Looks up the mapped name of the given key, consulting the cache first.
+     * For methods the descriptor must also match.
+     */
+    private String find(int kind, String key, String desc) {
+        String cache_key = kind + key + (desc == null ? "" : " " + desc);
+        Optional<String> mapped = this.cache.getIfPresent(cache_key);
+        if (mapped == null) {
+            mapped = Optional.ofNullable(search(kind, key, desc));
+            this.cache.put(cache_key, mapped);
+        }
+        return mapped.orElse(null);
+    }
+
+    private String search(int kind, String key, String desc) {
+        byte[] key_bytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] desc_bytes = desc == null ? null : desc.getBytes(StandardCharsets.UTF_8);
+        int[] offsets = this.index[kind];
+        int[] tokens = new int[10];
+        for (int i = lowerBound(kind, key_bytes, tokens); i < offsets.length; i++) {
+            int count = tokenize(offsets[i], tokens);
+            if (compare(key_bytes, tokens[0], tokens[1]) != 0) {
+                break;
+            }
+            if (kind == METHOD && compare(desc_bytes, tokens[2], tokens[3]) != 0) {
+                continue;
+            }
+            int mapped = kind == METHOD ? 4 : 2;
+            if (count * 2 < mapped + 2) {
+                throw new IllegalStateException("Malformed mappings line at offset " + offsets[i]);
+            }
+            if (kind != PACKAGE && this.excluded.matches(this.data, tokens[mapped], tokens[mapped + 1])) {
+                return null;
+            }
+            int start = kind == CLASS || kind == PACKAGE ? tokens[mapped] : lastSlash(tokens[mapped], tokens[mapped + 1]) + 1;
+            return decode(start, tokens[mapped + 1]);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the fully loaded set which answers the queries which cannot be
+     * answered from the index.
+     */
+    private MappingsSet loaded() {
+        MappingsSet set = this.loaded;
+        if (set == null) {
+            synchronized (this) {
+                set = this.loaded;
+                if (set == null) {
+                    System.out.println("Fully loading lazy mappings from " + this.file.toString());
+                    try {
+                        set = new SrgFormat().read(this.file, this.conflicts).freeze();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    this.loaded = set;
+                }
+            }
+        }
+        return set;
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Lazy mappings set is read only");
+    }
+
+    @Override
+    public boolean isModified() {
+        return false;
+    }
+
+    @Override
+    public void unmarkModified() {
+    }
+
+    @Override
+    public String mapPackage(String pkg) {
+        return find(PACKAGE, pkg, null);
+    }
+
+    @Override
+    public String inversePackage(String mapped) {
+        return loaded().inversePackage(mapped);
+    }
+
+    @Override
+    public void addPackageMapping(String obfuscated_package, String mapped_package) {
+        throw readOnly();
+    }
+
+    @Override
+    public Set<String> getMappedPackages() {
+        return loaded().getMappedPackages();
+    }
+
+    @Override
+    public Collection<String> getMappedPackageNames() {
+        return loaded().getMappedPackageNames();
+    }
+
+    @Override
+    public int packagesCount() {
+        return this.index[PACKAGE].length;
+    }
+
+    @Override
+    public String mapType(String obfuscated_type) {
+        return find(CLASS, obfuscated_type, null);
+    }
+
+    @Override
+    public String inverseType(String mapped_type) {
+        return loaded().inverseType(mapped_type);
+    }
+
+    @Override
+    public void addTypeMapping(String obfuscated_type, String mapped_type) {
+        throw readOnly();
+    }
+
+    @Override
+    public int typeCount() {
+        return this.index[CLASS].length;
+    }
+
+    @Override
+    public Set<String> getMappedTypes() {
+        return loaded().getMappedTypes();
+    }
+
+    @Override
+    public Collection<String> getMappedTypeNames() {
+        return loaded().getMappedTypeNames();
+    }
+
+    @Override
+    public String mapField(String owner, String fld) {
+        return find(FIELD, owner + "/" + fld, null);
+    }
+
+    @Override
+    public String inverseField(String owner, String mapped) {
+        return loaded().inverseField(owner, mapped);
+    }
+
+    @Override
+    public void addFieldMapping(String owner, String old, String mapped) {
+        throw readOnly();
+    }
+
+    @Override
+    public int fieldCount() {
+        return this.index[FIELD].length;
+    }
+
+    @Override
+    public Set<String> getMappedFields() {
+        return loaded().getMappedFields();
+    }
+
+    @Override
+    public Collection<String> getMappedFieldNames() {
+        return loaded().getMappedFieldNames();
+    }
+
+    @Override
+    public MethodMapping getMethodMapping(String owner, String obfuscated_method, String obfuscated_signature) {
+        String mapped = mapMethod(owner, obfuscated_method, obfuscated_signature);
+        return mapped == null ? null : new MethodMapping(this, owner, obfuscated_method, obfuscated_signature, mapped);
+    }
+
+    @Override
+    public String mapMethod(String owner, String method, String sig) {
+        return find(METHOD, owner + "/" + method, sig);
+    }
+
+    @Override
+    public String inverseMethod(String owner, String method, String obf_desc) {
+        return loaded().inverseMethod(owner, method, obf_desc);
+    }
+
+    @Override
+    public void addMethodMapping(String obfuscated_owner, String obfuscated_method, String obfuscated_signature, String mapped_method) {
+        throw readOnly();
+    }
+
+    @Override
+    public int methodCount() {
+        return this.index[METHOD].length;
+    }
+
+    @Override
+    public Collection<MethodMapping> getMethods(String obfuscated_owner, String obfuscated_method) {
+        byte[] key = (obfuscated_owner + "/" + obfuscated_method).getBytes(StandardCharsets.UTF_8);
+        int[] offsets = this.index[METHOD];
+        int[] tokens = new int[10];
+        List<MethodMapping> overloads = new ArrayList<>(2);
+        for (int i = lowerBound(METHOD, key, tokens); i < offsets.length; i++) {
+            tokenize(offsets[i], tokens);
+            if (compare(key, tokens[0], tokens[1]) != 0) {
+                break;
+            }
+            String desc = decode(tokens[2], tokens[3]);
+            String mapped = mapMethod(obfuscated_owner, obfuscated_method, desc);
+            if (mapped != null) {
+                overloads.add(new MethodMapping(this, obfuscated_owner, obfuscated_method, desc, mapped));
+            }
+        }
+        return Collections.unmodifiableList(overloads);
+    }
+
+    @Override
+    public Set<String> getMappedMethods() {
+        return loaded().getMappedMethods();
+    }
+
+    @Override
+    public Set<String> getMemberOwners() {
+        return loaded().getMemberOwners();
+    }
+
+    @Override
+    public Collection<String> getOwnerFields(String owner) {
+        return loaded().getOwnerFields(owner);
+    }
+
+    @Override
+    public Collection<MethodMapping> getOwnerMethods(String owner) {
+        return loaded().getOwnerMethods(owner);
+    }
+
+    @Override
+    public MappingConflicts getConflicts() {
+        return this.conflicts;
+    }
+
+    @Override
+    public void merge(MappingsSet other) {
+        throw readOnly();
+    }
+
+    @Override
+    public MappingsSet freeze() {
+        return loaded();
+    }
+
+}
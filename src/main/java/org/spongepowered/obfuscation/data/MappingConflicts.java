@@ -0,0 +1,249 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Collects the mappings which were rejected as they conflicted with an
+ * existing mapping.
+ *
+ * <p>Every conflict is counted but only the first few are kept as a sample,
+ * so recording a conflict is cheap even for very noisy inputs. Listeners are
+ * notified of each conflict as it is recorded. Conflicts may be recorded from
+ * several threads at once.</p>
+ */
+public class MappingConflicts {
+
+    public static final int DEFAULT_SAMPLE_SIZE = 20;
+
+    /**
+     * The kind of a conflict.
+     */
+    public static enum Kind {
+        /**
+         * A package which is already mapped.
+         */
+        PACKAGE,
+        /**
+         * A package mapped to a name already used by another package.
+         */
+        PACKAGE_TARGET,
+        /**
+         * A type which is already mapped to a different name.
+         */
+        TYPE,
+        /**
+         * A type mapped to a name already used by another type.
+         */
+        TYPE_TARGET,
+        /**
+         * A field which is already mapped.
+         */
+        FIELD,
+        /**
+         * A field mapped to a name already used by another field of the same
+         * owner.
+         */
+        FIELD_TARGET,
+        /**
+         * A method which is already mapped to a different name.
+         */
+        METHOD,
+        /**
+         * A field which was not written or combined as its owner is not
+         * mapped.
+         */
+        UNMAPPED_OWNER,
+        /**
+         * A change of a delta whose old mapping does not match the mappings
+         * it is applied to.
+         */
+        DELTA,
+    }
+
+    /**
+     * A single rejected mapping.
+     */
+    public static class Conflict {
+
+        private final Kind kind;
+        private final String key;
+        private final String existing;
+        private final String attempted;
+
+        public Conflict(Kind kind, String key, String existing, String attempted) {
+            this.kind = kind;
+            this.key = key;
+            this.existing = existing;
+            this.attempted = attempted;
+        }
+
+        public Kind getKind() {
+            return this.kind;
+        }
+
+        /**
+         * Gets the key of the rejected mapping, for members this is the owner
+         * and name and for methods also the descriptor. For the target kinds
+         * this is the mapped name.
+         */
+        public String getKey() {
+            return this.key;
+        }
+
+        /**
+         * Gets the existing mapping which was kept, or null if none.
+         */
+        public String getExisting() {
+            return this.existing;
+        }
+
+        /**
+         * Gets the mapping which was rejected.
+         */
+        public String getAttempted() {
+            return this.attempted;
+        }
+
+        @Override
+        public String toString() {
+            return this.kind.name().toLowerCase() + " " + this.key + ": kept " + this.existing + ", rejected " + this.attempted;
+        }
+
+    }
+
+    private final Conflict[] sample;
+    private final long[] counts = new long[Kind.values().length];
+    private final List<Consumer<Conflict>> listeners = new CopyOnWriteArrayList<>();
+    private int sample_size;
+
+    public MappingConflicts() {
+        this(DEFAULT_SAMPLE_SIZE);
+    }
+
+    /**
+     * Creates a new collector keeping at most the given number of conflicts.
+     */
+    public MappingConflicts(int max_sample) {
+        this.sample = new Conflict[max_sample];
+    }
+
+    /**
+     * Adds a listener to be called with each conflict as it is recorded.
+     */
+    public void addListener(Consumer<Conflict> listener) {
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Conflict> listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Records a rejected mapping.
+     */
+    public void record(Kind kind, String key, String existing, String attempted) {
+        Conflict conflict = null;
+        synchronized (this) {
+            this.counts[kind.ordinal()]++;
+            if (this.sample_size < this.sample.length) {
+                conflict = new Conflict(kind, key, existing, attempted);
+                this.sample[this.sample_size++] = conflict;
+            }
+        }
+        if (this.listeners.isEmpty()) {
+            return;
+        }
+        if (conflict == null) {
+            conflict = new Conflict(kind, key, existing, attempted);
+        }
+        for (Consumer<Conflict> listener : this.listeners) {
+            listener.accept(conflict);
+        }
+    }
+
+    public synchronized long getCount(Kind kind) {
+        return this.counts[kind.ordinal()];
+    }
+
+    /**
+     * Gets the number of conflicts of all kinds.
+     */
+    public synchronized long getTotal() {
+        long total = 0;
+        for (long count : this.counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the first conflicts which were recorded.
+     */
+    public synchronized List<Conflict> getSample() {
+        return Collections.unmodifiableList(new ArrayList<>(Arrays.asList(this.sample).subList(0, this.sample_size)));
+    }
+
+    /**
+     * Clears all recorded conflicts.
+     */
+    public synchronized void clear() {
+        Arrays.fill(this.counts, 0);
+        Arrays.fill(this.sample, null);
+        this.sample_size = 0;
+    }
+
+    /**
+     * Prints the number of conflicts of each kind followed by the sample, if
+     * any conflicts were recorded.
+     */
+    public synchronized void printSummary() {
+        long total = getTotal();
+        if (total == 0) {
+            return;
+        }
+        StringBuilder counts = new StringBuilder();
+        for (Kind kind : Kind.values()) {
+            long count = getCount(kind);
+            if (count > 0) {
+                counts.append(counts.length() == 0 ? "" : ", ").append(count).append(' ').append(kind.name().toLowerCase());
+            }
+        }
+        System.out.println(total + " conflicting mappings were rejected (" + counts + ")");
+        for (int i = 0; i < this.sample_size; i++) {
+            System.out.println("  " + this.sample[i]);
+        }
+        if (total > this.sample_size) {
+            System.out.println("  ... and " + (total - this.sample_size) + " more");
+        }
+    }
+
+}
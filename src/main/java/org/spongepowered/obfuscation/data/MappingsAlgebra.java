@@ -0,0 +1,401 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import org.spongepowered.obfuscation.data.MappingsDiff.Change;
+import org.spongepowered.obfuscation.data.MappingsDiff.Kind;
+import org.spongepowered.obfuscation.data.MappingsDiff.Type;
+import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Whole set operations on mappings.
+ *
+ * <p>Each operation visits every entry of its inputs once and looks up the
+ * matching entry of the other input by key, so runs in time linear in the
+ * size of the inputs. Results are built directly into a new set rather than
+ * through the add methods, so conflicts are resolved silently in favour of
+ * the later entry, except by {@link #combine} and {@link #apply} which
+ * report them.</p>
+ */
+public final class MappingsAlgebra {
+
+    private static final Comparator<Change> ORDER = Comparator.comparing(Change::getKind).thenComparing(Change::getObfuscated);
+
+    /**
+     * Composes two sets of mappings, the first mapping names `a` to `b` and
+     * the second mapping `b` to `c`, into a set mapping `a` to `c`.
+     *
+     * <p>Names of the first set which are not mapped by the second keep their
+     * mapping from the first set and names of the second set which are not
+     * renamed by the first are mapped from the name itself.</p>
+     */
+    public static MutableMappingsSet compose(MappingsSet first, MappingsSet second) {
+        MutableMappingsSet result = new MutableMappingsSet();
+        for (String pkg : first.getMappedPackages()) {
+            result.setPackageMapping(pkg, second.mapPackageSafe(first.mapPackage(pkg)));
+        }
+        for (String pkg : second.getMappedPackages()) {
+            if (first.inversePackage(pkg) == null && first.mapPackage(pkg) == null) {
+                result.setPackageMapping(pkg, second.mapPackage(pkg));
+            }
+        }
+        for (String type : first.getMappedTypes()) {
+            result.setTypeMapping(type, second.mapTypeSafe(first.mapType(type)));
+        }
+        for (String type : second.getMappedTypes()) {
+            if (first.inverseType(type) == null && first.mapType(type) == null) {
+                result.setTypeMapping(type, second.mapType(type));
+            }
+        }
+        for (String key : first.getMappedFields()) {
+            int split = key.lastIndexOf('/');
+            String owner = key.substring(0, split);
+            String fld = key.substring(split + 1);
+            String mid_owner = first.mapTypeSafe(owner);
+            String mid = first.mapField(owner, fld);
+            result.setFieldMapping(owner, fld, second.mapTypeSafe(mid_owner), second.mapFieldSafe(mid_owner, mid));
+        }
+        for (String key : second.getMappedFields()) {
+            int split = key.lastIndexOf('/');
+            String mid_owner = key.substring(0, split);
+            String mid = key.substring(split + 1);
+            String owner = inverseTypeSafe(first, mid_owner);
+            if (first.inverseField(mid_owner, mid) == null && first.mapField(owner, mid) == null) {
+                result.setFieldMapping(owner, mid, second.mapTypeSafe(mid_owner), second.mapField(mid_owner, mid));
+            }
+        }
+        for (String key : first.getMappedMethods()) {
+            for (MethodMapping mth : first.getMethods(key)) {
+                String mid_owner = first.mapTypeSafe(mth.getObfOwner());
+                String mid = mth.isMapped() ? mth.getMapped() : mth.getObf();
+                String mapped = second.mapMethod(mid_owner, mid, mth.getMappedSignature());
+                result.setMethodMapping(mth.getObfOwner(), mth.getObf(), mth.getObfSignature(), mapped == null ? mth.getMapped() : mapped);
+            }
+        }
+        for (String key : second.getMappedMethods()) {
+            for (MethodMapping mth : second.getMethods(key)) {
+                String owner = inverseTypeSafe(first, mth.getObfOwner());
+                String desc = MethodMapping.mapSig(mth.getObfSignature(), (type) -> inverseTypeSafe(first, type));
+                if (first.inverseMethod(mth.getObfOwner(), mth.getObf(), desc) == null && first.getMethodMapping(owner, mth.getObf(), desc) == null) {
+                    result.setMethodMapping(owner, mth.getObf(), desc, mth.getMapped());
+                }
+            }
+        }
+        result.unmarkModified();
+        return result;
+    }
+
+    /**
+     * Inverts the given mappings into a set mapping each mapped name back to
+     * its obfuscated name. Methods without a mapped name are kept under their
+     * obfuscated name.
+     */
+    public static MutableMappingsSet invert(MappingsSet mappings) {
+        MutableMappingsSet result = new MutableMappingsSet();
+        for (String pkg : mappings.getMappedPackages()) {
+            result.setPackageMapping(mappings.mapPackage(pkg), pkg);
+        }
+        for (String type : mappings.getMappedTypes()) {
+            result.setTypeMapping(mappings.mapType(type), type);
+        }
+        for (String key : mappings.getMappedFields()) {
+            int split = key.lastIndexOf('/');
+            String owner = key.substring(0, split);
+            String fld = key.substring(split + 1);
+            result.setFieldMapping(mappings.mapTypeSafe(owner), mappings.mapField(owner, fld), owner, fld);
+        }
+        for (String key : mappings.getMappedMethods()) {
+            for (MethodMapping mth : mappings.getMethods(key)) {
+                String mapped_owner = mappings.mapTypeSafe(mth.getObfOwner());
+                if (mth.isMapped()) {
+                    result.setMethodMapping(mapped_owner, mth.getMapped(), mth.getMappedSignature(), mth.getObf());
+                } else {
+                    result.setMethodMapping(mapped_owner, mth.getObf(), mth.getMappedSignature(), null);
+                }
+            }
+        }
+        result.unmarkModified();
+        return result;
+    }
+
+    /**
+     * Merges the given sets of mappings into a new set, mappings from later
+     * sets replace conflicting mappings from earlier sets.
+     */
+    public static MutableMappingsSet merge(MappingsSet... sets) {
+        MutableMappingsSet result = new MutableMappingsSet();
+        for (MappingsSet set : sets) {
+            result.merge(set);
+        }
+        result.unmarkModified();
+        return result;
+    }
+
+    /**
+     * Combines the given sets of mappings, such as the shards of a mappings
+     * file split by package, into a new set. Unlike {@link #merge} entries of
+     * earlier sets take precedence and every entry which conflicts with an
+     * entry of an earlier set is recorded to the given collector.
+     */
+    public static MutableMappingsSet combine(MappingConflicts conflicts, MappingsSet... sets) {
+        MutableMappingsSet result = new MutableMappingsSet(conflicts);
+        // all types are added before any members so that the owners of
+        // members are mapped whichever set they come from
+        for (MappingsSet set : sets) {
+            for (String pkg : set.getMappedPackages()) {
+                String mapped = set.mapPackage(pkg);
+                String existing = result.mapPackage(pkg);
+                String existing_obf = result.inversePackage(mapped);
+                if (existing != null) {
+                    if (!existing.equals(mapped)) {
+                        conflicts.record(MappingConflicts.Kind.PACKAGE, pkg, existing, mapped);
+                    }
+                } else if (existing_obf != null) {
+                    conflicts.record(MappingConflicts.Kind.PACKAGE_TARGET, mapped, existing_obf, pkg);
+                } else {
+                    result.addPackageMapping(pkg, mapped);
+                }
+            }
+            for (String type : set.getMappedTypes()) {
+                String mapped = set.mapType(type);
+                String existing = result.mapType(type);
+                String existing_obf = result.inverseType(mapped);
+                if (existing != null) {
+                    if (!existing.equals(mapped)) {
+                        conflicts.record(MappingConflicts.Kind.TYPE, type, existing, mapped);
+                    }
+                } else if (existing_obf != null) {
+                    conflicts.record(MappingConflicts.Kind.TYPE_TARGET, mapped, existing_obf, type);
+                } else {
+                    result.addTypeMapping(type, mapped);
+                }
+            }
+        }
+        for (MappingsSet set : sets) {
+            for (String owner : set.getMemberOwners()) {
+                boolean owner_mapped = result.mapType(owner) != null;
+                for (String fld : set.getOwnerFields(owner)) {
+                    String mapped = set.mapField(owner, fld);
+                    if (!owner_mapped) {
+                        conflicts.record(MappingConflicts.Kind.UNMAPPED_OWNER, owner + "/" + fld, null, mapped);
+                    } else if (!mapped.equals(result.mapField(owner, fld))) {
+                        result.addFieldMapping(owner, fld, mapped);
+                    }
+                }
+                for (MethodMapping mth : set.getOwnerMethods(owner)) {
+                    MethodMapping existing = result.getMethodMapping(owner, mth.getObf(), mth.getObfSignature());
+                    if (existing == null) {
+                        result.addMethodMapping(owner, mth.getObf(), mth.getObfSignature(), mth.getMapped());
+                    } else if (!Objects.equals(existing.getMapped(), mth.getMapped())) {
+                        conflicts.record(MappingConflicts.Kind.METHOD, owner + "/" + mth.getObf() + mth.getObfSignature(), existing.getMapped(),
+                                mth.getMapped());
+                    }
+                }
+            }
+        }
+        result.unmarkModified();
+        return result;
+    }
+
+    /**
+     * Finds the entries which were added, removed or changed between the
+     * given old and new mappings. Methods without a mapped name are treated
+     * as not mapped.
+     */
+    public static MappingsDiff diff(MappingsSet old_set, MappingsSet new_set) {
+        List<Change> changes = new ArrayList<>();
+        for (String pkg : old_set.getMappedPackages()) {
+            compare(changes, Kind.PACKAGE, pkg, old_set.mapPackage(pkg), new_set.mapPackage(pkg));
+        }
+        for (String pkg : new_set.getMappedPackages()) {
+            if (old_set.mapPackage(pkg) == null) {
+                changes.add(new Change(Kind.PACKAGE, Type.ADDED, pkg, null, new_set.mapPackage(pkg)));
+            }
+        }
+        for (String type : old_set.getMappedTypes()) {
+            compare(changes, Kind.TYPE, type, old_set.mapType(type), new_set.mapType(type));
+        }
+        for (String type : new_set.getMappedTypes()) {
+            if (old_set.mapType(type) == null) {
+                changes.add(new Change(Kind.TYPE, Type.ADDED, type, null, new_set.mapType(type)));
+            }
+        }
+        for (String key : old_set.getMappedFields()) {
+            compare(changes, Kind.FIELD, key, old_set.mapField(key), new_set.mapField(key));
+        }
+        for (String key : new_set.getMappedFields()) {
+            if (old_set.mapField(key) == null) {
+                changes.add(new Change(Kind.FIELD, Type.ADDED, key, null, new_set.mapField(key)));
+            }
+        }
+        for (String key : old_set.getMappedMethods()) {
+            for (MethodMapping mth : old_set.getMethods(key)) {
+                if (mth.isMapped()) {
+                    compare(changes, Kind.METHOD, key + mth.getObfSignature(), mth.getMapped(),
+                            new_set.mapMethod(mth.getObfOwner(), mth.getObf(), mth.getObfSignature()));
+                }
+            }
+        }
+        for (String key : new_set.getMappedMethods()) {
+            for (MethodMapping mth : new_set.getMethods(key)) {
+                if (mth.isMapped() && old_set.mapMethod(mth.getObfOwner(), mth.getObf(), mth.getObfSignature()) == null) {
+                    changes.add(new Change(Kind.METHOD, Type.ADDED, key + mth.getObfSignature(), null, mth.getMapped()));
+                }
+            }
+        }
+        changes.sort(ORDER);
+        return new MappingsDiff(changes);
+    }
+
+    /**
+     * Applies a diff, such as a delta read by {@link MappingsDiff#readDelta},
+     * to the given base mappings and returns the patched mappings as a new
+     * set. Changes which are already present in the base are accepted, any
+     * other change whose old mapping does not match the base is rejected and
+     * recorded to the given collector.
+     */
+    public static MutableMappingsSet apply(MappingsSet base, MappingsDiff diff, MappingConflicts conflicts) {
+        Map<Kind, Map<String, Change>> changes = new EnumMap<>(Kind.class);
+        for (Kind kind : Kind.values()) {
+            changes.put(kind, new HashMap<>());
+        }
+        for (Change change : diff.getChanges()) {
+            changes.get(change.getKind()).put(change.getObfuscated(), change);
+        }
+        MutableMappingsSet result = new MutableMappingsSet(conflicts);
+        Map<String, Change> packages = changes.get(Kind.PACKAGE);
+        for (String pkg : base.getMappedPackages()) {
+            String mapped = patch(conflicts, packages.remove(pkg), pkg, base.mapPackage(pkg));
+            if (mapped != null) {
+                result.setPackageMapping(pkg, mapped);
+            }
+        }
+        for (Change change : packages.values()) {
+            String mapped = patch(conflicts, change, change.getObfuscated(), null);
+            if (mapped != null) {
+                result.setPackageMapping(change.getObfuscated(), mapped);
+            }
+        }
+        Map<String, Change> types = changes.get(Kind.TYPE);
+        for (String type : base.getMappedTypes()) {
+            String mapped = patch(conflicts, types.remove(type), type, base.mapType(type));
+            if (mapped != null) {
+                result.setTypeMapping(type, mapped);
+            }
+        }
+        for (Change change : types.values()) {
+            String mapped = patch(conflicts, change, change.getObfuscated(), null);
+            if (mapped != null) {
+                result.setTypeMapping(change.getObfuscated(), mapped);
+            }
+        }
+        // members are added once all types are patched so that fields are
+        // written against the patched name of their owner
+        Map<String, Change> fields = changes.get(Kind.FIELD);
+        Map<String, Change> methods = changes.get(Kind.METHOD);
+        for (String owner : base.getMemberOwners()) {
+            String mapped_owner = result.mapTypeSafe(owner);
+            for (String fld : base.getOwnerFields(owner)) {
+                String key = owner + "/" + fld;
+                String mapped = patch(conflicts, fields.remove(key), key, base.mapField(owner, fld));
+                if (mapped != null) {
+                    result.setFieldMapping(owner, fld, mapped_owner, mapped);
+                }
+            }
+            for (MethodMapping mth : base.getOwnerMethods(owner)) {
+                Change change = methods.remove(owner + "/" + mth.getObf() + mth.getObfSignature());
+                if (change == null) {
+                    // methods without a mapped name are kept as they are
+                    result.setMethodMapping(owner, mth.getObf(), mth.getObfSignature(), mth.getMapped());
+                    continue;
+                }
+                String mapped = patch(conflicts, change, change.getObfuscated(), mth.getMapped());
+                if (mapped != null) {
+                    result.setMethodMapping(owner, mth.getObf(), mth.getObfSignature(), mapped);
+                }
+            }
+        }
+        for (Change change : fields.values()) {
+            String mapped = patch(conflicts, change, change.getObfuscated(), null);
+            if (mapped != null) {
+                String key = change.getObfuscated();
+                int split = key.lastIndexOf('/');
+                String owner = key.substring(0, split);
+                result.setFieldMapping(owner, key.substring(split + 1), result.mapTypeSafe(owner), mapped);
+            }
+        }
+        for (Change change : methods.values()) {
+            String mapped = patch(conflicts, change, change.getObfuscated(), null);
+            if (mapped != null) {
+                String key = change.getObfuscated();
+                int desc = key.indexOf('(');
+                int split = key.lastIndexOf('/', desc);
+                result.setMethodMapping(key.substring(0, split), key.substring(split + 1, desc), key.substring(desc), mapped);
+            }
+        }
+        result.unmarkModified();
+        return result;
+    }
+
+    /**
+     * Gets the patched value of an entry, or the base value if the change
+     * does not apply to it.
+     */
+    private static String patch(MappingConflicts conflicts, Change change, String key, String base_value) {
+        if (change == null) {
+            return base_value;
+        }
+        if (Objects.equals(base_value, change.getOld()) || Objects.equals(base_value, change.getNew())) {
+            return change.getNew();
+        }
+        conflicts.record(MappingConflicts.Kind.DELTA, key, base_value, change.getNew());
+        return base_value;
+    }
+
+    private static void compare(List<Change> changes, Kind kind, String obf, String old_value, String new_value) {
+        if (new_value == null) {
+            changes.add(new Change(kind, Type.REMOVED, obf, old_value, null));
+        } else if (!new_value.equals(old_value)) {
+            changes.add(new Change(kind, Type.CHANGED, obf, old_value, new_value));
+        }
+    }
+
+    private static String inverseTypeSafe(MappingsSet mappings, String mapped_type) {
+        String obf = mappings.inverseType(mapped_type);
+        return obf == null ? mapped_type : obf;
+    }
+
+    private MappingsAlgebra() {
+    }
+
+}
@@ -0,0 +1,322 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The differences between two sets of mappings.
+ *
+ * <p>A diff can be written as a compact delta holding only the changed
+ * entries, which is read back by {@link #readDelta} and applied to the old
+ * mappings by {@link MappingsAlgebra#apply}.</p>
+ */
+public class MappingsDiff {
+
+    /**
+     * The extension of delta files.
+     */
+    public static final String DELTA_EXTENSION = ".srgdelta";
+
+    private static final String DELTA_HEADER = "# mappings delta 1";
+    private static final String NEXT_MEMBER_HEADER = "# next-member ";
+    private static final String[] DELTA_TAGS = {"PK", "CL", "FD", "MD"};
+    private static final char[] DELTA_TYPES = {'+', '-', '~'};
+
+    /**
+     * The kind of entry a change is for.
+     */
+    public static enum Kind {
+        PACKAGE,
+        TYPE,
+        FIELD,
+        METHOD,
+    }
+
+    /**
+     * The type of a change.
+     */
+    public static enum Type {
+        /**
+         * Mapped only by the new mappings.
+         */
+        ADDED,
+        /**
+         * Mapped only by the old mappings.
+         */
+        REMOVED,
+        /**
+         * Mapped to a different name by the new mappings.
+         */
+        CHANGED,
+    }
+
+    /**
+     * A single entry which differs between the old and new mappings.
+     */
+    public static class Change {
+
+        private final Kind kind;
+        private final Type type;
+        private final String obf;
+        private final String old_value;
+        private final String new_value;
+
+        public Change(Kind kind, Type type, String obf, String old_value, String new_value) {
+            this.kind = kind;
+            this.type = type;
+            this.obf = obf;
+            this.old_value = old_value;
+            this.new_value = new_value;
+        }
+
+        public Kind getKind() {
+            return this.kind;
+        }
+
+        public Type getType() {
+            return this.type;
+        }
+
+        /**
+         * Gets the obfuscated name of the entry, for members this is the
+         * owner and name and for methods also the descriptor.
+         */
+        public String getObfuscated() {
+            return this.obf;
+        }
+
+        /**
+         * Gets the old mapping or null if added.
+         */
+        public String getOld() {
+            return this.old_value;
+        }
+
+        /**
+         * Gets the new mapping or null if removed.
+         */
+        public String getNew() {
+            return this.new_value;
+        }
+
+    }
+
+    private final List<Change> changes;
+    private final int[][] counts = new int[Kind.values().length][Type.values().length];
+    private int next_member = 0;
+
+    public MappingsDiff(List<Change> changes) {
+        this.changes = Collections.unmodifiableList(new ArrayList<>(changes));
+        for (Change change : changes) {
+            this.counts[change.kind.ordinal()][change.type.ordinal()]++;
+        }
+    }
+
+    public List<Change> getChanges() {
+        return this.changes;
+    }
+
+    public int getCount(Kind kind, Type type) {
+        return this.counts[kind.ordinal()][type.ordinal()];
+    }
+
+    public boolean isEmpty() {
+        return this.changes.isEmpty();
+    }
+
+    /**
+     * Gets the index from which names generated for colliding methods are
+     * numbered when the new mappings are written as srg. This is recorded in
+     * deltas so that the patched mappings are written with the same names as
+     * the full output would have been.
+     */
+    public int getNextMember() {
+        return this.next_member;
+    }
+
+    public void setNextMember(int next_member) {
+        this.next_member = next_member;
+    }
+
+    /**
+     * Prints the change counts of each kind.
+     */
+    public void printSummary() {
+        for (Kind kind : Kind.values()) {
+            System.out.printf("%s changes: %d added, %d removed, %d changed\n", kind.name().toLowerCase(), getCount(kind, Type.ADDED),
+                    getCount(kind, Type.REMOVED), getCount(kind, Type.CHANGED));
+        }
+    }
+
+    /**
+     * Writes the changes to the given file as tab separated values.
+     */
+    public void write(Path out) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            write(writer);
+        }
+    }
+
+    public void write(Writer out) {
+        PrintWriter writer = new PrintWriter(out);
+        writer.println("kind\ttype\tobfuscated\told\tnew");
+        for (Change change : this.changes) {
+            writer.println(change.kind.name() + "\t" + change.type.name() + "\t" + change.obf + "\t" + orEmpty(change.old_value) + "\t"
+                    + orEmpty(change.new_value));
+        }
+        writer.flush();
+    }
+
+    /**
+     * Writes the changes to the given file as a delta.
+     */
+    public void writeDelta(Path out) throws IOException {
+        try (Writer writer = MappingsIO.newWriter(out, StandardCharsets.UTF_8)) {
+            writeDelta(writer);
+        }
+    }
+
+    /**
+     * Writes the changes as a delta. Each line holds a single change as its
+     * type, the srg tag of its kind and its obfuscated name followed by the
+     * old mapping unless added and the new mapping unless removed. The old
+     * mappings are kept so that a delta can be checked against the set it is
+     * applied to.
+     */
+    public void writeDelta(Writer out) throws IOException {
+        out.write(DELTA_HEADER);
+        out.write('\n');
+        out.write(NEXT_MEMBER_HEADER);
+        out.write(String.valueOf(this.next_member));
+        out.write('\n');
+        for (Change change : this.changes) {
+            out.write(DELTA_TYPES[change.type.ordinal()]);
+            out.write(DELTA_TAGS[change.kind.ordinal()]);
+            out.write(' ');
+            out.write(change.obf);
+            if (change.type != Type.ADDED) {
+                out.write(' ');
+                out.write(change.old_value);
+            }
+            if (change.type != Type.REMOVED) {
+                out.write(' ');
+                out.write(change.new_value);
+            }
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Reads a delta written by {@link #writeDelta} from the given file.
+     */
+    public static MappingsDiff readDelta(Path in) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(in, StandardCharsets.UTF_8)) {
+            if (!DELTA_HEADER.equals(reader.readLine())) {
+                throw new IOException("Not a mappings delta: " + in.toString());
+            }
+            return readDelta(reader);
+        }
+    }
+
+    /**
+     * Gets if the given start of a file is the header of a delta.
+     */
+    static boolean isDelta(String head) {
+        return head.startsWith(DELTA_HEADER);
+    }
+
+    /**
+     * Reads the changes of a delta following its header.
+     */
+    public static MappingsDiff readDelta(BufferedReader in) throws IOException {
+        List<Change> changes = new ArrayList<>();
+        int next_member = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.startsWith(NEXT_MEMBER_HEADER)) {
+                try {
+                    next_member = Integer.parseInt(line.substring(NEXT_MEMBER_HEADER.length()).trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed delta line: " + line);
+                }
+                continue;
+            }
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            Change change = parseChange(line);
+            if (change == null) {
+                throw new IOException("Malformed delta line: " + line);
+            }
+            changes.add(change);
+        }
+        MappingsDiff diff = new MappingsDiff(changes);
+        diff.setNextMember(next_member);
+        return diff;
+    }
+
+    private static Change parseChange(String line) {
+        if (line.length() < 4) {
+            return null;
+        }
+        Type type = null;
+        for (int i = 0; i < DELTA_TYPES.length; i++) {
+            if (line.charAt(0) == DELTA_TYPES[i]) {
+                type = Type.values()[i];
+            }
+        }
+        Kind kind = null;
+        for (int i = 0; i < DELTA_TAGS.length; i++) {
+            if (line.startsWith(DELTA_TAGS[i], 1)) {
+                kind = Kind.values()[i];
+            }
+        }
+        if (type == null || kind == null || line.charAt(3) != ' ') {
+            return null;
+        }
+        String[] parts = line.substring(4).split(" ");
+        if (parts.length != (type == Type.CHANGED ? 3 : 2)) {
+            return null;
+        }
+        String old_value = type == Type.ADDED ? null : parts[1];
+        String new_value = type == Type.REMOVED ? null : parts[parts.length - 1];
+        return new Change(kind, type, parts[0], old_value, new_value);
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A format that mappings can be read from and written to.
+ *
+ * <p>Formats are registered as services of this interface and are looked up
+ * through {@link MappingsIO}, implementations must be public and have a public
+ * no argument constructor.</p>
+ */
+public interface MappingsFormat {
+
+    /**
+     * Gets the name of this format.
+     */
+    String getName();
+
+    /**
+     * Gets the file extensions used by this format, including the leading dot.
+     */
+    List<String> getExtensions();
+
+    /**
+     * Gets if the given start of a file is in this format. The head holds the
+     * first bytes of the file decoded as ISO-8859-1.
+     */
+    boolean matches(String head);
+
+    /**
+     * Gets if this format can write field mappings. Formats which need the
+     * field types, which mappings sets do not track, cannot.
+     */
+    default boolean canWriteFields() {
+        return true;
+    }
+
+    /**
+     * Reads the mappings in the given file, conflicting mappings are recorded
+     * to the given collector.
+     */
+    MappingsSet read(Path file, MappingConflicts conflicts) throws IOException;
+
+    /**
+     * Writes the given mappings to the given file.
+     *
+     * @throws IllegalArgumentException If the mappings have fields and this
+     *     format cannot write them
+     */
+    void write(Path file, MappingsSet mappings) throws IOException;
+
+}
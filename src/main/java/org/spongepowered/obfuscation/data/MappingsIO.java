@@ -24,145 +24,374 @@
  */
 package org.spongepowered.obfuscation.data;
 
-import com.google.common.collect.Lists;
+import com.google.common.base.CharMatcher;
+import org.spongepowered.obfuscation.config.ObfConfig;
 import org.spongepowered.obfuscation.config.ObfConfigManager;
-import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
-import java.io.FileWriter;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collection;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Utilities for reading and writing SRG files.
+ * Utilities for reading and writing mappings files.
+ *
+ * <p>The supported formats are the {@link MappingsFormat} services found on
+ * the classpath. The format of a file being read is detected from its
+ * contents, the format of a file being written from its extension.</p>
  */
 public final class MappingsIO {
 
-    private static final String PACKAGE_LEADER = "PK: ";
-    private static final String CLASS_LEADER = "CL: ";
-    private static final String FIELD_LEADER = "FD: ";
-    private static final String METHOD_LEADER = "MD: ";
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    private static final int HEAD_SIZE = 4096;
+    private static final CharMatcher GLOB_CHARS = CharMatcher.anyOf("*?[{");
+
+    private static final List<MappingsFormat> formats = loadFormats();
+
+    private static List<MappingsFormat> loadFormats() {
+        List<MappingsFormat> loaded = new ArrayList<>();
+        for (MappingsFormat format : ServiceLoader.load(MappingsFormat.class, MappingsIO.class.getClassLoader())) {
+            loaded.add(format);
+        }
+        return Collections.unmodifiableList(loaded);
+    }
 
     /**
-     * Loads the given srg file and returns a {@link MappingsSet} containing the
-     * mappings.
+     * Gets all available mappings formats.
      */
-    public static MappingsSet load(Path deobf_data) throws IOException {
-        MappingsSet mappings = new MappingsSet();
-        System.out.println("Loading mappings from " + deobf_data.toString());
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(deobf_data.toFile())))) {
-            String line = null;
-            outer: while ((line = reader.readLine()) != null) {
-                if (line.startsWith(PACKAGE_LEADER)) {
-                    line = line.substring(PACKAGE_LEADER.length());
-                    String[] data = line.split(" ");
-                    mappings.addPackageMapping(data[0], data[1]);
-                } else if (line.startsWith(CLASS_LEADER)) {
-                    line = line.substring(CLASS_LEADER.length());
-                    String[] data = line.split(" ");
-                    for (String ex : ObfConfigManager.getConfig().excluded_packages) {
-                        if (data[1].startsWith(ex)) {
-                            continue outer;
-                        }
-                    }
-                    mappings.addTypeMapping(data[0], data[1]);
-                } else if (line.startsWith(FIELD_LEADER)) {
-                    line = line.substring(FIELD_LEADER.length());
-                    String[] data = line.split(" ");
-                    for (String ex : ObfConfigManager.getConfig().excluded_packages) {
-                        if (data[1].startsWith(ex)) {
-                            continue outer;
-                        }
-                    }
-                    String obf_name = data[0].substring(0, data[0].lastIndexOf('/'));
-                    String obf_fld = data[0].substring(data[0].lastIndexOf('/') + 1, data[0].length());
-                    String map_fld = data[1].substring(data[1].lastIndexOf('/') + 1, data[1].length());
-                    mappings.addFieldMapping(obf_name, obf_fld, map_fld);
-                } else if (line.startsWith(METHOD_LEADER)) {
-                    line = line.substring(METHOD_LEADER.length());
-                    String[] data = line.split(" ");
-                    for (String ex : ObfConfigManager.getConfig().excluded_packages) {
-                        if (data[1].startsWith(ex)) {
-                            continue outer;
-                        }
-                    }
-                    String obf_name = data[0].substring(0, data[0].lastIndexOf('/'));
-                    String obf_mth = data[0].substring(data[0].lastIndexOf('/') + 1, data[0].length());
-                    String map_mth = data[2].substring(data[2].lastIndexOf('/') + 1, data[2].length());
-                    mappings.addMethodMapping(obf_name, obf_mth, data[1], map_mth);
-                }
+    public static List<MappingsFormat> getFormats() {
+        return formats;
+    }
+
+    /**
+     * Gets the format with the given name, or null if there is no such
+     * format.
+     */
+    public static MappingsFormat getFormat(String name) {
+        for (MappingsFormat format : formats) {
+            if (format.getName().equals(name)) {
+                return format;
             }
-            System.out.println("Loaded " + mappings.packagesCount() + " packages");
-            System.out.println("Loaded " + mappings.typeCount() + " classes");
-            System.out.println("Loaded " + mappings.fieldCount() + " fields");
-            System.out.println("Loaded " + mappings.methodCount() + " methods");
         }
-        return mappings;
+        return null;
     }
 
     /**
-     * Writes the given mappings set to the given file following the srg format.
+     * Detects the format of the given file from its first bytes, falling back
+     * to its extension and then to srg. Deltas are rejected as they can only
+     * be applied to their base mappings.
      */
-    public static void write(Path out, MappingsSet mappings, int next_member) throws IOException {
-        Files.createDirectories(out.getParent());
-        try (FileWriter writer = new FileWriter(out.toFile())) {
-            // standard packages
-            writer.write("PK: . net/minecraft/src\n"
-                    + "PK: net net\n"
-                    + "PK: net/minecraft net/minecraft\n"
-                    + "PK: net/minecraft/client net/minecraft/client\n"
-                    + "PK: net/minecraft/client/main net/minecraft/client/main\n"
-                    + "PK: net/minecraft/realms net/minecraft/realms\n"
-                    + "PK: net/minecraft/server net/minecraft/server\n");
-            List<String> cls_keys = Lists.newArrayList(mappings.getMappedTypes());
-            Collections.sort(cls_keys);
-            for (String key : cls_keys) {
-                writer.write("CL: " + key + " " + mappings.mapType(key) + "\n");
+    public static MappingsFormat detectFormat(Path file) throws IOException {
+        byte[] head = new byte[HEAD_SIZE];
+        int length = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while (length < head.length && (read = in.read(head, length, head.length - length)) != -1) {
+                length += read;
             }
-            List<String> fd_keys = Lists.newArrayList(mappings.getMappedFields());
-            Collections.sort(fd_keys);
-            for (String key : fd_keys) {
-                String owner = key.substring(0, key.lastIndexOf('/'));
-                String obf_fld = key.substring(key.lastIndexOf('/') + 1, key.length());
-                String mapped = mappings.mapType(owner);
-                if (mapped == null) {
-                    System.err.println("Skipping field mapping " + key + " owner not mapped");
-                    continue;
+        }
+        String text = new String(head, 0, length, StandardCharsets.ISO_8859_1);
+        if (MappingsDiff.isDelta(text) || file.getFileName().toString().endsWith(MappingsDiff.DELTA_EXTENSION)) {
+            throw new IOException("Cannot load a mappings delta as mappings, apply it to its base mappings instead: " + file.toString());
+        }
+        for (MappingsFormat format : formats) {
+            if (format.matches(text)) {
+                return format;
+            }
+        }
+        return getFormatForOutput(file);
+    }
+
+    /**
+     * Gets the format to write the given file in from its extension, files
+     * with an unknown extension are written as srg. Delta files are rejected.
+     */
+    public static MappingsFormat getFormatForOutput(Path file) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(MappingsDiff.DELTA_EXTENSION)) {
+            throw new IllegalArgumentException("Cannot write full mappings to a delta file: " + file.toString());
+        }
+        for (MappingsFormat format : formats) {
+            for (String extension : format.getExtensions()) {
+                if (name.endsWith(extension)) {
+                    return format;
                 }
-                writer.write("FD: " + key + " " + mapped + "/" + mappings.mapField(owner, obf_fld) + "\n");
             }
+        }
+        return getFormat("srg");
+    }
 
-            List<String> mth_keys = Lists.newArrayList(mappings.getMappedMethods());
-            Collections.sort(mth_keys);
-            Set<String> seen_mth = new HashSet<>();
-            for (String key : mth_keys) {
-                Collection<MethodMapping> overloads = mappings.getMethods(key);
-                for (MethodMapping overload : overloads) {
-                    if (!overload.isMapped() && overload.getObf().startsWith("<")) {
-                        overload.update(overload.getObf());
-                    }
-                    String mapped_owner = mappings.mapType(overload.getObfOwner());
-                    if (mapped_owner == null) {
-                        continue;
+    /**
+     * Gets if the given path names a set of mappings shards rather than a
+     * single file, either a directory or a file name containing glob
+     * characters. An existing file is never treated as a glob, so files with
+     * names such as `mappings[1].srg` are loaded as themselves.
+     */
+    public static boolean isSharded(Path path) {
+        if (Files.isDirectory(path)) {
+            return true;
+        }
+        Path name = path.getFileName();
+        return name != null && !Files.exists(path) && GLOB_CHARS.matchesAnyOf(name.toString());
+    }
+
+    /**
+     * Finds the mappings files named by the given path, sorted by name. A
+     * directory names the files within it with the extension of a known
+     * format, a glob names the matching files of its parent directory and any
+     * other path, including an existing file whose name contains glob
+     * characters, names itself if it exists.
+     */
+    public static List<Path> findFiles(Path path) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(path)) {
+            try (DirectoryStream<Path> dir = Files.newDirectoryStream(path)) {
+                for (Path file : dir) {
+                    if (Files.isRegularFile(file) && hasKnownExtension(file)) {
+                        files.add(file);
                     }
-                    String mapped_key = mapped_owner + "/" + overload.getMapped() + " " + overload.getMappedSignature();
-                    if (seen_mth.contains(mapped_key)) {
-                        mapped_key = mapped_owner + "/mth_" + next_member + "_" + overload.getObf() + " " + overload.getMappedSignature();
-                        next_member++;
+                }
+            }
+        } else if (isSharded(path)) {
+            Path parent = path.toAbsolutePath().getParent();
+            PathMatcher matcher = parent.getFileSystem().getPathMatcher("glob:" + path.getFileName().toString());
+            if (Files.isDirectory(parent)) {
+                try (DirectoryStream<Path> dir = Files.newDirectoryStream(parent)) {
+                    for (Path file : dir) {
+                        if (Files.isRegularFile(file) && matcher.matches(file.getFileName())) {
+                            files.add(file);
+                        }
                     }
-                    seen_mth.add(mapped_key);
-                    writer.write("MD: " + key + " " + overload.getObfSignature() + " " + mapped_key + "\n");
                 }
             }
+        } else if (Files.exists(path)) {
+            files.add(path);
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    private static boolean hasKnownExtension(Path file) {
+        String name = file.getFileName().toString();
+        for (MappingsFormat format : formats) {
+            for (String extension : format.getExtensions()) {
+                if (name.endsWith(extension)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Loads the given mappings file and returns a {@link MappingsSet}
+     * containing the mappings. Conflicting mappings in the file are reported
+     * once loaded.
+     *
+     * <p>Text files are read as UTF-8. Binary mappings are loaded as a frozen
+     * set. Directories and globs are loaded as shards, see
+     * {@link #loadShards}.</p>
+     */
+    public static MappingsSet load(Path deobf_data) throws IOException {
+        MappingsSet mappings = load(deobf_data, new MappingConflicts());
+        mappings.getConflicts().printSummary();
+        mappings.getConflicts().clear();
+        return mappings;
+    }
+
+    /**
+     * Loads the given mappings file and returns a {@link MappingsSet}
+     * containing the mappings, conflicting mappings in the file are recorded
+     * to the given collector.
+     */
+    public static MappingsSet load(Path deobf_data, MappingConflicts conflicts) throws IOException {
+        MappingsSet mappings;
+        if (isSharded(deobf_data)) {
+            mappings = loadShards(findFiles(deobf_data), conflicts);
+        } else {
+            MappingsFormat format = detectFormat(deobf_data);
+            System.out.println("Loading " + format.getName() + " mappings from " + deobf_data.toString());
+            mappings = format.read(deobf_data, conflicts);
+        }
+        System.out.println("Loaded " + mappings.packagesCount() + " packages");
+        System.out.println("Loaded " + mappings.typeCount() + " classes");
+        System.out.println("Loaded " + mappings.fieldCount() + " fields");
+        System.out.println("Loaded " + mappings.methodCount() + " methods");
+        return mappings;
+    }
+
+    /**
+     * Loads the given mappings shards concurrently, on as many threads as
+     * configured by the load threads setting, and combines them into a single
+     * set. Conflicts within a shard are reported per shard, conflicts between
+     * shards are resolved in favour of the shard whose name sorts first and
+     * recorded to the given collector.
+     */
+    public static MappingsSet loadShards(List<Path> shards, MappingConflicts conflicts) throws IOException {
+        System.out.println("Loading " + shards.size() + " mappings shards");
+        ObfConfig config = ObfConfigManager.getConfig();
+        int threads = config.load_threads > 0 ? config.load_threads : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, shards.size())));
+        MappingsSet[] sets = new MappingsSet[shards.size()];
+        MappingConflicts[] shard_conflicts = new MappingConflicts[shards.size()];
+        try {
+            List<CompletableFuture<MappingsSet>> tasks = new ArrayList<>(shards.size());
+            for (int i = 0; i < shards.size(); i++) {
+                Path shard = shards.get(i);
+                MappingConflicts collector = new MappingConflicts();
+                shard_conflicts[i] = collector;
+                tasks.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return detectFormat(shard).read(shard, collector);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor));
+            }
+            for (int i = 0; i < sets.length; i++) {
+                sets[i] = tasks.get(i).join();
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+        for (int i = 0; i < sets.length; i++) {
+            if (shard_conflicts[i].getTotal() > 0) {
+                System.out.println("Conflicts within " + shards.get(i).getFileName().toString() + ":");
+                shard_conflicts[i].printSummary();
+            }
+        }
+        return MappingsAlgebra.combine(conflicts, sets);
+    }
+
+    /**
+     * Opens the given mappings file for lookups of a small number of entries.
+     * Srg files are opened as a {@link LazyMappingsSet} configured by the lazy
+     * settings, other formats are loaded in full.
+     */
+    public static MappingsSet openLazy(Path deobf_data) throws IOException {
+        if (isSharded(deobf_data) || !(detectFormat(deobf_data) instanceof SrgFormat)) {
+            return load(deobf_data);
+        }
+        System.out.println("Opening mappings from " + deobf_data.toString());
+        ObfConfig config = ObfConfigManager.getConfig();
+        MappingsSet mappings = new LazyMappingsSet(deobf_data, config.lazy_cache_size, config.lazy_index_sidecar);
+        System.out.println("Indexed " + mappings.typeCount() + " classes, " + mappings.fieldCount() + " fields and "
+                + mappings.methodCount() + " methods");
+        return mappings;
+    }
+
+    /**
+     * Writes the given mappings set to the given file in the format given by
+     * its extension. Fields whose owner is not mapped are skipped and
+     * recorded as conflicts of the set.
+     *
+     * <p>When written as srg, names generated for methods whose mapped names
+     * collide are numbered from the given next member index.</p>
+     */
+    public static void write(Path out, MappingsSet mappings, int next_member) throws IOException {
+        MappingsFormat format = getFormatForOutput(out);
+        if (format instanceof SrgFormat) {
+            ((SrgFormat) format).write(out, mappings, next_member);
+        } else {
+            format.write(out, mappings);
+        }
+    }
+
+    /**
+     * Writes the given mappings set to the given file following the srg format
+     * encoded with the given charset.
+     */
+    public static void write(Path out, MappingsSet mappings, int next_member, Charset charset) throws IOException {
+        try (Writer writer = newWriter(out, charset)) {
+            SrgWriter.write(writer, mappings, next_member);
+        }
+    }
+
+    /**
+     * Writes the given mappings set to the given file in the binary form,
+     * which can be memory mapped back into a frozen set by {@link #load}
+     * without parsing.
+     */
+    public static void writeBinary(Path out, MappingsSet mappings) throws IOException {
+        new BinaryFormat().write(out, mappings);
+    }
+
+    /**
+     * Converts the mappings in the given file to the given output file in a
+     * single pass, the formats are detected as for {@link #load} and
+     * {@link #write}.
+     */
+    public static void convert(Path in, Path out) throws IOException {
+        MappingsSet mappings = load(in);
+        MappingsFormat format = getFormatForOutput(out);
+        format.write(out, mappings);
+        mappings.getConflicts().printSummary();
+        System.out.println("Wrote " + format.getName() + " mappings to " + out.toString());
+    }
+
+    /**
+     * Writes only the entries of the given mappings which were added, removed
+     * or renamed relative to the given base mappings to the given file as a
+     * delta. The next member index is recorded in the delta for when the
+     * patched mappings are written as srg.
+     */
+    public static void writeDelta(Path out, MappingsSet base, MappingsSet mappings, int next_member) throws IOException {
+        MappingsDiff diff = MappingsAlgebra.diff(base, mappings);
+        diff.setNextMember(next_member);
+        diff.printSummary();
+        diff.writeDelta(out);
+        System.out.println("Wrote " + diff.getChanges().size() + " changed mappings to " + out.toString());
+    }
+
+    /**
+     * Applies the delta in the given file to the given base mappings and
+     * writes the patched mappings to the given output file in the format given
+     * by its extension.
+     */
+    public static void applyDelta(Path base, Path delta, Path out) throws IOException {
+        MappingsSet base_mappings = load(base);
+        MappingsDiff diff = MappingsDiff.readDelta(delta);
+        MappingsSet mappings = MappingsAlgebra.apply(base_mappings, diff, new MappingConflicts());
+        System.out.println("Applied " + diff.getChanges().size() + " changes from " + delta.toString());
+        write(out, mappings, diff.getNextMember());
+        mappings.getConflicts().printSummary();
+        System.out.println("Wrote " + getFormatForOutput(out).getName() + " mappings to " + out.toString());
+    }
+
+    /**
+     * Opens a buffered writer to the given file, creating its parent
+     * directories.
+     */
+    static Writer newWriter(Path out, Charset charset) throws IOException {
+        Path parent = out.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
         }
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(out), charset), WRITE_BUFFER_SIZE);
     }
 
     private MappingsIO() {
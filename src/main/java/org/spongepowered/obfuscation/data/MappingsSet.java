@@ -24,61 +24,40 @@
  */
 package org.spongepowered.obfuscation.data;
 
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
-
 import java.util.Collection;
-import java.util.Map;
+import java.util.Collections;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 
 /**
  * A set of mappings of obfuscated names to plain names.
  */
-public class MappingsSet {
-
-    private final BiMap<String, String> packages = HashBiMap.create();
-    private final BiMap<String, String> classes = HashBiMap.create();
-    private final BiMap<String, String> fields = HashBiMap.create();
-    private final Multimap<String, MethodMapping> methods = HashMultimap.create();
-    private final Multimap<String, MethodMapping> inverse_methods = HashMultimap.create();
-
-    private boolean modified = false;
-
-    public MappingsSet() {
-    }
+public interface MappingsSet {
 
     /**
      * Gets if this mapping set has been modified since the modification flag
      * was last cleared.
      */
-    public boolean isModified() {
-        return this.modified;
-    }
+    boolean isModified();
 
     /**
      * Clears the modification flag to mark all previous modifications as
      * handled.
      */
-    public void unmarkModified() {
-        this.modified = false;
-    }
+    void unmarkModified();
 
     /**
      * Maps an obfuscated package name to plain, returns null if no mapping is
      * found.
      */
-    public String mapPackage(String pkg) {
-        return this.packages.get(pkg);
-    }
+    String mapPackage(String pkg);
 
     /**
      * Maps an obfuscated package name to plain returning the obfuscated name if
      * no mapping was found.
      */
-    public String mapPackageSafe(String pkg) {
-        String mapped = this.packages.get(pkg);
+    default String mapPackageSafe(String pkg) {
+        String mapped = mapPackage(pkg);
         if (mapped == null) {
             return pkg;
         }
@@ -89,55 +68,41 @@ public class MappingsSet {
      * Maps a plain package name to its obfuscated counterpart, returns null if
      * no mapping is found.
      */
-    public String inversePackage(String mapped) {
-        return this.packages.inverse().get(mapped);
-    }
+    String inversePackage(String mapped);
 
     /**
      * Adds a package mapping. If a mapping with the given obfuscated name
-     * already exists then the mapping will fail.
+     * already exists then the mapping will fail and the conflict is recorded.
      */
-    public void addPackageMapping(String obfuscated_package, String mapped_package) {
-        String existing = this.packages.get(obfuscated_package);
-        if (existing != null) {
-            System.out.println("Updating package mapping for " + obfuscated_package + " from " + existing + " to " + mapped_package);
-            return;
-        }
-        this.packages.put(obfuscated_package, mapped_package);
-        this.modified = true;
-    }
+    void addPackageMapping(String obfuscated_package, String mapped_package);
 
     /**
      * Gets a set of the obfuscated names of all mapped packages.
      */
-    public Set<String> getMappedPackages() {
-        return this.packages.keySet();
-    }
+    Set<String> getMappedPackages();
 
     /**
      * Gets a collection of the plain names of all mapped packages.
      */
-    public Collection<String> getMappedPackageNames() {
-        return this.packages.values();
-    }
+    Collection<String> getMappedPackageNames();
 
     /**
      * Gets how many packages are mapped.
      */
-    public int packagesCount() {
-        return this.packages.size();
-    }
+    int packagesCount();
 
-    public String mapType(String obfuscated_type) {
-        return this.classes.get(obfuscated_type);
-    }
+    /**
+     * Maps the given obfuscated type name to its mapped equivalent. Returns
+     * null if no such mapping is found.
+     */
+    String mapType(String obfuscated_type);
 
     /**
      * Maps the given obfuscated type name to its mapped equivalent. Returns the
      * original obfuscated name if not such mapping is found.
      */
-    public String mapTypeSafe(String obfuscated_type) {
-        String mapped = this.classes.get(obfuscated_type);
+    default String mapTypeSafe(String obfuscated_type) {
+        String mapped = mapType(obfuscated_type);
         if (mapped == null) {
             return obfuscated_type;
         }
@@ -147,58 +112,39 @@ public class MappingsSet {
     /**
      * Gets the obfuscated name for the given plain name, or null if not found.
      */
-    public String inverseType(String mapped_type) {
-        return this.classes.inverse().get(mapped_type);
-    }
+    String inverseType(String mapped_type);
 
     /**
      * Adds the given type mapping. If a mapping for the given obfuscated name
-     * already exists then this mapping is ignored.
+     * already exists then this mapping is ignored and the conflict is
+     * recorded.
      */
-    public void addTypeMapping(String obfuscated_type, String mapped_type) {
-        String existing = this.classes.get(obfuscated_type);
-        if (existing != null && !existing.equals(mapped_type)) {
-            System.out.println("Existing class mapping for " + obfuscated_type + " from " + existing + " to " + mapped_type);
-            return;
-        }
-        this.classes.put(obfuscated_type, mapped_type);
-        this.modified = true;
-    }
+    void addTypeMapping(String obfuscated_type, String mapped_type);
 
-    public int typeCount() {
-        return this.classes.size();
-    }
+    int typeCount();
 
-    public Set<String> getMappedTypes() {
-        return this.classes.keySet();
-    }
+    Set<String> getMappedTypes();
 
-    public Collection<String> getMappedTypeNames() {
-        return this.classes.values();
-    }
+    Collection<String> getMappedTypeNames();
 
     /**
      * Gets the plain name for the given obfuscated field name for the given
      * owner. The owner name shoud be the obfuscated name of the owner. Returns
      * null if no mapping is found.
      */
-    public String mapField(String owner, String fld) {
-        String key = owner + "/" + fld;
-        return mapField(key);
-    }
+    String mapField(String owner, String fld);
 
     /**
      * Gets the mapped name for a field key. A field key is formed by the
      * obfuscated owner name and the obfuscated field name combined together
      * separated by a '/'.
      */
-    public String mapField(String key) {
-        String mapped = this.fields.get(key);
-        if (mapped == null) {
+    default String mapField(String key) {
+        int split = key.lastIndexOf('/');
+        if (split == -1) {
             return null;
         }
-        String mapped_fld = mapped.substring(mapped.lastIndexOf('/') + 1, mapped.length());
-        return mapped_fld;
+        return mapField(key.substring(0, split), key.substring(split + 1));
     }
 
     /**
@@ -206,7 +152,7 @@ public class MappingsSet {
      * owner. The owner name should be the obfuscated name of the owner. If no
      * mapping is found then the obfuscated name is returned.
      */
-    public String mapFieldSafe(String owner, String fld) {
+    default String mapFieldSafe(String owner, String fld) {
         String mapped = mapField(owner, fld);
         return mapped == null ? fld : mapped;
     }
@@ -215,15 +161,7 @@ public class MappingsSet {
      * Returns the obfuscated field name given a mapped owner name and mapped
      * field name. Returns null if no such mapping is found.
      */
-    public String inverseField(String owner, String mapped) {
-        String key = owner + "/" + mapped;
-        String inverse = this.fields.inverse().get(key);
-        if (inverse == null) {
-            return null;
-        }
-        String obf_fld = inverse.substring(inverse.lastIndexOf('/') + 1, inverse.length());
-        return obf_fld;
-    }
+    String inverseField(String owner, String mapped);
 
     /**
      * Adds a new field mapping to this mapping set. The owner name should be
@@ -232,165 +170,126 @@ public class MappingsSet {
      * <p>A mapping for the owner must exist before registering a field mapping
      * for it. If the owner is not obfuscated then a trivial mapping should be
      * inserted as a placeholder.</p>
+     *
+     * <p>If the field or the mapped name is already mapped then the mapping is
+     * ignored and the conflict is recorded.</p>
      */
-    public void addFieldMapping(String owner, String old, String mapped) {
-        String key = owner + "/" + old;
-        String existing = this.fields.get(key);
-        if (existing != null) {
-            System.out.println("Existing field mapping for " + key + " from " + existing + " to " + mapped);
-            return;
-        }
-        String mapped_owner = mapType(owner);
-        if (mapped_owner == null) {
-            throw new IllegalStateException("Tried to map field before type");
-        } else if(this.fields.containsValue(mapped_owner + "/" + mapped)) {
-            System.out.println("Existing field mapping for value " + mapped_owner + "/" + mapped + " from " + existing + " to " + key);
-            return;
-        }
-        this.fields.put(key, mapped_owner + "/" + mapped);
-        this.modified = true;
-    }
+    void addFieldMapping(String owner, String old, String mapped);
 
-    public int fieldCount() {
-        return this.fields.size();
-    }
+    int fieldCount();
 
     /**
      * Gets the <strong>keys</strong> of all mapped fields. The key is made up
      * of `owner_name/field_name`.
      */
-    public Set<String> getMappedFields() {
-        return this.fields.keySet();
-    }
+    Set<String> getMappedFields();
 
-    public Collection<String> getMappedFieldNames() {
-        return this.fields.values();
-    }
+    /**
+     * Gets the mapped keys of all mapped fields, made up of
+     * `mapped_owner_name/mapped_field_name`.
+     */
+    Collection<String> getMappedFieldNames();
 
     /**
      * Gets the method mapping for the given obfuscated method name and
      * signature. If no such method is found then null is returned.
      */
-    public MethodMapping getMethodMapping(String owner, String obfuscated_method, String obfuscated_signature) {
-        String key = owner + "/" + obfuscated_method;
-        for (MethodMapping pos : this.methods.get(key)) {
-            if (pos.obfuscated_signature.equals(obfuscated_signature)) {
-                return pos;
-            }
-        }
-        return null;
-    }
+    MethodMapping getMethodMapping(String owner, String obfuscated_method, String obfuscated_signature);
 
     /**
      * Maps the given obfuscated method name and signature to the mapped method
      * name, if no such method exists then null is returned.
      */
-    public String mapMethod(String owner, String method, String sig) {
-        String key = owner + "/" + method;
-        for (MethodMapping pos : this.methods.get(key)) {
-            if (pos.isMapped() && pos.obfuscated_signature.equals(sig)) {
-                return pos.map_method;
-            }
-        }
-        return null;
-    }
+    String mapMethod(String owner, String method, String sig);
 
     /**
      * Maps the given obfuscated method name and signature to the mapped method
      * name, if no such method exists then the obfuscated method name is
      * returned.
      */
-    public String mapMethodSafe(String owner, String method, String sig) {
-        String key = owner + "/" + method;
-        for (MethodMapping pos : this.methods.get(key)) {
-            if (pos.isMapped() && pos.obfuscated_signature.equals(sig)) {
-                return pos.map_method;
-            }
-        }
-        return method;
+    default String mapMethodSafe(String owner, String method, String sig) {
+        String mapped = mapMethod(owner, method, sig);
+        return mapped == null ? method : mapped;
     }
 
-    public String inverseMethod(String owner, String method, String obf_desc) {
-        String key = owner + "/" + method;
-        for (MethodMapping pos : this.inverse_methods.get(key)) {
-            if (pos.obfuscated_signature.equals(obf_desc)) {
-                return pos.obf_method;
-            }
-        }
-        return null;
-    }
+    /**
+     * Gets the obfuscated name of the method with the given mapped owner,
+     * mapped name and obfuscated descriptor, or null if not found.
+     */
+    String inverseMethod(String owner, String method, String obf_desc);
 
     /**
      * Adds a new method mapping.
      */
-    public void addMethodMapping(String obfuscated_owner, String obfuscated_method, String obfuscated_signature, String mapped_method) {
-        String key = obfuscated_owner + "/" + obfuscated_method;
-        MethodMapping existing = null;
-        for (MethodMapping pos : this.methods.get(key)) {
-            if (pos.obfuscated_signature.equals(obfuscated_signature)) {
-                existing = pos;
-                break;
-            }
-        }
-        if (existing == null) {
-            MethodMapping mapping = new MethodMapping(this, obfuscated_owner, obfuscated_method, obfuscated_signature, mapped_method);
-            this.methods.put(key, mapping);
-            String mapped_owner = mapTypeSafe(obfuscated_owner);
-            this.inverse_methods.put(mapped_owner + "/" + mapped_method, mapping);
-            this.modified = true;
+    void addMethodMapping(String obfuscated_owner, String obfuscated_method, String obfuscated_signature, String mapped_method);
+
+    int methodCount();
+
+    /**
+     * Gets all overloads of the given obfuscated method name.
+     */
+    Collection<MethodMapping> getMethods(String obfuscated_owner, String obfuscated_method);
+
+    /**
+     * Gets all overloads of the method with the given key. The key is made up
+     * of `owner_name/method_name`.
+     */
+    default Collection<MethodMapping> getMethods(String key) {
+        int split = key.lastIndexOf('/');
+        if (split == -1) {
+            return Collections.emptyList();
         }
+        return getMethods(key.substring(0, split), key.substring(split + 1));
     }
 
-    public int methodCount() {
-        return this.methods.values().size();
-    }
+    /**
+     * Gets the <strong>keys</strong> of all mapped methods. The key is made up
+     * of `owner_name/method_name`.
+     */
+    Set<String> getMappedMethods();
 
-    public Collection<MethodMapping> getMethods(String obfuscated_owner, String obfuscated_method) {
-        return this.methods.get(obfuscated_owner + "/" + obfuscated_method);
-    }
+    /**
+     * Gets the obfuscated names of all types which have mapped fields or
+     * methods.
+     */
+    Set<String> getMemberOwners();
 
-    public Collection<MethodMapping> getMethods(String key) {
-        return this.methods.get(key);
-    }
+    /**
+     * Gets the obfuscated names of all mapped fields of the given obfuscated
+     * owner.
+     */
+    Collection<String> getOwnerFields(String owner);
 
     /**
-     * Gets the <strong>keys</strong> of all mapped fields. The key is made up
-     * of `owner_name/field_name`.
+     * Gets all mapped methods of the given obfuscated owner.
      */
-    public Set<String> getMappedMethods() {
-        return this.methods.keySet();
-    }
+    Collection<MethodMapping> getOwnerMethods(String owner);
+
+    /**
+     * Gets the collector of the conflicting mappings rejected by this set.
+     */
+    MappingConflicts getConflicts();
 
     /**
      * Merges this mapping set with the given mapping set. The new mappings are
      * given preference over the existing mappings and will replace them if they
      * conflict.
      */
-    public void merge(MappingsSet other) {
-        final int initial_size = packagesCount() + typeCount() + methodCount() + fieldCount();
-        for (Map.Entry<String, String> e : other.packages.entrySet()) {
-            this.packages.put(e.getKey(), e.getValue());
-        }
-        for (Map.Entry<String, String> e : other.classes.entrySet()) {
-            this.classes.put(e.getKey(), e.getValue());
-        }
-        for (Map.Entry<String, String> e : other.fields.entrySet()) {
-            this.fields.put(e.getKey(), e.getValue());
-        }
-        for (Map.Entry<String, Collection<MethodMapping>> e : other.methods.asMap().entrySet()) {
-            for (MethodMapping mth : e.getValue()) {
-                this.methods.put(e.getKey(), new MethodMapping(mth));
-            }
-        }
-        int final_size = packagesCount() + typeCount() + methodCount() + fieldCount();
-        if (initial_size != final_size) {
-            this.modified = true;
-        }
-    }
+    void merge(MappingsSet other);
+
+    /**
+     * Gets an immutable copy of this mapping set. The copy is stored in a
+     * compact form and may be shared between threads.
+     */
+    MappingsSet freeze();
 
     /**
      * Represents a mapping of a method as a helper for mapping signature
      * information.
+     *
+     * <p>The mapped signature is cached and cleared when a type referenced by
+     * the signature is mapped in the owning set. Mappings which are not part of
+     * their set must be refreshed with {@link #updateSig()}.</p>
      */
     public static class MethodMapping {
 
@@ -400,6 +299,8 @@ public class MappingsSet {
         final String obfuscated_signature;
         String map_method;
         String map_sig;
+        // cleared by sets which cannot invalidate the signature safely
+        boolean cache_sig = true;
 
         /**
          * Creates a new method mapping with a mapped name specified.
@@ -410,7 +311,6 @@ public class MappingsSet {
             this.obf_method = m;
             this.obfuscated_signature = s;
             this.map_method = mm;
-            updateSig();
         }
 
         /**
@@ -427,12 +327,20 @@ public class MappingsSet {
          * Creates a method mapping as a clone of the given mapping.
          */
         public MethodMapping(MethodMapping clone) {
-            this.set = clone.set;
+            this(clone.set, clone);
+        }
+
+        /**
+         * Creates a method mapping as a clone of the given mapping, mapping its
+         * signature against the given set.
+         */
+        public MethodMapping(MappingsSet set, MethodMapping clone) {
+            this.set = set;
             this.obf_cls = clone.obf_cls;
             this.obf_method = clone.obf_method;
             this.obfuscated_signature = clone.obfuscated_signature;
             this.map_method = clone.map_method;
-            this.map_sig = clone.map_sig;
+            this.map_sig = set == clone.set ? clone.map_sig : null;
         }
 
         public String getObfOwner() {
@@ -452,8 +360,14 @@ public class MappingsSet {
         }
 
         public String getMappedSignature() {
-            updateSig();
-            return this.map_sig;
+            String sig = this.map_sig;
+            if (sig == null) {
+                sig = mapSig(this.obfuscated_signature, this.set);
+                if (this.cache_sig) {
+                    this.map_sig = sig;
+                }
+            }
+            return sig;
         }
 
         public boolean isMapped() {
@@ -462,7 +376,6 @@ public class MappingsSet {
 
         public void update(String mth) {
             this.map_method = mth;
-            updateSig();
         }
 
         public void updateSig() {
@@ -470,43 +383,43 @@ public class MappingsSet {
         }
 
         public static String mapDesc(String desc, MappingsSet map) {
-            if (desc.startsWith("[")) {
-                return "[" + mapDesc(desc.substring(1), map);
+            int start = 0;
+            while (start < desc.length() && desc.charAt(start) == '[') {
+                start++;
             }
-            if (desc.startsWith("L")) {
-                String cls = desc.substring(1, desc.length() - 1);
-                return "L" + map.mapTypeSafe(cls) + ";";
+            if (start == desc.length() || desc.charAt(start) != 'L') {
+                return desc;
             }
-            return desc;
+            StringBuilder out = new StringBuilder(desc.length() + 16);
+            out.append(desc, 0, start + 1);
+            out.append(map.mapTypeSafe(desc.substring(start + 1, desc.length() - 1)));
+            return out.append(';').toString();
         }
 
         public static String mapSig(String desc, MappingsSet map) {
-            String out = "(";
-            String accu = "";
-            for (int i = 1; i < desc.length(); i++) {
-                char next = desc.charAt(i);
-                if (next == ')') {
-                    break;
-                }
-                if (next == '[') {
-                    accu += next;
-                } else if (next == 'L') {
-                    while (next != ';') {
-                        accu += next;
-                        next = desc.charAt(++i);
-                    }
-                    accu += ';';
-                    out += mapDesc(accu, map);
-                    accu = "";
-                } else {
-                    accu += next;
-                    out += mapDesc(accu, map);
-                    accu = "";
-                }
+            return mapSig(desc, map::mapTypeSafe);
+        }
+
+        /**
+         * Maps each type referenced by the given descriptor with the given
+         * function.
+         */
+        public static String mapSig(String desc, UnaryOperator<String> mapper) {
+            int next = desc.indexOf('L');
+            if (next == -1) {
+                return desc;
+            }
+            StringBuilder out = new StringBuilder(desc.length() + 32);
+            int last = 0;
+            while (next != -1) {
+                int end = desc.indexOf(';', next);
+                out.append(desc, last, next + 1);
+                out.append(mapper.apply(desc.substring(next + 1, end)));
+                last = end;
+                next = desc.indexOf('L', end);
             }
-            String ret = desc.substring(desc.indexOf(')') + 1);
-            out += ")" + mapDesc(ret, map);
-            return out;
+            out.append(desc, last, desc.length());
+            return out.toString();
         }
     }
 }
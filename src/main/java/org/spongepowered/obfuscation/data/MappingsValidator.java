@@ -0,0 +1,134 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
+import org.spongepowered.obfuscation.data.ValidationReport.Category;
+import org.spongepowered.obfuscation.data.ValidationReport.Kind;
+import org.spongepowered.obfuscation.data.ValidationReport.Mismatch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Compares a set of generated mappings against a known good set of mappings.
+ *
+ * <p>Types, fields and methods are compared concurrently, neither mappings
+ * set may be modified while a validation is running.</p>
+ */
+public final class MappingsValidator {
+
+    private static final Comparator<Mismatch> ORDER = Comparator.comparing(Mismatch::getObfuscated).thenComparing(Mismatch::getCategory);
+
+    /**
+     * Validates the given generated mappings against the given validation
+     * mappings.
+     */
+    public static ValidationReport validate(MappingsSet mappings, MappingsSet validation) {
+        CompletableFuture<List<Mismatch>> types = CompletableFuture.supplyAsync(() -> validateTypes(mappings, validation));
+        CompletableFuture<List<Mismatch>> fields = CompletableFuture.supplyAsync(() -> validateFields(mappings, validation));
+        CompletableFuture<List<Mismatch>> methods = CompletableFuture.supplyAsync(() -> validateMethods(mappings, validation));
+        List<Mismatch> mismatches = new ArrayList<>();
+        mismatches.addAll(types.join());
+        mismatches.addAll(fields.join());
+        mismatches.addAll(methods.join());
+        return new ValidationReport(mismatches, mappings.typeCount(), mappings.fieldCount(), mappings.methodCount());
+    }
+
+    private static List<Mismatch> validateTypes(MappingsSet mappings, MappingsSet validation) {
+        List<Mismatch> mismatches = new ArrayList<>();
+        for (String obf : mappings.getMappedTypes()) {
+            String mapped = mappings.mapType(obf);
+            String expected = validation.mapType(obf);
+            if (expected == null) {
+                mismatches.add(new Mismatch(Kind.TYPE, Category.EXTRA, obf, mapped, null));
+            } else if (!expected.equals(mapped)) {
+                mismatches.add(new Mismatch(Kind.TYPE, Category.WRONG, obf, mapped, expected));
+            }
+        }
+        for (String obf : validation.getMappedTypes()) {
+            if (mappings.mapType(obf) == null) {
+                mismatches.add(new Mismatch(Kind.TYPE, Category.MISSING, obf, null, validation.mapType(obf)));
+            }
+        }
+        mismatches.sort(ORDER);
+        return mismatches;
+    }
+
+    private static List<Mismatch> validateFields(MappingsSet mappings, MappingsSet validation) {
+        List<Mismatch> mismatches = new ArrayList<>();
+        for (String key : mappings.getMappedFields()) {
+            String mapped = mappings.mapField(key);
+            String expected = validation.mapField(key);
+            if (expected == null) {
+                mismatches.add(new Mismatch(Kind.FIELD, Category.EXTRA, key, mapped, null));
+            } else if (!expected.equals(mapped)) {
+                mismatches.add(new Mismatch(Kind.FIELD, Category.WRONG, key, mapped, expected));
+            }
+        }
+        for (String key : validation.getMappedFields()) {
+            if (mappings.mapField(key) == null) {
+                mismatches.add(new Mismatch(Kind.FIELD, Category.MISSING, key, null, validation.mapField(key)));
+            }
+        }
+        mismatches.sort(ORDER);
+        return mismatches;
+    }
+
+    private static List<Mismatch> validateMethods(MappingsSet mappings, MappingsSet validation) {
+        List<Mismatch> mismatches = new ArrayList<>();
+        for (String key : mappings.getMappedMethods()) {
+            for (MethodMapping map : mappings.getMethods(key)) {
+                String mapped = mappings.mapMethodSafe(map.getObfOwner(), map.getObf(), map.getObfSignature());
+                // methods the validation set does not map are expected to keep
+                // their obfuscated name, so identity mappings are not extra
+                String expected = validation.mapMethodSafe(map.getObfOwner(), map.getObf(), map.getObfSignature());
+                if (expected.equals(mapped)) {
+                    continue;
+                }
+                if (validation.mapMethod(map.getObfOwner(), map.getObf(), map.getObfSignature()) == null) {
+                    mismatches.add(new Mismatch(Kind.METHOD, Category.EXTRA, key + map.getObfSignature(), mapped, null));
+                } else {
+                    mismatches.add(new Mismatch(Kind.METHOD, Category.WRONG, key + map.getObfSignature(), mapped, expected));
+                }
+            }
+        }
+        for (String key : validation.getMappedMethods()) {
+            for (MethodMapping map : validation.getMethods(key)) {
+                if (map.isMapped() && mappings.mapMethod(map.getObfOwner(), map.getObf(), map.getObfSignature()) == null) {
+                    mismatches.add(new Mismatch(Kind.METHOD, Category.MISSING, key + map.getObfSignature(), null, map.getMapped()));
+                }
+            }
+        }
+        mismatches.sort(ORDER);
+        return mismatches;
+    }
+
+    private MappingsValidator() {
+    }
+
+}
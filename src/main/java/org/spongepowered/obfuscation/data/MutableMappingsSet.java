@@ -0,0 +1,815 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import org.spongepowered.obfuscation.util.LongLongMap;
+import org.spongepowered.obfuscation.util.LongObjectMap;
+import org.spongepowered.obfuscation.util.SymbolTable;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A modifiable set of mappings.
+ *
+ * <p>Owner and member names are interned into a symbol table and members are
+ * stored in tables keyed by the pair of their owner and name ids, so looking
+ * up a member does not allocate a key. Methods are additionally indexed by
+ * their descriptor so that finding a single overload does not scan the
+ * others.</p>
+ *
+ * <p>The mapped members of each owner are also tracked so that the members of
+ * a single class can be found without visiting all members.</p>
+ */
+public class MutableMappingsSet implements MappingsSet {
+
+    private static final long MISSING = -1;
+
+    private final BiMap<String, String> packages = HashBiMap.create();
+    private final BiMap<String, String> classes = HashBiMap.create();
+    private final SymbolTable symbols = new SymbolTable();
+    // (owner, field) -> (mapped owner, mapped field)
+    private final LongLongMap fields = new LongLongMap();
+    private final LongLongMap inverse_fields = new LongLongMap();
+    // (owner, method) -> overloads
+    private final LongObjectMap<List<MethodMapping>> methods = new LongObjectMap<>();
+    // (owner, method) -> member id, for both obfuscated and mapped names
+    private final LongLongMap member_ids = new LongLongMap();
+    // (member id, obfuscated descriptor) -> method
+    private final LongObjectMap<MethodMapping> method_index = new LongObjectMap<>();
+    private final LongObjectMap<MethodMapping> inverse_index = new LongObjectMap<>();
+    // class -> methods whose descriptor references the class
+    private final LongObjectMap<List<MethodMapping>> signature_dependents = new LongObjectMap<>();
+    // owner -> mapped fields and methods of the owner
+    private final LongObjectMap<OwnerMembers> owner_members = new LongObjectMap<>();
+    private int method_count;
+
+    private final MappingConflicts conflicts;
+    private boolean modified = false;
+
+    public MutableMappingsSet() {
+        this(new MappingConflicts());
+    }
+
+    /**
+     * Creates a new set recording conflicts to the given collector.
+     */
+    public MutableMappingsSet(MappingConflicts conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    @Override
+    public boolean isModified() {
+        return this.modified;
+    }
+
+    @Override
+    public void unmarkModified() {
+        this.modified = false;
+    }
+
+    @Override
+    public String mapPackage(String pkg) {
+        return this.packages.get(pkg);
+    }
+
+    @Override
+    public String inversePackage(String mapped) {
+        return this.packages.inverse().get(mapped);
+    }
+
+    @Override
+    public void addPackageMapping(String obfuscated_package, String mapped_package) {
+        String existing = this.packages.get(obfuscated_package);
+        if (existing != null) {
+            this.conflicts.record(MappingConflicts.Kind.PACKAGE, obfuscated_package, existing, mapped_package);
+            return;
+        }
+        this.packages.put(obfuscated_package, mapped_package);
+        this.modified = true;
+    }
+
+    @Override
+    public Set<String> getMappedPackages() {
+        return this.packages.keySet();
+    }
+
+    @Override
+    public Collection<String> getMappedPackageNames() {
+        return this.packages.values();
+    }
+
+    @Override
+    public int packagesCount() {
+        return this.packages.size();
+    }
+
+    @Override
+    public String mapType(String obfuscated_type) {
+        return this.classes.get(obfuscated_type);
+    }
+
+    @Override
+    public String inverseType(String mapped_type) {
+        return this.classes.inverse().get(mapped_type);
+    }
+
+    @Override
+    public void addTypeMapping(String obfuscated_type, String mapped_type) {
+        String existing = this.classes.get(obfuscated_type);
+        if (existing != null && !existing.equals(mapped_type)) {
+            this.conflicts.record(MappingConflicts.Kind.TYPE, obfuscated_type, existing, mapped_type);
+            return;
+        }
+        if (existing == null) {
+            this.classes.put(obfuscated_type, mapped_type);
+            invalidateSignatures(obfuscated_type);
+            this.modified = true;
+        }
+    }
+
+    /**
+     * Clears the cached mapped signatures of all methods whose descriptors
+     * reference the given obfuscated type.
+     */
+    private void invalidateSignatures(String obfuscated_type) {
+        int id = this.symbols.get(obfuscated_type);
+        if (id == -1) {
+            return;
+        }
+        List<MethodMapping> dependents = this.signature_dependents.get(id);
+        if (dependents != null) {
+            for (int i = 0; i < dependents.size(); i++) {
+                dependents.get(i).map_sig = null;
+            }
+        }
+    }
+
+    /**
+     * Adds or removes the given method as a dependent of each type referenced
+     * by its descriptor.
+     */
+    private void trackSignature(MethodMapping mapping, boolean add) {
+        String desc = mapping.obfuscated_signature;
+        for (int i = desc.indexOf('L'); i != -1; i = desc.indexOf('L', i)) {
+            int end = desc.indexOf(';', i);
+            int id = this.symbols.intern(desc.substring(i + 1, end));
+            List<MethodMapping> dependents = this.signature_dependents.get(id);
+            if (add) {
+                if (dependents == null) {
+                    dependents = new ArrayList<>(4);
+                    this.signature_dependents.put(id, dependents);
+                }
+                if (dependents.isEmpty() || dependents.get(dependents.size() - 1) != mapping) {
+                    dependents.add(mapping);
+                }
+            } else if (dependents != null) {
+                dependents.remove(mapping);
+            }
+            i = end + 1;
+        }
+    }
+
+    @Override
+    public int typeCount() {
+        return this.classes.size();
+    }
+
+    @Override
+    public Set<String> getMappedTypes() {
+        return this.classes.keySet();
+    }
+
+    @Override
+    public Collection<String> getMappedTypeNames() {
+        return this.classes.values();
+    }
+
+    /**
+     * Gets the composite key of the given owner and member names, or -1 if
+     * either name is unknown.
+     */
+    private long lookupKey(String owner, String name) {
+        int owner_id = this.symbols.get(owner);
+        if (owner_id == -1) {
+            return MISSING;
+        }
+        int name_id = this.symbols.get(name);
+        if (name_id == -1) {
+            return MISSING;
+        }
+        return SymbolTable.pair(owner_id, name_id);
+    }
+
+    private long internKey(String owner, String name) {
+        return SymbolTable.pair(this.symbols.intern(owner), this.symbols.intern(name));
+    }
+
+    private String keyString(long key) {
+        return this.symbols.name(SymbolTable.first(key)) + "/" + this.symbols.name(SymbolTable.second(key));
+    }
+
+    @Override
+    public String mapField(String owner, String fld) {
+        long key = lookupKey(owner, fld);
+        if (key == MISSING) {
+            return null;
+        }
+        long mapped = this.fields.get(key, MISSING);
+        if (mapped == MISSING) {
+            return null;
+        }
+        return this.symbols.name(SymbolTable.second(mapped));
+    }
+
+    @Override
+    public String inverseField(String owner, String mapped) {
+        long key = lookupKey(owner, mapped);
+        if (key == MISSING) {
+            return null;
+        }
+        long inverse = this.inverse_fields.get(key, MISSING);
+        if (inverse == MISSING) {
+            return null;
+        }
+        return this.symbols.name(SymbolTable.second(inverse));
+    }
+
+    @Override
+    public void addFieldMapping(String owner, String old, String mapped) {
+        long key = internKey(owner, old);
+        long existing = this.fields.get(key, MISSING);
+        if (existing != MISSING) {
+            this.conflicts.record(MappingConflicts.Kind.FIELD, owner + "/" + old, this.symbols.name(SymbolTable.second(existing)), mapped);
+            return;
+        }
+        String mapped_owner = mapType(owner);
+        if (mapped_owner == null) {
+            throw new IllegalStateException("Tried to map field before type");
+        }
+        long mapped_key = internKey(mapped_owner, mapped);
+        long existing_obf = this.inverse_fields.get(mapped_key, MISSING);
+        if (existing_obf != MISSING) {
+            this.conflicts.record(MappingConflicts.Kind.FIELD_TARGET, mapped_owner + "/" + mapped, keyString(existing_obf), owner + "/" + old);
+            return;
+        }
+        this.fields.put(key, mapped_key, MISSING);
+        this.inverse_fields.put(mapped_key, key, MISSING);
+        getOwnerMembers(SymbolTable.first(key)).fields.add(this.symbols.name(SymbolTable.second(key)));
+        this.modified = true;
+    }
+
+    @Override
+    public int fieldCount() {
+        return this.fields.size();
+    }
+
+    @Override
+    public Set<String> getMappedFields() {
+        return new FieldKeyView(this.fields);
+    }
+
+    @Override
+    public Collection<String> getMappedFieldNames() {
+        return new FieldKeyView(this.inverse_fields);
+    }
+
+    /**
+     * Gets the key of the given method in the method indices, or -1 if any
+     * part of it is unknown.
+     */
+    private long lookupMethodKey(String owner, String method, String desc) {
+        long member = lookupKey(owner, method);
+        if (member == MISSING) {
+            return MISSING;
+        }
+        long member_id = this.member_ids.get(member, MISSING);
+        if (member_id == MISSING) {
+            return MISSING;
+        }
+        int desc_id = this.symbols.get(desc);
+        if (desc_id == -1) {
+            return MISSING;
+        }
+        return SymbolTable.pair((int) member_id, desc_id);
+    }
+
+    private long internMethodKey(String owner, String method, String desc) {
+        return internMethodKey(this.symbols.intern(owner), this.symbols.intern(method), this.symbols.intern(desc));
+    }
+
+    private long internMethodKey(int owner_id, int method_id, int desc_id) {
+        long member = SymbolTable.pair(owner_id, method_id);
+        long member_id = this.member_ids.get(member, MISSING);
+        if (member_id == MISSING) {
+            member_id = this.member_ids.size();
+            this.member_ids.put(member, member_id, MISSING);
+        }
+        return SymbolTable.pair((int) member_id, desc_id);
+    }
+
+    @Override
+    public MethodMapping getMethodMapping(String owner, String obfuscated_method, String obfuscated_signature) {
+        long key = lookupMethodKey(owner, obfuscated_method, obfuscated_signature);
+        if (key == MISSING) {
+            return null;
+        }
+        return this.method_index.get(key);
+    }
+
+    @Override
+    public String mapMethod(String owner, String method, String sig) {
+        MethodMapping mapping = getMethodMapping(owner, method, sig);
+        if (mapping == null || !mapping.isMapped()) {
+            return null;
+        }
+        return mapping.map_method;
+    }
+
+    @Override
+    public String inverseMethod(String owner, String method, String obf_desc) {
+        long key = lookupMethodKey(owner, method, obf_desc);
+        if (key == MISSING) {
+            return null;
+        }
+        MethodMapping mapping = this.inverse_index.get(key);
+        return mapping == null ? null : mapping.obf_method;
+    }
+
+    @Override
+    public void addMethodMapping(String obfuscated_owner, String obfuscated_method, String obfuscated_signature, String mapped_method) {
+        int owner_id = this.symbols.intern(obfuscated_owner);
+        int method_id = this.symbols.intern(obfuscated_method);
+        int desc_id = this.symbols.intern(obfuscated_signature);
+        long key = internMethodKey(owner_id, method_id, desc_id);
+        if (this.method_index.get(key) != null) {
+            return;
+        }
+        MethodMapping mapping = new MethodMapping(this, this.symbols.name(owner_id), this.symbols.name(method_id), this.symbols.name(desc_id),
+                mapped_method);
+        putMethod(key, mapping);
+        this.modified = true;
+    }
+
+    private void putMethod(long key, MethodMapping mapping) {
+        int owner_id = this.symbols.get(mapping.obf_cls);
+        long member = SymbolTable.pair(owner_id, this.symbols.get(mapping.obf_method));
+        List<MethodMapping> overloads = this.methods.get(member);
+        if (overloads == null) {
+            overloads = new ArrayList<>(2);
+            this.methods.put(member, overloads);
+        }
+        List<MethodMapping> owner_methods = getOwnerMembers(owner_id).methods;
+        MethodMapping previous = this.method_index.put(key, mapping);
+        if (previous != null) {
+            overloads.set(overloads.indexOf(previous), mapping);
+            owner_methods.set(owner_methods.indexOf(previous), mapping);
+            trackSignature(previous, false);
+            if (previous.isMapped()) {
+                long inverse_key = lookupMethodKey(mapTypeSafe(previous.obf_cls), previous.map_method, previous.obfuscated_signature);
+                if (inverse_key != MISSING && this.inverse_index.get(inverse_key) == previous) {
+                    this.inverse_index.remove(inverse_key);
+                }
+            }
+        } else {
+            overloads.add(mapping);
+            owner_methods.add(mapping);
+            this.method_count++;
+        }
+        trackSignature(mapping, true);
+        if (mapping.isMapped()) {
+            long inverse_key = internMethodKey(mapTypeSafe(mapping.obf_cls), mapping.map_method, mapping.obfuscated_signature);
+            if (this.inverse_index.get(inverse_key) == null) {
+                this.inverse_index.put(inverse_key, mapping);
+            }
+        }
+    }
+
+    @Override
+    public int methodCount() {
+        return this.method_count;
+    }
+
+    @Override
+    public Collection<MethodMapping> getMethods(String obfuscated_owner, String obfuscated_method) {
+        long key = lookupKey(obfuscated_owner, obfuscated_method);
+        List<MethodMapping> overloads = key == MISSING ? null : this.methods.get(key);
+        if (overloads == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(overloads);
+    }
+
+    @Override
+    public Set<String> getMappedMethods() {
+        return new MethodKeyView(this.methods);
+    }
+
+    @Override
+    public MappingConflicts getConflicts() {
+        return this.conflicts;
+    }
+
+    @Override
+    public void merge(MappingsSet other) {
+        final int initial_size = packagesCount() + typeCount() + methodCount() + fieldCount();
+        for (String pkg : other.getMappedPackages()) {
+            this.packages.forcePut(pkg, other.mapPackage(pkg));
+        }
+        for (String type : other.getMappedTypes()) {
+            putType(type, other.mapType(type));
+        }
+        if (other instanceof MutableMappingsSet) {
+            mergeFields((MutableMappingsSet) other);
+        } else {
+            for (String key : other.getMappedFields()) {
+                int split = key.lastIndexOf('/');
+                String owner = key.substring(0, split);
+                putField(internKey(owner, key.substring(split + 1)), internKey(other.mapTypeSafe(owner), other.mapField(key)));
+            }
+        }
+        for (String key : other.getMappedMethods()) {
+            for (MethodMapping mth : other.getMethods(key)) {
+                long mth_key = internMethodKey(mth.obf_cls, mth.obf_method, mth.obfuscated_signature);
+                putMethod(mth_key, new MethodMapping(this, mth));
+            }
+        }
+        int final_size = packagesCount() + typeCount() + methodCount() + fieldCount();
+        if (initial_size != final_size) {
+            this.modified = true;
+        }
+    }
+
+    private void mergeFields(MutableMappingsSet other) {
+        for (int i = 0; i < other.fields.capacity(); i++) {
+            long key = other.fields.keyAt(i);
+            if (key == MISSING) {
+                continue;
+            }
+            long mapped = other.fields.valueAt(i);
+            putField(internKey(other.symbols.name(SymbolTable.first(key)), other.symbols.name(SymbolTable.second(key))),
+                    internKey(other.symbols.name(SymbolTable.first(mapped)), other.symbols.name(SymbolTable.second(mapped))));
+        }
+    }
+
+    /**
+     * Sets the mapping of a field, replacing any existing mapping of either
+     * the obfuscated or mapped key.
+     */
+    private void putField(long key, long mapped) {
+        long previous = this.fields.put(key, mapped, MISSING);
+        if (previous != MISSING) {
+            this.inverse_fields.remove(previous, MISSING);
+        } else {
+            getOwnerMembers(SymbolTable.first(key)).fields.add(this.symbols.name(SymbolTable.second(key)));
+        }
+        long previous_obf = this.inverse_fields.put(mapped, key, MISSING);
+        if (previous_obf != MISSING && previous_obf != key && this.fields.remove(previous_obf, MISSING) != MISSING) {
+            int owner_id = SymbolTable.first(previous_obf);
+            OwnerMembers members = this.owner_members.get(owner_id);
+            members.fields.remove(this.symbols.name(SymbolTable.second(previous_obf)));
+            if (members.fields.isEmpty() && members.methods.isEmpty()) {
+                this.owner_members.remove(owner_id);
+            }
+        }
+    }
+
+    private OwnerMembers getOwnerMembers(int owner_id) {
+        OwnerMembers members = this.owner_members.get(owner_id);
+        if (members == null) {
+            members = new OwnerMembers();
+            this.owner_members.put(owner_id, members);
+        }
+        return members;
+    }
+
+    @Override
+    public Set<String> getMemberOwners() {
+        return new OwnerView();
+    }
+
+    @Override
+    public Collection<String> getOwnerFields(String owner) {
+        int owner_id = this.symbols.get(owner);
+        OwnerMembers members = owner_id == -1 ? null : this.owner_members.get(owner_id);
+        if (members == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(members.fields);
+    }
+
+    @Override
+    public Collection<MethodMapping> getOwnerMethods(String owner) {
+        int owner_id = this.symbols.get(owner);
+        OwnerMembers members = owner_id == -1 ? null : this.owner_members.get(owner_id);
+        if (members == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(members.methods);
+    }
+
+    /**
+     * Sets the mapping of a package, replacing any existing mapping of either
+     * name without reporting it.
+     */
+    void setPackageMapping(String obfuscated_package, String mapped_package) {
+        this.packages.forcePut(obfuscated_package, mapped_package);
+        this.modified = true;
+    }
+
+    /**
+     * Sets the mapping of a type, replacing any existing mapping of either
+     * name without reporting it.
+     */
+    void setTypeMapping(String obfuscated_type, String mapped_type) {
+        putType(obfuscated_type, mapped_type);
+        this.modified = true;
+    }
+
+    private void putType(String obfuscated_type, String mapped_type) {
+        String displaced = this.classes.inverse().get(mapped_type);
+        String previous = this.classes.forcePut(obfuscated_type, mapped_type);
+        if (!mapped_type.equals(previous)) {
+            invalidateSignatures(obfuscated_type);
+        }
+        if (displaced != null && !displaced.equals(obfuscated_type)) {
+            invalidateSignatures(displaced);
+        }
+    }
+
+    /**
+     * Sets the mapping of a field, replacing any existing mapping of either
+     * key without reporting it. Unlike {@link #addFieldMapping} the owner does
+     * not need to be mapped first.
+     */
+    void setFieldMapping(String owner, String fld, String mapped_owner, String mapped) {
+        putField(internKey(owner, fld), internKey(mapped_owner, mapped));
+        this.modified = true;
+    }
+
+    /**
+     * Sets the mapping of a method, replacing any existing mapping of the
+     * same overload without reporting it.
+     */
+    void setMethodMapping(String owner, String method, String desc, String mapped) {
+        int owner_id = this.symbols.intern(owner);
+        int method_id = this.symbols.intern(method);
+        int desc_id = this.symbols.intern(desc);
+        MethodMapping mapping = new MethodMapping(this, this.symbols.name(owner_id), this.symbols.name(method_id), this.symbols.name(desc_id),
+                mapped);
+        putMethod(internMethodKey(owner_id, method_id, desc_id), mapping);
+        this.modified = true;
+    }
+
+    @Override
+    public MappingsSet freeze() {
+        return new FrozenMappingsSet(this);
+    }
+
+    /**
+     * The mapped members of a single owner.
+     */
+    private static class OwnerMembers {
+
+        final List<String> fields = new ArrayList<>(4);
+        final List<MethodMapping> methods = new ArrayList<>(4);
+
+    }
+
+    /**
+     * A read only view of the names of the owners of mapped members. Iterators
+     * fail if a member owner is added while iterating.
+     */
+    private class OwnerView extends AbstractSet<String> {
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof String)) {
+                return false;
+            }
+            int owner_id = MutableMappingsSet.this.symbols.get((String) o);
+            return owner_id != -1 && MutableMappingsSet.this.owner_members.get(owner_id) != null;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            LongObjectMap<OwnerMembers> table = MutableMappingsSet.this.owner_members;
+            return new Iterator<String>() {
+
+                private final int expected_mod_count = table.modCount();
+                private int next = advance(0);
+
+                private int advance(int from) {
+                    while (from < table.capacity() && table.keyAt(from) == MISSING) {
+                        from++;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    if (table.modCount() != this.expected_mod_count) {
+                        throw new ConcurrentModificationException();
+                    }
+                    return this.next < table.capacity();
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    String owner = MutableMappingsSet.this.symbols.name((int) table.keyAt(this.next));
+                    this.next = advance(this.next + 1);
+                    return owner;
+                }
+
+            };
+        }
+
+        @Override
+        public int size() {
+            return MutableMappingsSet.this.owner_members.size();
+        }
+
+    }
+
+    /**
+     * A read only view of the composite keys of a member table formatted as
+     * `owner_name/member_name`. Iterators fail if a key is added to or removed
+     * from the table while iterating.
+     */
+    private abstract class KeyView extends AbstractSet<String> {
+
+        protected abstract int capacity();
+
+        /**
+         * Gets the composite key in the given slot of the table, or -1 if the
+         * slot is empty.
+         */
+        protected abstract long keyAt(int slot);
+
+        protected abstract boolean containsKey(long key);
+
+        protected abstract int modCount();
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof String)) {
+                return false;
+            }
+            String str = (String) o;
+            int split = str.lastIndexOf('/');
+            if (split == -1) {
+                return false;
+            }
+            long key = lookupKey(str.substring(0, split), str.substring(split + 1));
+            return key != MISSING && containsKey(key);
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+
+                private final int expected_mod_count = modCount();
+                private int next = advance(0);
+
+                private int advance(int from) {
+                    int capacity = capacity();
+                    while (from < capacity && keyAt(from) == MISSING) {
+                        from++;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    if (modCount() != this.expected_mod_count) {
+                        throw new ConcurrentModificationException();
+                    }
+                    return this.next < capacity();
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    String str = keyString(keyAt(this.next));
+                    this.next = advance(this.next + 1);
+                    return str;
+                }
+
+            };
+        }
+
+    }
+
+    /**
+     * A view of the keys of a field table.
+     */
+    private class FieldKeyView extends KeyView {
+
+        private final LongLongMap table;
+
+        FieldKeyView(LongLongMap table) {
+            this.table = table;
+        }
+
+        @Override
+        protected int capacity() {
+            return this.table.capacity();
+        }
+
+        @Override
+        protected long keyAt(int slot) {
+            return this.table.keyAt(slot);
+        }
+
+        @Override
+        protected boolean containsKey(long key) {
+            return this.table.containsKey(key);
+        }
+
+        @Override
+        protected int modCount() {
+            return this.table.modCount();
+        }
+
+        @Override
+        public int size() {
+            return this.table.size();
+        }
+
+    }
+
+    /**
+     * A view of the keys of a method table.
+     */
+    private class MethodKeyView extends KeyView {
+
+        private final LongObjectMap<List<MethodMapping>> table;
+
+        MethodKeyView(LongObjectMap<List<MethodMapping>> table) {
+            this.table = table;
+        }
+
+        @Override
+        protected int capacity() {
+            return this.table.capacity();
+        }
+
+        @Override
+        protected long keyAt(int slot) {
+            return this.table.keyAt(slot);
+        }
+
+        @Override
+        protected boolean containsKey(long key) {
+            return this.table.get(key) != null;
+        }
+
+        @Override
+        protected int modCount() {
+            return this.table.modCount();
+        }
+
+        @Override
+        public int size() {
+            return this.table.size();
+        }
+
+    }
+}
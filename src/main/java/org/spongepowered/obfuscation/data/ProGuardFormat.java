@@ -0,0 +1,276 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
+import org.spongepowered.obfuscation.util.PrefixMatcher;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The proguard mapping format, which maps from the mapped names to the
+ * obfuscated names and uses java source types rather than descriptors.
+ *
+ * <p>Method descriptors reference mapped class names, they are translated to
+ * obfuscated descriptors once all classes of the file have been read. Field
+ * types are not tracked by mappings sets, so only sets without fields can be
+ * written. Proguard has no package mappings.</p>
+ *
+ * <p>Proguard files are commonly named with a txt extension, these are only
+ * read as proguard when their content matches as the extension is too
+ * generic to claim.</p>
+ */
+public class ProGuardFormat extends TextMappingsFormat {
+
+    @Override
+    public String getName() {
+        return "proguard";
+    }
+
+    @Override
+    public List<String> getExtensions() {
+        return Collections.singletonList(".map");
+    }
+
+    @Override
+    public boolean matches(String head) {
+        String line = firstLine(head);
+        return !line.startsWith(" ") && line.endsWith(":") && line.contains(" -> ");
+    }
+
+    @Override
+    public boolean canWriteFields() {
+        return false;
+    }
+
+    @Override
+    protected void read(BufferedReader reader, MappingsSet mappings, PrefixMatcher excluded) throws IOException {
+        Map<String, String> obf_types = new HashMap<>();
+        List<String[]> methods = new ArrayList<>();
+        String owner = null;
+        boolean skip = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            int arrow = trimmed.indexOf(" -> ");
+            if (arrow == -1) {
+                throw new IllegalStateException("Malformed mappings line: " + line);
+            }
+            String left = trimmed.substring(0, arrow);
+            String right = trimmed.substring(arrow + 4);
+            if (!Character.isWhitespace(line.charAt(0))) {
+                if (!right.endsWith(":")) {
+                    throw new IllegalStateException("Malformed mappings line: " + line);
+                }
+                String mapped = left.replace('.', '/');
+                owner = right.substring(0, right.length() - 1).replace('.', '/');
+                obf_types.put(mapped, owner);
+                skip = excluded.matches(mapped);
+                if (!skip) {
+                    mappings.addTypeMapping(owner, mapped);
+                }
+                continue;
+            }
+            if (owner == null) {
+                throw new IllegalStateException("Member without a class: " + line);
+            }
+            if (skip) {
+                continue;
+            }
+            int args = left.indexOf('(');
+            if (args == -1) {
+                mappings.addFieldMapping(owner, right, left.substring(left.indexOf(' ') + 1));
+                continue;
+            }
+            // strip the line numbers of the method
+            int end = left.indexOf(')');
+            String sig = left.substring(0, end + 1);
+            int type_start = 0;
+            while (type_start < sig.length() && (Character.isDigit(sig.charAt(type_start)) || sig.charAt(type_start) == ':')) {
+                type_start++;
+            }
+            sig = sig.substring(type_start);
+            int space = sig.indexOf(' ');
+            String name = sig.substring(space + 1, sig.indexOf('('));
+            if (name.indexOf('.') != -1) {
+                // inlined from another class
+                continue;
+            }
+            methods.add(new String[] {owner, right, toDescriptor(sig.substring(0, space), sig.substring(sig.indexOf('(') + 1, sig.length() - 1)), name});
+        }
+        for (String[] mth : methods) {
+            String desc = MethodMapping.mapSig(mth[2], (type) -> {
+                String obf = obf_types.get(type);
+                return obf == null ? type : obf;
+            });
+            mappings.addMethodMapping(mth[0], mth[1], desc, mth[3]);
+        }
+    }
+
+    private static String toDescriptor(String ret, String args) {
+        StringBuilder desc = new StringBuilder("(");
+        if (!args.isEmpty()) {
+            for (String arg : args.split(",")) {
+                appendDescriptor(desc, arg.trim());
+            }
+        }
+        desc.append(')');
+        appendDescriptor(desc, ret);
+        return desc.toString();
+    }
+
+    private static void appendDescriptor(StringBuilder desc, String type) {
+        while (type.endsWith("[]")) {
+            desc.append('[');
+            type = type.substring(0, type.length() - 2);
+        }
+        switch (type) {
+            case "void":
+                desc.append('V');
+                break;
+            case "boolean":
+                desc.append('Z');
+                break;
+            case "byte":
+                desc.append('B');
+                break;
+            case "char":
+                desc.append('C');
+                break;
+            case "short":
+                desc.append('S');
+                break;
+            case "int":
+                desc.append('I');
+                break;
+            case "long":
+                desc.append('J');
+                break;
+            case "float":
+                desc.append('F');
+                break;
+            case "double":
+                desc.append('D');
+                break;
+            default:
+                desc.append('L').append(type.replace('.', '/')).append(';');
+                break;
+        }
+    }
+
+    @Override
+    protected void write(Writer writer, MappingsSet mappings) throws IOException {
+        for (String owner : getOwners(mappings)) {
+            String mapped_owner = mappings.mapType(owner);
+            if (mapped_owner == null) {
+                recordUnmappedOwner(mappings, owner);
+                continue;
+            }
+            writer.write(mapped_owner.replace('/', '.'));
+            writer.write(" -> ");
+            writer.write(owner.replace('/', '.'));
+            writer.write(":\n");
+            for (MethodMapping mth : getMethods(mappings, owner)) {
+                String sig = mth.getMappedSignature();
+                int ret = sig.indexOf(')');
+                writer.write("    ");
+                writeType(writer, sig, ret + 1);
+                writer.write(' ');
+                writer.write(getMapped(mth));
+                writer.write('(');
+                int pos = 1;
+                while (pos < ret) {
+                    if (pos > 1) {
+                        writer.write(',');
+                    }
+                    pos = writeType(writer, sig, pos);
+                }
+                writer.write(") -> ");
+                writer.write(mth.getObf());
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Writes the type of the descriptor at the given position as a java
+     * source type and returns the position following it.
+     */
+    private static int writeType(Writer writer, String desc, int pos) throws IOException {
+        int dimensions = 0;
+        while (desc.charAt(pos) == '[') {
+            dimensions++;
+            pos++;
+        }
+        char c = desc.charAt(pos);
+        int next = pos + 1;
+        if (c == 'L') {
+            next = desc.indexOf(';', pos) + 1;
+            writer.write(desc.substring(pos + 1, next - 1).replace('/', '.'));
+        } else {
+            writer.write(primitive(c));
+        }
+        for (int i = 0; i < dimensions; i++) {
+            writer.write("[]");
+        }
+        return next;
+    }
+
+    private static String primitive(char c) {
+        switch (c) {
+            case 'V':
+                return "void";
+            case 'Z':
+                return "boolean";
+            case 'B':
+                return "byte";
+            case 'C':
+                return "char";
+            case 'S':
+                return "short";
+            case 'I':
+                return "int";
+            case 'J':
+                return "long";
+            case 'F':
+                return "float";
+            case 'D':
+                return "double";
+            default:
+                throw new IllegalStateException("Unknown type " + c);
+        }
+    }
+
+}
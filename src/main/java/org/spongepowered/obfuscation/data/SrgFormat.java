@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import org.spongepowered.obfuscation.config.ObfConfig;
+import org.spongepowered.obfuscation.config.ObfConfigManager;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The srg format of PK, CL, FD and MD lines.
+ *
+ * <p>Files are memory mapped and large files are parsed on several threads
+ * as configured by the load threads setting.</p>
+ */
+public class SrgFormat implements MappingsFormat {
+
+    @Override
+    public String getName() {
+        return "srg";
+    }
+
+    @Override
+    public List<String> getExtensions() {
+        return Collections.singletonList(".srg");
+    }
+
+    @Override
+    public boolean matches(String head) {
+        String line = TextMappingsFormat.firstLine(head);
+        return line.startsWith("PK: ") || line.startsWith("CL: ") || line.startsWith("FD: ") || line.startsWith("MD: ");
+    }
+
+    @Override
+    public MappingsSet read(Path file, MappingConflicts conflicts) throws IOException {
+        MappingsSet mappings = new MutableMappingsSet(conflicts);
+        ObfConfig config = ObfConfigManager.getConfig();
+        int threads = config.load_threads > 0 ? config.load_threads : Runtime.getRuntime().availableProcessors();
+        SrgReader.read(file, mappings, ObfConfigManager.getExcludedPackages(), threads);
+        return mappings;
+    }
+
+    @Override
+    public void write(Path file, MappingsSet mappings) throws IOException {
+        write(file, mappings, 0);
+    }
+
+    /**
+     * Writes the given mappings to the given file. Names generated for
+     * methods whose mapped names collide are numbered from the given next
+     * member index.
+     */
+    public void write(Path file, MappingsSet mappings, int next_member) throws IOException {
+        try (Writer writer = MappingsIO.newWriter(file, StandardCharsets.UTF_8)) {
+            SrgWriter.write(writer, mappings, next_member);
+        }
+    }
+
+}
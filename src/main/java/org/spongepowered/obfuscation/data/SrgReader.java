@@ -0,0 +1,285 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import org.spongepowered.obfuscation.util.PrefixMatcher;
+import org.spongepowered.obfuscation.util.SymbolTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Reads SRG files by tokenizing the bytes of the memory mapped file directly.
+ *
+ * <p>Tokens are interned as they are read so that repeated names share a
+ * single string. Files larger than {@link #PARALLEL_THRESHOLD} bytes are split
+ * into line aligned chunks which are tokenized concurrently, the entries of
+ * all chunks are then added to the mappings in file order so that the result
+ * is the same as reading the file on a single thread.</p>
+ */
+final class SrgReader {
+
+    static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    private static final byte PACKAGE = 0;
+    private static final byte CLASS = 1;
+    private static final byte FIELD = 2;
+    private static final byte METHOD = 3;
+
+    /**
+     * Reads the given srg file into the given mappings, skipping types and
+     * members whose mapped name is matched by the given excluded packages.
+     */
+    static void read(Path path, MappingsSet mappings, PrefixMatcher excluded, int threads) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Mappings file is too large: " + path.toString());
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int chunks = data.limit() < PARALLEL_THRESHOLD ? 1 : Math.max(1, threads);
+        int[] bounds = split(data, chunks);
+        List<Entries> parsed = new ArrayList<>(chunks);
+        if (chunks == 1) {
+            parsed.add(parse(data, 0, data.limit(), excluded));
+        } else {
+            List<CompletableFuture<Entries>> tasks = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                int start = bounds[i];
+                int end = bounds[i + 1];
+                // each task reads through its own view as buffer access is
+                // not thread safe
+                ByteBuffer view = data.duplicate();
+                tasks.add(CompletableFuture.supplyAsync(() -> parse(view, start, end, excluded)));
+            }
+            try {
+                for (CompletableFuture<Entries> task : tasks) {
+                    parsed.add(task.join());
+                }
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        for (Entries entries : parsed) {
+            entries.apply(mappings);
+        }
+    }
+
+    /**
+     * Splits the buffer into the given number of ranges ending at line
+     * breaks.
+     */
+    private static int[] split(ByteBuffer data, int chunks) {
+        int[] bounds = new int[chunks + 1];
+        int size = data.limit();
+        for (int i = 1; i < chunks; i++) {
+            int pos = Math.max(bounds[i - 1], (int) ((long) size * i / chunks));
+            while (pos < size && data.get(pos) != '\n') {
+                pos++;
+            }
+            bounds[i] = Math.min(size, pos + 1);
+        }
+        bounds[chunks] = size;
+        return bounds;
+    }
+
+    private static Entries parse(ByteBuffer data, int start, int end, PrefixMatcher excluded) {
+        Entries entries = new Entries();
+        SymbolTable symbols = new SymbolTable(1024);
+        int[] tokens = new int[6];
+        int pos = start;
+        while (pos < end) {
+            int line_end = pos;
+            while (line_end < end && data.get(line_end) != '\n') {
+                line_end++;
+            }
+            int next = line_end + 1;
+            if (line_end > pos && data.get(line_end - 1) == '\r') {
+                line_end--;
+            }
+            byte kind = kind(data, pos, line_end);
+            if (kind != -1) {
+                int count = tokenize(data, pos + 4, line_end, tokens);
+                int required = kind == METHOD ? 3 : 2;
+                if (count < required) {
+                    throw new IllegalStateException("Malformed mappings line: " + decode(data, pos, line_end));
+                }
+                int mapped = kind == METHOD ? 4 : 2;
+                if (kind == PACKAGE || !excluded.matches(data, tokens[mapped], tokens[mapped + 1])) {
+                    add(entries, kind, data, tokens, symbols);
+                }
+            }
+            pos = next;
+        }
+        return entries;
+    }
+
+    private static byte kind(ByteBuffer data, int start, int end) {
+        if (end - start < 4 || data.get(start + 2) != ':' || data.get(start + 3) != ' ') {
+            return -1;
+        }
+        byte a = data.get(start);
+        byte b = data.get(start + 1);
+        if (a == 'P' && b == 'K') {
+            return PACKAGE;
+        } else if (a == 'C' && b == 'L') {
+            return CLASS;
+        } else if (a == 'F' && b == 'D') {
+            return FIELD;
+        } else if (a == 'M' && b == 'D') {
+            return METHOD;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the start and end of up to three space separated tokens in the
+     * given range and returns the number found.
+     */
+    private static int tokenize(ByteBuffer data, int start, int end, int[] tokens) {
+        int count = 0;
+        int pos = start;
+        while (count < 3) {
+            while (pos < end && data.get(pos) == ' ') {
+                pos++;
+            }
+            if (pos == end) {
+                break;
+            }
+            tokens[count * 2] = pos;
+            while (pos < end && data.get(pos) != ' ') {
+                pos++;
+            }
+            tokens[count * 2 + 1] = pos;
+            count++;
+        }
+        return count;
+    }
+
+    private static int lastSlash(ByteBuffer data, int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (data.get(i) == '/') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void add(Entries entries, byte kind, ByteBuffer data, int[] tokens, SymbolTable symbols) {
+        if (kind == PACKAGE || kind == CLASS) {
+            entries.add(kind, intern(symbols, data, tokens[0], tokens[1]), intern(symbols, data, tokens[2], tokens[3]), null, null);
+            return;
+        }
+        int split = lastSlash(data, tokens[0], tokens[1]);
+        int mapped_token = kind == METHOD ? 4 : 2;
+        int mapped_split = lastSlash(data, tokens[mapped_token], tokens[mapped_token + 1]);
+        if (split == -1 || mapped_split == -1) {
+            throw new IllegalStateException("Malformed mappings line: " + decode(data, tokens[0], tokens[mapped_token + 1]));
+        }
+        String owner = intern(symbols, data, tokens[0], split);
+        String name = intern(symbols, data, split + 1, tokens[1]);
+        String mapped = intern(symbols, data, mapped_split + 1, tokens[mapped_token + 1]);
+        if (kind == FIELD) {
+            entries.add(kind, owner, name, mapped, null);
+        } else {
+            entries.add(kind, owner, name, intern(symbols, data, tokens[2], tokens[3]), mapped);
+        }
+    }
+
+    private static String intern(SymbolTable symbols, ByteBuffer data, int start, int end) {
+        return symbols.name(symbols.intern(data, start, end));
+    }
+
+    private static String decode(ByteBuffer data, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = data.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The entries read from a chunk of the file in the order they were read.
+     */
+    private static class Entries {
+
+        private byte[] kinds = new byte[256];
+        private String[] tokens = new String[1024];
+        private int size;
+
+        void add(byte kind, String a, String b, String c, String d) {
+            if (this.size == this.kinds.length) {
+                this.kinds = Arrays.copyOf(this.kinds, this.size * 2);
+                this.tokens = Arrays.copyOf(this.tokens, this.size * 8);
+            }
+            this.kinds[this.size] = kind;
+            int index = this.size * 4;
+            this.tokens[index] = a;
+            this.tokens[index + 1] = b;
+            this.tokens[index + 2] = c;
+            this.tokens[index + 3] = d;
+            this.size++;
+        }
+
+        void apply(MappingsSet mappings) {
+            String[] tokens = this.tokens;
+            for (int i = 0; i < this.size; i++) {
+                int index = i * 4;
+                switch (this.kinds[i]) {
+                    case PACKAGE:
+                        mappings.addPackageMapping(tokens[index], tokens[index + 1]);
+                        break;
+                    case CLASS:
+                        mappings.addTypeMapping(tokens[index], tokens[index + 1]);
+                        break;
+                    case FIELD:
+                        mappings.addFieldMapping(tokens[index], tokens[index + 1], tokens[index + 2]);
+                        break;
+                    default:
+                        mappings.addMethodMapping(tokens[index], tokens[index + 1], tokens[index + 2], tokens[index + 3]);
+                        break;
+                }
+            }
+        }
+
+    }
+
+    private SrgReader() {
+    }
+
+}
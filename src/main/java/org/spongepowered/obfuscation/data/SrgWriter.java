@@ -0,0 +1,161 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Writes mappings in the srg format.
+ *
+ * <p>Types and the owners of members are sorted up front in parallel, the
+ * members of each owner are then written owner by owner. Lines are written
+ * to the output piece by piece rather than being built as strings.</p>
+ */
+final class SrgWriter {
+
+    private static final Comparator<MethodMapping> METHOD_ORDER = Comparator.comparing(MethodMapping::getObf);
+
+    /**
+     * Writes the given mappings to the given writer. Names generated for
+     * methods whose mapped names collide are numbered from the given next
+     * member index.
+     */
+    static void write(Writer writer, MappingsSet mappings, int next_member) throws IOException {
+        String[] packages = mappings.getMappedPackages().toArray(new String[0]);
+        Arrays.sort(packages);
+        for (String pkg : packages) {
+            writer.write("PK: ");
+            writer.write(pkg);
+            writer.write(' ');
+            writer.write(mappings.mapPackage(pkg));
+            writer.write('\n');
+        }
+        String[] types = mappings.getMappedTypes().toArray(new String[0]);
+        Arrays.parallelSort(types);
+        for (String type : types) {
+            writer.write("CL: ");
+            writer.write(type);
+            writer.write(' ');
+            writer.write(mappings.mapType(type));
+            writer.write('\n');
+        }
+
+        String[] owners = mappings.getMemberOwners().toArray(new String[0]);
+        Arrays.parallelSort(owners, SrgWriter::compareOwners);
+        for (String owner : owners) {
+            String mapped_owner = mappings.mapType(owner);
+            String[] fields = mappings.getOwnerFields(owner).toArray(new String[0]);
+            if (mapped_owner == null) {
+                for (String fld : fields) {
+                    mappings.getConflicts().record(MappingConflicts.Kind.UNMAPPED_OWNER, owner + "/" + fld, null, mappings.mapField(owner, fld));
+                }
+                continue;
+            }
+            Arrays.sort(fields);
+            for (String fld : fields) {
+                writer.write("FD: ");
+                writer.write(owner);
+                writer.write('/');
+                writer.write(fld);
+                writer.write(' ');
+                writer.write(mapped_owner);
+                writer.write('/');
+                writer.write(mappings.mapField(owner, fld));
+                writer.write('\n');
+            }
+        }
+
+        // mapped keys include the mapped owner so collisions can only occur
+        // between methods of the same owner
+        Set<String> seen = new HashSet<>();
+        for (String owner : owners) {
+            String mapped_owner = mappings.mapType(owner);
+            if (mapped_owner == null) {
+                continue;
+            }
+            MethodMapping[] methods = mappings.getOwnerMethods(owner).toArray(new MethodMapping[0]);
+            // stable so that overloads keep their order
+            Arrays.sort(methods, METHOD_ORDER);
+            seen.clear();
+            for (MethodMapping overload : methods) {
+                if (!overload.isMapped() && overload.getObf().startsWith("<")) {
+                    overload.update(overload.getObf());
+                }
+                String mapped_sig = overload.getMappedSignature();
+                String mapped = String.valueOf(overload.getMapped());
+                if (!seen.add(mapped + " " + mapped_sig)) {
+                    mapped = "mth_" + next_member + "_" + overload.getObf();
+                    next_member++;
+                    seen.add(mapped + " " + mapped_sig);
+                }
+                writer.write("MD: ");
+                writer.write(owner);
+                writer.write('/');
+                writer.write(overload.getObf());
+                writer.write(' ');
+                writer.write(overload.getObfSignature());
+                writer.write(' ');
+                writer.write(mapped_owner);
+                writer.write('/');
+                writer.write(mapped);
+                writer.write(' ');
+                writer.write(mapped_sig);
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Orders owner names as their member keys `owner_name/member_name` would
+     * be ordered.
+     */
+    private static int compareOwners(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(i);
+            if (ca != cb) {
+                return ca - cb;
+            }
+        }
+        char next_a = a.length() > length ? a.charAt(length) : '/';
+        char next_b = b.length() > length ? b.charAt(length) : '/';
+        if (next_a != next_b) {
+            return next_a - next_b;
+        }
+        return a.length() - b.length();
+    }
+
+    private SrgWriter() {
+    }
+
+}
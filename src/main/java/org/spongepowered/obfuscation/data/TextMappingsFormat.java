@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import org.spongepowered.obfuscation.config.ObfConfigManager;
+import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
+import org.spongepowered.obfuscation.util.PrefixMatcher;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A base for line based text formats which are read line by line into a
+ * mutable set and written owner by owner in a single pass.
+ */
+abstract class TextMappingsFormat implements MappingsFormat {
+
+    private static final Comparator<MethodMapping> METHOD_ORDER = Comparator.comparing(MethodMapping::getObf)
+            .thenComparing(MethodMapping::getObfSignature);
+
+    /**
+     * Reads the lines of the given reader into the given set. Entries whose
+     * mapped owner is matched by the given excluded packages are skipped.
+     */
+    protected abstract void read(BufferedReader reader, MappingsSet mappings, PrefixMatcher excluded) throws IOException;
+
+    /**
+     * Writes the given set to the given writer.
+     */
+    protected abstract void write(Writer writer, MappingsSet mappings) throws IOException;
+
+    @Override
+    public MappingsSet read(Path file, MappingConflicts conflicts) throws IOException {
+        MappingsSet mappings = new MutableMappingsSet(conflicts);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            read(reader, mappings, ObfConfigManager.getExcludedPackages());
+        }
+        return mappings;
+    }
+
+    @Override
+    public void write(Path file, MappingsSet mappings) throws IOException {
+        if (!canWriteFields() && mappings.fieldCount() > 0) {
+            throw new IllegalArgumentException("Cannot write field mappings as " + getName() + ", field types are not tracked: " + file.toString());
+        }
+        try (Writer writer = MappingsIO.newWriter(file, StandardCharsets.UTF_8)) {
+            write(writer, mappings);
+        }
+    }
+
+    /**
+     * Gets the first line of the given head which is neither blank nor a
+     * comment starting with {@code #}.
+     */
+    protected static String firstLine(String head) {
+        int pos = 0;
+        while (pos < head.length()) {
+            int end = head.indexOf('\n', pos);
+            if (end == -1) {
+                end = head.length();
+            }
+            String line = head.substring(pos, end);
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            if (!line.trim().isEmpty() && !line.startsWith("#")) {
+                return line;
+            }
+            pos = end + 1;
+        }
+        return "";
+    }
+
+    /**
+     * Gets the mapped packages of the given set sorted by name.
+     */
+    protected static String[] getSortedPackages(MappingsSet mappings) {
+        String[] packages = mappings.getMappedPackages().toArray(new String[0]);
+        Arrays.sort(packages);
+        return packages;
+    }
+
+    /**
+     * Gets the mapped types and the owners of mapped members of the given
+     * set, sorted by name.
+     */
+    protected static Set<String> getOwners(MappingsSet mappings) {
+        Set<String> owners = new TreeSet<>(mappings.getMappedTypes());
+        owners.addAll(mappings.getMemberOwners());
+        return owners;
+    }
+
+    /**
+     * Gets the mapped fields of the given owner sorted by name.
+     */
+    protected static String[] getFields(MappingsSet mappings, String owner) {
+        String[] fields = mappings.getOwnerFields(owner).toArray(new String[0]);
+        Arrays.sort(fields);
+        return fields;
+    }
+
+    /**
+     * Gets the mapped methods of the given owner sorted by name and
+     * descriptor.
+     */
+    protected static MethodMapping[] getMethods(MappingsSet mappings, String owner) {
+        MethodMapping[] methods = mappings.getOwnerMethods(owner).toArray(new MethodMapping[0]);
+        Arrays.sort(methods, METHOD_ORDER);
+        return methods;
+    }
+
+    /**
+     * Gets the mapped name of the given method, methods without a mapping
+     * keep their obfuscated name.
+     */
+    protected static String getMapped(MethodMapping method) {
+        return method.isMapped() ? method.getMapped() : method.getObf();
+    }
+
+    /**
+     * Records the fields of an owner which has no mapping and so cannot be
+     * written.
+     */
+    protected static void recordUnmappedOwner(MappingsSet mappings, String owner) {
+        for (String fld : mappings.getOwnerFields(owner)) {
+            mappings.getConflicts().record(MappingConflicts.Kind.UNMAPPED_OWNER, owner + "/" + fld, null, mappings.mapField(owner, fld));
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
+import org.spongepowered.obfuscation.util.PrefixMatcher;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The tiny v2 format. The first namespace of a file is read as the
+ * obfuscated names and the second as the mapped names, further namespaces,
+ * comments and parameters are ignored.
+ *
+ * <p>Field descriptors are not tracked by mappings sets, so only sets without
+ * fields can be written. Tiny has no package mappings.</p>
+ */
+public class TinyV2Format extends TextMappingsFormat {
+
+    private static final String HEADER = "tiny\t2\t";
+
+    @Override
+    public String getName() {
+        return "tiny";
+    }
+
+    @Override
+    public List<String> getExtensions() {
+        return Collections.singletonList(".tiny");
+    }
+
+    @Override
+    public boolean matches(String head) {
+        return head.startsWith(HEADER);
+    }
+
+    @Override
+    public boolean canWriteFields() {
+        return false;
+    }
+
+    @Override
+    protected void read(BufferedReader reader, MappingsSet mappings, PrefixMatcher excluded) throws IOException {
+        String header = reader.readLine();
+        if (header == null || !header.startsWith(HEADER) || header.split("\t").length < 5) {
+            throw new IllegalStateException("Not a tiny v2 file");
+        }
+        boolean escaped = false;
+        String owner = null;
+        boolean skip = true;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("\t\t")) {
+                // parameters, locals and member comments
+                continue;
+            }
+            String[] parts = line.split("\t", -1);
+            if (!line.startsWith("\t")) {
+                if (!parts[0].equals("c") || parts.length < 3) {
+                    throw new IllegalStateException("Malformed mappings line: " + line);
+                }
+                owner = unescape(parts[1], escaped);
+                String mapped = unescape(parts[2], escaped);
+                skip = mapped.isEmpty() || excluded.matches(mapped);
+                if (!skip) {
+                    mappings.addTypeMapping(owner, mapped);
+                }
+                continue;
+            }
+            if (owner == null) {
+                // file properties
+                if (parts[1].equals("escaped-names")) {
+                    escaped = true;
+                }
+                continue;
+            }
+            if (skip || parts[1].equals("c")) {
+                continue;
+            }
+            if (parts.length < 5) {
+                throw new IllegalStateException("Malformed mappings line: " + line);
+            }
+            String name = unescape(parts[3], escaped);
+            String mapped = unescape(parts[4], escaped);
+            if (mapped.isEmpty()) {
+                continue;
+            }
+            if (parts[1].equals("f")) {
+                mappings.addFieldMapping(owner, name, mapped);
+            } else if (parts[1].equals("m")) {
+                mappings.addMethodMapping(owner, name, unescape(parts[2], escaped), mapped);
+            }
+        }
+    }
+
+    private static String unescape(String name, boolean escaped) {
+        if (!escaped || name.indexOf('\\') == -1) {
+            return name;
+        }
+        StringBuilder result = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '\\' || i + 1 == name.length()) {
+                result.append(c);
+                continue;
+            }
+            char next = name.charAt(++i);
+            switch (next) {
+                case 'n':
+                    result.append('\n');
+                    break;
+                case 't':
+                    result.append('\t');
+                    break;
+                case 'r':
+                    result.append('\r');
+                    break;
+                case '0':
+                    result.append('\0');
+                    break;
+                default:
+                    result.append(next);
+                    break;
+            }
+        }
+        return result.toString();
+    }
+
+    @Override
+    protected void write(Writer writer, MappingsSet mappings) throws IOException {
+        writer.write(HEADER);
+        writer.write("0\tofficial\tnamed\n");
+        for (String owner : getOwners(mappings)) {
+            String mapped_owner = mappings.mapType(owner);
+            if (mapped_owner == null) {
+                recordUnmappedOwner(mappings, owner);
+                continue;
+            }
+            writer.write("c\t");
+            writer.write(owner);
+            writer.write('\t');
+            writer.write(mapped_owner);
+            writer.write('\n');
+            for (MethodMapping mth : getMethods(mappings, owner)) {
+                writer.write("\tm\t");
+                writer.write(mth.getObfSignature());
+                writer.write('\t');
+                writer.write(mth.getObf());
+                writer.write('\t');
+                writer.write(getMapped(mth));
+                writer.write('\n');
+            }
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
+import org.spongepowered.obfuscation.util.PrefixMatcher;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The tsrg format, where each class line is followed by the tab indented
+ * fields and methods of the class. Package lines have names ending with a
+ * slash.
+ */
+public class TsrgFormat extends TextMappingsFormat {
+
+    @Override
+    public String getName() {
+        return "tsrg";
+    }
+
+    @Override
+    public List<String> getExtensions() {
+        return Collections.singletonList(".tsrg");
+    }
+
+    @Override
+    public boolean matches(String head) {
+        String line = firstLine(head);
+        if (line.startsWith("\t") || line.startsWith("tsrg2 ") || line.contains(" -> ")) {
+            return false;
+        }
+        String[] parts = line.trim().split(" ");
+        return parts.length == 2 && !parts[0].endsWith(":");
+    }
+
+    @Override
+    protected void read(BufferedReader reader, MappingsSet mappings, PrefixMatcher excluded) throws IOException {
+        String owner = null;
+        boolean skip = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            boolean member = line.startsWith("\t") || line.startsWith(" ");
+            String[] parts = line.trim().split(" ");
+            if (!member) {
+                if (parts.length != 2) {
+                    throw new IllegalStateException("Malformed mappings line: " + line);
+                }
+                if (parts[0].endsWith("/")) {
+                    mappings.addPackageMapping(stripSlash(parts[0]), stripSlash(parts[1]));
+                    owner = null;
+                    continue;
+                }
+                owner = parts[0];
+                skip = excluded.matches(parts[1]);
+                if (!skip) {
+                    mappings.addTypeMapping(parts[0], parts[1]);
+                }
+            } else if (owner == null) {
+                throw new IllegalStateException("Member without a class: " + line);
+            } else if (skip) {
+                continue;
+            } else if (parts.length == 2) {
+                mappings.addFieldMapping(owner, parts[0], parts[1]);
+            } else if (parts.length == 3) {
+                mappings.addMethodMapping(owner, parts[0], parts[1], parts[2]);
+            } else {
+                throw new IllegalStateException("Malformed mappings line: " + line);
+            }
+        }
+    }
+
+    private static String stripSlash(String pkg) {
+        return pkg.endsWith("/") ? pkg.substring(0, pkg.length() - 1) : pkg;
+    }
+
+    @Override
+    protected void write(Writer writer, MappingsSet mappings) throws IOException {
+        for (String pkg : getSortedPackages(mappings)) {
+            writer.write(pkg);
+            writer.write("/ ");
+            writer.write(mappings.mapPackage(pkg));
+            writer.write("/\n");
+        }
+        for (String owner : getOwners(mappings)) {
+            String mapped_owner = mappings.mapType(owner);
+            if (mapped_owner == null) {
+                recordUnmappedOwner(mappings, owner);
+                continue;
+            }
+            writer.write(owner);
+            writer.write(' ');
+            writer.write(mapped_owner);
+            writer.write('\n');
+            for (String fld : getFields(mappings, owner)) {
+                writer.write('\t');
+                writer.write(fld);
+                writer.write(' ');
+                writer.write(mappings.mapField(owner, fld));
+                writer.write('\n');
+            }
+            for (MethodMapping mth : getMethods(mappings, owner)) {
+                writer.write('\t');
+                writer.write(mth.getObf());
+                writer.write(' ');
+                writer.write(mth.getObfSignature());
+                writer.write(' ');
+                writer.write(getMapped(mth));
+                writer.write('\n');
+            }
+        }
+    }
+
+}
@@ -43,10 +43,12 @@ import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.ast.type.TypeVisitor;
 import org.spongepowered.despector.util.TypeHelper;
+import org.spongepowered.obfuscation.config.ObfConfigManager;
 import org.spongepowered.obfuscation.merge.MergeEngine;
 import org.spongepowered.obfuscation.merge.data.FieldMatchEntry;
 import org.spongepowered.obfuscation.merge.data.MethodGroup;
 import org.spongepowered.obfuscation.merge.data.MethodMatchEntry;
+import org.spongepowered.obfuscation.util.PrefixMatcher;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -56,6 +58,7 @@ public class UnknownMemberMapper implements TypeVisitor {
     private final MappingsSet mappings;
     private final MergeEngine engine;
     private final MappingsSet previous;
+    private final PrefixMatcher excluded = ObfConfigManager.getExcludedPackages();
 
     private final Map<MethodEntry, MethodEntry> synthetic_overloads = new HashMap<>();
 
@@ -178,9 +181,17 @@ public class UnknownMemberMapper implements TypeVisitor {
         return mapped;
     }
 
+    /**
+     * Gets if the given owner is in one of the excluded packages, matched by
+     * its mapped name as when mappings are loaded.
+     */
+    private boolean isExcluded(String owner) {
+        return this.excluded.matches(this.mappings.mapTypeSafe(owner));
+    }
+
     @Override
     public void visitMethod(MethodEntry mth) {
-        if (mth.getName().equals("<init>") || mth.getName().equals("<clinit>")) {
+        if (mth.getName().equals("<init>") || mth.getName().equals("<clinit>") || isExcluded(mth.getOwnerName())) {
             return;
         }
         String mapped = getMapped(mth);
@@ -195,6 +206,9 @@ public class UnknownMemberMapper implements TypeVisitor {
 
     @Override
     public void visitField(FieldEntry fld) {
+        if (isExcluded(fld.getOwnerName())) {
+            return;
+        }
         String mapped = this.mappings.mapField(fld.getOwnerName(), fld.getName());
         if (mapped == null) {
             FieldMatchEntry match = this.engine.getFieldMatchInverse(fld);
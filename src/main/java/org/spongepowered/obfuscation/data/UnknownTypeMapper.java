@@ -33,13 +33,16 @@ import org.spongepowered.despector.ast.type.InterfaceEntry;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.ast.type.TypeVisitor;
+import org.spongepowered.obfuscation.config.ObfConfigManager;
 import org.spongepowered.obfuscation.merge.MergeEngine;
+import org.spongepowered.obfuscation.util.PrefixMatcher;
 
 public class UnknownTypeMapper implements TypeVisitor {
 
     private final MappingsSet mappings;
     private final UnknownPackageDiscovery packages;
     private final MappingsSet previous;
+    private final PrefixMatcher excluded = ObfConfigManager.getExcludedPackages();
 
     private int next_type = 0;
 
@@ -52,6 +55,9 @@ public class UnknownTypeMapper implements TypeVisitor {
 
     private String mapName(TypeEntry typeentry) {
         String type = typeentry.getName();
+        if (this.excluded.matches(this.mappings.mapTypeSafe(type))) {
+            return type;
+        }
         String mapped = this.mappings.mapType(type);
         String mapped_child = null;
         if (mapped != null && type.lastIndexOf('$') != -1) {
@@ -0,0 +1,258 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The result of comparing generated mappings against a known good set of
+ * mappings.
+ */
+public class ValidationReport {
+
+    /**
+     * The kind of member a mismatch is for.
+     */
+    public static enum Kind {
+        TYPE,
+        FIELD,
+        METHOD,
+    }
+
+    /**
+     * The category of a mismatch.
+     */
+    public static enum Category {
+        /**
+         * Mapped to a different name than the validation mappings.
+         */
+        WRONG,
+        /**
+         * Mapped by the validation mappings but not by the generated
+         * mappings.
+         */
+        MISSING,
+        /**
+         * Mapped by the generated mappings but not by the validation
+         * mappings.
+         */
+        EXTRA,
+    }
+
+    /**
+     * A single entry which differs between the generated and validation
+     * mappings.
+     */
+    public static class Mismatch {
+
+        private final Kind kind;
+        private final Category category;
+        private final String obf;
+        private final String actual;
+        private final String expected;
+
+        public Mismatch(Kind kind, Category category, String obf, String actual, String expected) {
+            this.kind = kind;
+            this.category = category;
+            this.obf = obf;
+            this.actual = actual;
+            this.expected = expected;
+        }
+
+        public Kind getKind() {
+            return this.kind;
+        }
+
+        public Category getCategory() {
+            return this.category;
+        }
+
+        /**
+         * Gets the obfuscated name of the entry, for members this is the
+         * owner and name and for methods also the descriptor.
+         */
+        public String getObfuscated() {
+            return this.obf;
+        }
+
+        /**
+         * Gets the generated mapping or null if missing.
+         */
+        public String getActual() {
+            return this.actual;
+        }
+
+        /**
+         * Gets the validation mapping or null if extra.
+         */
+        public String getExpected() {
+            return this.expected;
+        }
+
+    }
+
+    private final List<Mismatch> mismatches;
+    private final int[] checked = new int[Kind.values().length];
+    private final int[][] counts = new int[Kind.values().length][Category.values().length];
+
+    public ValidationReport(List<Mismatch> mismatches, int types, int fields, int methods) {
+        this.mismatches = Collections.unmodifiableList(new ArrayList<>(mismatches));
+        this.checked[Kind.TYPE.ordinal()] = types;
+        this.checked[Kind.FIELD.ordinal()] = fields;
+        this.checked[Kind.METHOD.ordinal()] = methods;
+        for (Mismatch mismatch : mismatches) {
+            this.counts[mismatch.kind.ordinal()][mismatch.category.ordinal()]++;
+        }
+    }
+
+    public List<Mismatch> getMismatches() {
+        return this.mismatches;
+    }
+
+    /**
+     * Gets the number of generated mappings of the given kind which were
+     * checked.
+     */
+    public int getChecked(Kind kind) {
+        return this.checked[kind.ordinal()];
+    }
+
+    public int getCount(Kind kind, Category category) {
+        return this.counts[kind.ordinal()][category.ordinal()];
+    }
+
+    /**
+     * Gets the number of generated mappings of the given kind which are wrong
+     * or not present in the validation mappings.
+     */
+    public int getErrors(Kind kind) {
+        return getCount(kind, Category.WRONG) + getCount(kind, Category.EXTRA);
+    }
+
+    /**
+     * Gets the fraction of generated mappings which agree with the validation
+     * mappings.
+     */
+    public float getAccuracy() {
+        int total = 0;
+        int errors = 0;
+        for (Kind kind : Kind.values()) {
+            total += getChecked(kind);
+            errors += getErrors(kind);
+        }
+        if (total == 0) {
+            return 1;
+        }
+        return 1 - (errors / (float) total);
+    }
+
+    /**
+     * Prints the mismatch counts of each kind and the overall accuracy.
+     */
+    public void printSummary() {
+        for (Kind kind : Kind.values()) {
+            System.out.printf("%s validation: %d checked, %d wrong, %d missing, %d extra\n", kind.name().toLowerCase(), getChecked(kind),
+                    getCount(kind, Category.WRONG), getCount(kind, Category.MISSING), getCount(kind, Category.EXTRA));
+        }
+        System.out.printf("Accuracy: %.2f%%\n", getAccuracy() * 100);
+    }
+
+    /**
+     * Writes the report to the given file, as json if the file name ends with
+     * .json or as tab separated values otherwise.
+     */
+    public void write(Path out) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            if (out.getFileName().toString().endsWith(".json")) {
+                writeJson(writer);
+            } else {
+                writeTsv(writer);
+            }
+        }
+    }
+
+    public void writeTsv(Writer out) {
+        PrintWriter writer = new PrintWriter(out);
+        writer.println("kind\tcategory\tobfuscated\tactual\texpected");
+        for (Mismatch mismatch : this.mismatches) {
+            writer.println(mismatch.kind.name() + "\t" + mismatch.category.name() + "\t" + mismatch.obf + "\t" + orEmpty(mismatch.actual) + "\t"
+                    + orEmpty(mismatch.expected));
+        }
+        writer.flush();
+    }
+
+    public void writeJson(Writer out) {
+        PrintWriter writer = new PrintWriter(out);
+        writer.println("{");
+        writer.printf(Locale.ROOT, "  \"accuracy\": %.6f,\n", getAccuracy());
+        writer.println("  \"summary\": {");
+        Kind[] kinds = Kind.values();
+        for (int i = 0; i < kinds.length; i++) {
+            Kind kind = kinds[i];
+            writer.printf("    \"%s\": {\"checked\": %d, \"wrong\": %d, \"missing\": %d, \"extra\": %d}%s\n", kind.name().toLowerCase(), getChecked(kind),
+                    getCount(kind, Category.WRONG), getCount(kind, Category.MISSING), getCount(kind, Category.EXTRA), i < kinds.length - 1 ? "," : "");
+        }
+        writer.println("  },");
+        writer.println("  \"mismatches\": [");
+        for (int i = 0; i < this.mismatches.size(); i++) {
+            Mismatch mismatch = this.mismatches.get(i);
+            writer.printf("    {\"kind\": \"%s\", \"category\": \"%s\", \"obfuscated\": %s, \"actual\": %s, \"expected\": %s}%s\n",
+                    mismatch.kind.name(), mismatch.category.name(), jsonString(mismatch.obf), jsonString(mismatch.actual),
+                    jsonString(mismatch.expected), i < this.mismatches.size() - 1 ? "," : "");
+        }
+        writer.println("  ]");
+        writer.println("}");
+        writer.flush();
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String jsonString(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder str = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char next = value.charAt(i);
+            if (next == '"' || next == '\\') {
+                str.append('\\');
+            }
+            str.append(next);
+        }
+        return str.append('"').toString();
+    }
+
+}
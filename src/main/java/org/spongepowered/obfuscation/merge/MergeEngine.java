@@ -24,31 +24,35 @@
  */
 package org.spongepowered.obfuscation.merge;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
 import org.spongepowered.despector.Language;
 import org.spongepowered.despector.ast.AstVisitor;
 import org.spongepowered.despector.ast.SourceSet;
 import org.spongepowered.despector.ast.generic.ClassTypeSignature;
 import org.spongepowered.despector.ast.generic.MethodSignature;
 import org.spongepowered.despector.ast.generic.TypeSignature;
-import org.spongepowered.despector.ast.type.ClassEntry;
 import org.spongepowered.despector.ast.type.FieldEntry;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.util.TypeHelper;
 import org.spongepowered.despector.util.serialization.MessagePacker;
+import org.spongepowered.obfuscation.config.ObfConfigManager;
+import org.spongepowered.obfuscation.data.ConcurrentMappingsSet;
 import org.spongepowered.obfuscation.data.MappingsSet;
 import org.spongepowered.obfuscation.merge.data.FieldMatchEntry;
 import org.spongepowered.obfuscation.merge.data.MatchEntry;
 import org.spongepowered.obfuscation.merge.data.MethodGroup;
 import org.spongepowered.obfuscation.merge.data.MethodMatchEntry;
-import org.spongepowered.obfuscation.util.MethodGroupBuilder;
+import org.spongepowered.obfuscation.merge.stats.MergeListener;
+import org.spongepowered.obfuscation.merge.stats.OperationStats;
+import org.spongepowered.obfuscation.util.PrefixMatcher;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
@@ -72,23 +76,35 @@ public class MergeEngine {
     private final Map<MethodEntry, MethodMatchEntry> pending_method_matches = new HashMap<>();
     private final Map<FieldEntry, FieldMatchEntry> pending_field_matches = new HashMap<>();
 
+    // groups for methods not in the shared indexes, such as dummy methods,
+    // are kept local to this engine
     private final Map<MethodEntry, MethodGroup> old_method_groups = new HashMap<>();
     private final Map<MethodEntry, MethodGroup> new_method_groups = new HashMap<>();
 
-    private final Multimap<TypeEntry, TypeEntry> old_subtypes = HashMultimap.create();
-    private final Multimap<TypeEntry, TypeEntry> new_subtypes = HashMultimap.create();
-
+    private final SourceIndex old_index;
+    private final SourceIndex new_index;
     private final SourceSet old_src;
     private final SourceSet new_src;
     private final MappingsSet old_mappings;
     private final MappingsSet new_mappings;
     private MappingsSet validation_mappings;
+    private final PrefixMatcher excluded = ObfConfigManager.getExcludedPackages();
 
     private int changes_last_cycle = 0;
 
+    private final List<MergeListener> listeners = new ArrayList<>();
+    private int votes_cast = 0;
+    private int matches_promoted = 0;
+
     public MergeEngine(SourceSet oldsrc, MappingsSet oldmap, SourceSet newsrc, MappingsSet newmap) {
-        this.old_src = oldsrc;
-        this.new_src = newsrc;
+        this(new SourceIndex(oldsrc), oldmap, new SourceIndex(newsrc), newmap);
+    }
+
+    public MergeEngine(SourceIndex oldsrc, MappingsSet oldmap, SourceIndex newsrc, MappingsSet newmap) {
+        this.old_index = oldsrc;
+        this.new_index = newsrc;
+        this.old_src = oldsrc.getSourceSet();
+        this.new_src = newsrc.getSourceSet();
         this.old_mappings = oldmap;
         this.new_mappings = newmap;
     }
@@ -103,6 +119,14 @@ public class MergeEngine {
         return null;
     }
 
+    public SourceIndex getOldIndex() {
+        return this.old_index;
+    }
+
+    public SourceIndex getNewIndex() {
+        return this.new_index;
+    }
+
     public SourceSet getOldSourceSet() {
         return this.old_src;
     }
@@ -139,6 +163,28 @@ public class MergeEngine {
         this.changes_last_cycle = 0;
     }
 
+    public void addListener(MergeListener listener) {
+        this.listeners.add(listener);
+    }
+
+    public List<MergeListener> getListeners() {
+        return this.listeners;
+    }
+
+    /**
+     * Gets the total number of votes cast so far.
+     */
+    public int getVotesCast() {
+        return this.votes_cast;
+    }
+
+    /**
+     * Gets the total number of pending matches promoted to matches so far.
+     */
+    public int getMatchesPromoted() {
+        return this.matches_promoted;
+    }
+
     public MatchEntry getMatch(TypeEntry t) {
         return this.matches.get(t);
     }
@@ -160,8 +206,26 @@ public class MergeEngine {
         return m;
     }
 
+    /**
+     * Gets if the given type is in one of the excluded packages. Types are
+     * matched by their mapped name in the given mappings, as when mappings are
+     * loaded, falling back to the obfuscated name for unmapped types. Excluded
+     * types are never renamed so they are only matched with themselves.
+     */
+    public boolean isExcluded(MappingsSet mappings, String type) {
+        return this.excluded.matches(mappings.mapTypeSafe(type));
+    }
+
+    private boolean isExcluded(String old_type, String new_type) {
+        return isExcluded(this.old_mappings, old_type) || isExcluded(this.new_mappings, new_type);
+    }
+
     public boolean vote(TypeEntry old, TypeEntry n) {
+        if (isExcluded(old.getName(), n.getName())) {
+            return old.getName().equals(n.getName());
+        }
         MatchEntry m = getPendingMatch(old);
+        this.votes_cast++;
         if (this.matches_inverse.containsKey(n)) {
             return m.getNewType() == n;
         }
@@ -177,6 +241,7 @@ public class MergeEngine {
             throw new IllegalStateException();
         }
         this.pending_matches.remove(entry.getOldType());
+        this.matches_promoted++;
         this.matches.put(entry.getOldType(), entry);
         this.matches_inverse.put(entry.getNewType(), entry);
         for (MatchEntry match : this.pending_matches.values()) {
@@ -193,7 +258,11 @@ public class MergeEngine {
     }
 
     public MethodGroup getOldMethodGroup(MethodEntry entry) {
-        MethodGroup group = this.old_method_groups.get(entry);
+        MethodGroup group = this.old_index.getMethodGroups().get(entry);
+        if (group != null) {
+            return group;
+        }
+        group = this.old_method_groups.get(entry);
         if (group == null) {
             group = new MethodGroup(entry);
             this.old_method_groups.put(entry, group);
@@ -202,7 +271,11 @@ public class MergeEngine {
     }
 
     public MethodGroup getNewMethodGroup(MethodEntry entry) {
-        MethodGroup group = this.new_method_groups.get(entry);
+        MethodGroup group = this.new_index.getMethodGroups().get(entry);
+        if (group != null) {
+            return group;
+        }
+        group = this.new_method_groups.get(entry);
         if (group == null) {
             group = new MethodGroup(entry);
             this.new_method_groups.put(entry, group);
@@ -232,7 +305,12 @@ public class MergeEngine {
     }
 
     public boolean vote(MethodEntry old, MethodEntry n) {
+        if (isExcluded(old.getOwnerName(), n.getOwnerName())) {
+            return old.getOwnerName().equals(n.getOwnerName()) && old.getName().equals(n.getName())
+                    && old.getDescription().equals(n.getDescription());
+        }
         MethodMatchEntry m = getPendingMethodMatch(old);
+        this.votes_cast++;
         if (this.method_matches_inverse.containsKey(n)) {
             return m.getNewMethod() == n;
         }
@@ -248,6 +326,7 @@ public class MergeEngine {
             throw new IllegalStateException();
         }
         this.pending_method_matches.remove(entry.getOldMethod());
+        this.matches_promoted++;
         this.method_matches.put(entry.getOldMethod(), entry);
         this.method_matches_inverse.put(entry.getNewMethod(), entry);
         for (MethodMatchEntry match : this.pending_method_matches.values()) {
@@ -285,7 +364,11 @@ public class MergeEngine {
     }
 
     public boolean vote(FieldEntry old, FieldEntry n) {
+        if (isExcluded(old.getOwnerName(), n.getOwnerName())) {
+            return old.getOwnerName().equals(n.getOwnerName()) && old.getName().equals(n.getName());
+        }
         FieldMatchEntry m = getPendingFieldMatch(old);
+        this.votes_cast++;
         if (this.field_matches_inverse.containsKey(n)) {
             return m.getNewField() == n;
         }
@@ -301,6 +384,7 @@ public class MergeEngine {
             throw new IllegalStateException();
         }
         this.pending_field_matches.remove(entry.getOldField());
+        this.matches_promoted++;
         this.field_matches.put(entry.getOldField(), entry);
         this.field_matches_inverse.put(entry.getNewField(), entry);
         for (FieldMatchEntry match : this.pending_field_matches.values()) {
@@ -352,19 +436,35 @@ public class MergeEngine {
             setAsMatched(match);
         }
 
-        generateSubtypes();
-        generateMethodGroups();
+        this.old_index.getMethodGroups();
+        this.new_index.getMethodGroups();
+
+        for (MergeListener listener : this.listeners) {
+            listener.onMergeStart(this);
+        }
 
+        int cycle = 0;
         for (int i = 0; i < this.operations.size(); i++) {
             MergeOperation op = this.operations.get(i);
             if (op instanceof JumpOperation) {
                 JumpOperation jump = (JumpOperation) op;
                 if (jump.condition.test(this)) {
                     i = jump.target - 1;
+                    for (MergeListener listener : this.listeners) {
+                        listener.onCycleEnd(this, cycle);
+                    }
+                    cycle++;
                 }
                 continue;
             }
-            op.operate(this);
+            if (this.listeners.isEmpty()) {
+                op.operate(this);
+            } else {
+                runInstrumented(op, i, cycle);
+            }
+        }
+        for (MergeListener listener : this.listeners) {
+            listener.onCycleEnd(this, cycle);
         }
 
         for (MatchEntry entry : this.matches.values()) {
@@ -395,73 +495,101 @@ public class MergeEngine {
             this.new_mappings.addTypeMapping(type.getName(), mapped_name);
         }
 
-        for (FieldMatchEntry entry : this.field_matches.values()) {
-            if (entry.getOldField() instanceof DummyField) {
-                FieldEntry fld = entry.getNewField();
-                if (this.new_mappings.mapType(fld.getOwnerName()) == null) {
-                    continue;
-                }
-                this.new_mappings.addFieldMapping(fld.getOwnerName(), fld.getName(), entry.getOldField().getName());
-            } else {
-                String owner = entry.getOldField().getOwnerName();
-                String mapped = this.old_mappings.mapField(owner, entry.getOldField().getName());
-                if (mapped != null) {
-                    FieldEntry fld = entry.getNewField();
-                    this.new_mappings.addFieldMapping(fld.getOwnerName(), fld.getName(), mapped);
-                }
+        if (this.new_mappings instanceof ConcurrentMappingsSet) {
+            writeMembersConcurrently();
+        } else {
+            for (FieldMatchEntry entry : this.field_matches.values()) {
+                writeField(entry);
+            }
+            for (MethodMatchEntry entry : this.method_matches.values()) {
+                writeMethod(entry);
             }
         }
 
-        for (MethodMatchEntry entry : this.method_matches.values()) {
-            if (entry.getOldMethod().getName().startsWith("<")) {
-                continue;
-            }
-            if (entry.getOldMethod() instanceof DummyMethod) {
-                MethodEntry mth = entry.getNewMethod();
-                if (this.new_mappings.mapType(mth.getOwnerName()) == null) {
-                    continue;
-                }
-                this.new_mappings.addMethodMapping(mth.getOwnerName(), mth.getName(), mth.getDescription(), entry.getOldMethod().getName());
-            } else {
-                String owner = entry.getOldMethod().getOwnerName();
-                String mapped = this.old_mappings.mapMethod(owner, entry.getOldMethod().getName(), entry.getOldMethod().getDescription());
-                if (mapped != null) {
-                    MethodEntry mth = entry.getNewMethod();
-                    this.new_mappings.addMethodMapping(mth.getOwnerName(), mth.getName(), mth.getDescription(), mapped);
-                }
-            }
+        for (MergeListener listener : this.listeners) {
+            listener.onMergeEnd(this);
         }
+    }
 
+    /**
+     * Writes the matched members to the new mappings with the members of each
+     * owner written on a separate task. Conflicting member mappings only occur
+     * within an owner so the result is the same as writing them in order.
+     */
+    private void writeMembersConcurrently() {
+        Map<String, List<Runnable>> owners = new LinkedHashMap<>();
+        for (FieldMatchEntry entry : this.field_matches.values()) {
+            owners.computeIfAbsent(entry.getNewField().getOwnerName(), (k) -> new ArrayList<>()).add(() -> writeField(entry));
+        }
+        for (MethodMatchEntry entry : this.method_matches.values()) {
+            owners.computeIfAbsent(entry.getNewMethod().getOwnerName(), (k) -> new ArrayList<>()).add(() -> writeMethod(entry));
+        }
+        owners.values().parallelStream().forEach((writes) -> writes.forEach(Runnable::run));
     }
 
-    private void generateSubtypes() {
-        generateSubtypes(this.old_src, this.old_subtypes);
-        generateSubtypes(this.new_src, this.new_subtypes);
+    private void writeField(FieldMatchEntry entry) {
+        if (entry.getOldField() instanceof DummyField) {
+            FieldEntry fld = entry.getNewField();
+            if (this.new_mappings.mapType(fld.getOwnerName()) == null) {
+                return;
+            }
+            this.new_mappings.addFieldMapping(fld.getOwnerName(), fld.getName(), entry.getOldField().getName());
+        } else {
+            String owner = entry.getOldField().getOwnerName();
+            String mapped = this.old_mappings.mapField(owner, entry.getOldField().getName());
+            if (mapped != null) {
+                FieldEntry fld = entry.getNewField();
+                this.new_mappings.addFieldMapping(fld.getOwnerName(), fld.getName(), mapped);
+            }
+        }
     }
 
-    private void generateSubtypes(SourceSet src, Multimap<TypeEntry, TypeEntry> subtypes) {
-        for (TypeEntry type : src.getAllClasses()) {
-            if (type instanceof ClassEntry) {
-                ClassEntry cls = (ClassEntry) type;
-                TypeEntry spr = src.get(cls.getSuperclassName());
-                if (spr != null) {
-                    subtypes.put(spr, type);
-                }
+    private void writeMethod(MethodMatchEntry entry) {
+        if (entry.getOldMethod().getName().startsWith("<")) {
+            return;
+        }
+        if (entry.getOldMethod() instanceof DummyMethod) {
+            MethodEntry mth = entry.getNewMethod();
+            if (this.new_mappings.mapType(mth.getOwnerName()) == null) {
+                return;
             }
-            for (String intr : type.getInterfaces()) {
-                TypeEntry inter = src.get(intr);
-                if (inter != null) {
-                    subtypes.put(inter, type);
-                }
+            this.new_mappings.addMethodMapping(mth.getOwnerName(), mth.getName(), mth.getDescription(), entry.getOldMethod().getName());
+        } else {
+            String owner = entry.getOldMethod().getOwnerName();
+            String mapped = this.old_mappings.mapMethod(owner, entry.getOldMethod().getName(), entry.getOldMethod().getDescription());
+            if (mapped != null) {
+                MethodEntry mth = entry.getNewMethod();
+                this.new_mappings.addMethodMapping(mth.getOwnerName(), mth.getName(), mth.getDescription(), mapped);
             }
         }
     }
 
-    private void generateMethodGroups() {
-        MethodGroupBuilder old_builder = new MethodGroupBuilder(this.old_src, this.old_method_groups, this.old_subtypes);
-        old_builder.build();
-        MethodGroupBuilder new_builder = new MethodGroupBuilder(this.new_src, this.new_method_groups, this.new_subtypes);
-        new_builder.build();
+    private void runInstrumented(MergeOperation op, int index, int cycle) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean alloc_bean = null;
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            alloc_bean = (com.sun.management.ThreadMXBean) threads;
+            if (!alloc_bean.isThreadAllocatedMemoryEnabled()) {
+                alloc_bean = null;
+            }
+        }
+        long thread_id = Thread.currentThread().getId();
+        int votes = this.votes_cast;
+        int matches = this.matches_promoted;
+        long allocated = alloc_bean == null ? 0 : alloc_bean.getThreadAllocatedBytes(thread_id);
+        long start = System.nanoTime();
+        op.operate(this);
+        long time = System.nanoTime() - start;
+        allocated = alloc_bean == null ? -1 : alloc_bean.getThreadAllocatedBytes(thread_id) - allocated;
+        String name = op.getClass().getSimpleName();
+        if (name.isEmpty()) {
+            name = op.getClass().getName();
+        }
+        OperationStats stats = new OperationStats(name, index, cycle, time, allocated, this.votes_cast - votes, this.matches_promoted - matches,
+                this.pending_matches.size(), this.pending_method_matches.size(), this.pending_field_matches.size());
+        for (MergeListener listener : this.listeners) {
+            listener.onOperation(this, stats);
+        }
     }
 
     public static TypeEntry createDummyType(SourceSet set, String name) {
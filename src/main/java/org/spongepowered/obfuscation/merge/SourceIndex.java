@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.merge;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.ClassEntry;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.obfuscation.merge.data.MethodGroup;
+import org.spongepowered.obfuscation.merge.operation.MatchReferences;
+import org.spongepowered.obfuscation.util.MethodGroupBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A source set along with the indexes derived from it which only depend on
+ * the source set and not on any mappings. An index may be shared between
+ * several merge engines, for example when the same jar is the new side of one
+ * merge and the old side of the next.
+ *
+ * <p>The indexes are computed the first time they are requested.</p>
+ */
+public class SourceIndex {
+
+    private final SourceSet src;
+
+    private Multimap<TypeEntry, TypeEntry> subtypes;
+    private Map<MethodEntry, MethodGroup> method_groups;
+    private MatchReferences.ReferenceGraph references;
+
+    public SourceIndex(SourceSet src) {
+        this.src = src;
+    }
+
+    public SourceSet getSourceSet() {
+        return this.src;
+    }
+
+    /**
+     * Gets the direct subtypes of each type in the source set.
+     */
+    public synchronized Multimap<TypeEntry, TypeEntry> getSubtypes() {
+        if (this.subtypes == null) {
+            Multimap<TypeEntry, TypeEntry> subtypes = HashMultimap.create();
+            for (TypeEntry type : this.src.getAllClasses()) {
+                if (type instanceof ClassEntry) {
+                    ClassEntry cls = (ClassEntry) type;
+                    TypeEntry spr = this.src.get(cls.getSuperclassName());
+                    if (spr != null) {
+                        subtypes.put(spr, type);
+                    }
+                }
+                for (String intr : type.getInterfaces()) {
+                    TypeEntry inter = this.src.get(intr);
+                    if (inter != null) {
+                        subtypes.put(inter, type);
+                    }
+                }
+            }
+            this.subtypes = subtypes;
+        }
+        return this.subtypes;
+    }
+
+    /**
+     * Gets the method groups of every method in the source set.
+     */
+    public synchronized Map<MethodEntry, MethodGroup> getMethodGroups() {
+        if (this.method_groups == null) {
+            Map<MethodEntry, MethodGroup> groups = new HashMap<>();
+            MethodGroupBuilder builder = new MethodGroupBuilder(this.src, groups, getSubtypes());
+            builder.build();
+            this.method_groups = groups;
+        }
+        return this.method_groups;
+    }
+
+    /**
+     * Gets the references between the members of the source set.
+     */
+    public synchronized MatchReferences.ReferenceGraph getReferences() {
+        if (this.references == null) {
+            this.references = MatchReferences.ReferenceGraph.build(this.src);
+        }
+        return this.references;
+    }
+
+}
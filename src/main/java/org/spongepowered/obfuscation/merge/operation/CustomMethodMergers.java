@@ -44,6 +44,7 @@ import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.util.TypeHelper;
 import org.spongepowered.obfuscation.data.MappingsSet;
+import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
 import org.spongepowered.obfuscation.merge.MergeEngine;
 import org.spongepowered.obfuscation.merge.MergeOperation;
 import org.spongepowered.obfuscation.merge.data.MethodMatchEntry;
@@ -65,9 +66,13 @@ public class CustomMethodMergers implements MergeOperation {
             }
             MethodEntry old = match.getOldMethod();
             MappingsSet old_set = set.getOldMappings();
-            String key = "L" + old_set.mapTypeSafe(old.getOwnerName()) + ";"
-                    + old_set.mapMethodSafe(old.getOwnerName(), old.getName(), old.getDescription())
-                    + MappingsSet.MethodMapping.mapSig(old.getDescription(), old_set);
+            MethodMapping old_mapping = old_set.getMethodMapping(old.getOwnerName(), old.getName(), old.getDescription());
+            String key;
+            if (old_mapping != null && old_mapping.isMapped()) {
+                key = "L" + old_set.mapTypeSafe(old.getOwnerName()) + ";" + old_mapping.getMapped() + old_mapping.getMappedSignature();
+            } else {
+                key = "L" + old_set.mapTypeSafe(old.getOwnerName()) + ";" + old.getName() + MethodMapping.mapSig(old.getDescription(), old_set);
+            }
             BiConsumer<MethodMatchEntry, MergeEngine> merger = custom_mergers.get(key);
             if (merger != null) {
                 merger.accept(match, set);
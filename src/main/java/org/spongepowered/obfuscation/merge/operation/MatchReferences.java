@@ -97,48 +97,62 @@ import java.util.Map;
 public class MatchReferences implements MergeOperation {
 
     private boolean prepared = false;
-    public final Multimap<FieldEntry, MethodEntry> old_field_accesses = HashMultimap.create();
-    public final Multimap<FieldEntry, MethodEntry> old_field_assignments = HashMultimap.create();
-    public final Multimap<FieldEntry, MethodEntry> new_field_accesses = HashMultimap.create();
-    public final Multimap<FieldEntry, MethodEntry> new_field_assignments = HashMultimap.create();
+    public Multimap<FieldEntry, MethodEntry> old_field_accesses;
+    public Multimap<FieldEntry, MethodEntry> old_field_assignments;
+    public Multimap<FieldEntry, MethodEntry> new_field_accesses;
+    public Multimap<FieldEntry, MethodEntry> new_field_assignments;
 
-    public final Multimap<String, MethodEntry> old_ext_accesses = HashMultimap.create();
-    public final Multimap<String, MethodEntry> old_ext_assignments = HashMultimap.create();
-    public final Multimap<String, MethodEntry> new_ext_accesses = HashMultimap.create();
-    public final Multimap<String, MethodEntry> new_ext_assignments = HashMultimap.create();
+    public Multimap<String, MethodEntry> old_ext_accesses;
+    public Multimap<String, MethodEntry> old_ext_assignments;
+    public Multimap<String, MethodEntry> new_ext_accesses;
+    public Multimap<String, MethodEntry> new_ext_assignments;
 
-    public final Multimap<MethodEntry, MethodEntry> old_method_invokes = HashMultimap.create();
-    public final Multimap<MethodEntry, MethodEntry> new_method_invokes = HashMultimap.create();
+    public Multimap<MethodEntry, MethodEntry> old_method_invokes;
+    public Multimap<MethodEntry, MethodEntry> new_method_invokes;
 
-    public final Multimap<String, MethodEntry> old_ext_invokes = HashMultimap.create();
-    public final Multimap<String, MethodEntry> new_ext_invokes = HashMultimap.create();
+    public Multimap<String, MethodEntry> old_ext_invokes;
+    public Multimap<String, MethodEntry> new_ext_invokes;
 
-    public final Multimap<TypeEntry, MethodEntry> old_inits = HashMultimap.create();
-    public final Multimap<TypeEntry, MethodEntry> new_inits = HashMultimap.create();
-    public final Multimap<String, MethodEntry> old_ext_inits = HashMultimap.create();
-    public final Multimap<String, MethodEntry> new_ext_inits = HashMultimap.create();
+    public Multimap<TypeEntry, MethodEntry> old_inits;
+    public Multimap<TypeEntry, MethodEntry> new_inits;
+    public Multimap<String, MethodEntry> old_ext_inits;
+    public Multimap<String, MethodEntry> new_ext_inits;
 
-    public final Multimap<TypeEntry, MethodEntry> old_array_inits = HashMultimap.create();
-    public final Multimap<TypeEntry, MethodEntry> new_array_inits = HashMultimap.create();
-    public final Multimap<String, MethodEntry> old_ext_array_inits = HashMultimap.create();
-    public final Multimap<String, MethodEntry> new_ext_array_inits = HashMultimap.create();
+    public Multimap<TypeEntry, MethodEntry> old_array_inits;
+    public Multimap<TypeEntry, MethodEntry> new_array_inits;
+    public Multimap<String, MethodEntry> old_ext_array_inits;
+    public Multimap<String, MethodEntry> new_ext_array_inits;
 
-    public final Map<MethodEntry, TypeEntry> old_anons = new HashMap<>();
-    public final Map<MethodEntry, TypeEntry> new_anons = new HashMap<>();
+    public Map<MethodEntry, TypeEntry> old_anons;
+    public Map<MethodEntry, TypeEntry> new_anons;
 
     private void prep(MergeEngine set) {
-        RefFinder new_finder = new RefFinder(set.getNewSourceSet(), this.new_field_accesses, this.new_field_assignments,
-                this.new_ext_accesses, this.new_ext_assignments, this.new_method_invokes, this.new_ext_invokes, this.new_inits, this.new_ext_inits,
-                this.new_array_inits, this.new_ext_array_inits, this.new_anons);
-        for (TypeEntry type : set.getNewSourceSet().getAllClasses()) {
-            type.accept(new_finder);
-        }
-        RefFinder old_finder = new RefFinder(set.getOldSourceSet(), this.old_field_accesses, this.old_field_assignments,
-                this.old_ext_accesses, this.old_ext_assignments, this.old_method_invokes, this.old_ext_invokes, this.old_inits, this.old_ext_inits,
-                this.old_array_inits, this.old_ext_array_inits, this.old_anons);
-        for (TypeEntry type : set.getOldSourceSet().getAllClasses()) {
-            type.accept(old_finder);
-        }
+        // the reference graphs are built once per source set and shared
+        // between all engines using that source set
+        ReferenceGraph new_refs = set.getNewIndex().getReferences();
+        this.new_field_accesses = new_refs.field_accesses;
+        this.new_field_assignments = new_refs.field_assignments;
+        this.new_ext_accesses = new_refs.ext_accesses;
+        this.new_ext_assignments = new_refs.ext_assignments;
+        this.new_method_invokes = new_refs.method_invokes;
+        this.new_ext_invokes = new_refs.ext_invokes;
+        this.new_inits = new_refs.inits;
+        this.new_ext_inits = new_refs.ext_inits;
+        this.new_array_inits = new_refs.array_inits;
+        this.new_ext_array_inits = new_refs.ext_array_inits;
+        this.new_anons = new_refs.anons;
+        ReferenceGraph old_refs = set.getOldIndex().getReferences();
+        this.old_field_accesses = old_refs.field_accesses;
+        this.old_field_assignments = old_refs.field_assignments;
+        this.old_ext_accesses = old_refs.ext_accesses;
+        this.old_ext_assignments = old_refs.ext_assignments;
+        this.old_method_invokes = old_refs.method_invokes;
+        this.old_ext_invokes = old_refs.ext_invokes;
+        this.old_inits = old_refs.inits;
+        this.old_ext_inits = old_refs.ext_inits;
+        this.old_array_inits = old_refs.array_inits;
+        this.old_ext_array_inits = old_refs.ext_array_inits;
+        this.old_anons = old_refs.anons;
     }
 
     @Override
@@ -279,6 +293,38 @@ public class MatchReferences implements MergeOperation {
         }
     }
 
+    /**
+     * The references between the members of a single source set.
+     */
+    public static class ReferenceGraph {
+
+        public final Multimap<FieldEntry, MethodEntry> field_accesses = HashMultimap.create();
+        public final Multimap<FieldEntry, MethodEntry> field_assignments = HashMultimap.create();
+        public final Multimap<String, MethodEntry> ext_accesses = HashMultimap.create();
+        public final Multimap<String, MethodEntry> ext_assignments = HashMultimap.create();
+        public final Multimap<MethodEntry, MethodEntry> method_invokes = HashMultimap.create();
+        public final Multimap<String, MethodEntry> ext_invokes = HashMultimap.create();
+        public final Multimap<TypeEntry, MethodEntry> inits = HashMultimap.create();
+        public final Multimap<String, MethodEntry> ext_inits = HashMultimap.create();
+        public final Multimap<TypeEntry, MethodEntry> array_inits = HashMultimap.create();
+        public final Multimap<String, MethodEntry> ext_array_inits = HashMultimap.create();
+        public final Map<MethodEntry, TypeEntry> anons = new HashMap<>();
+
+        /**
+         * Builds the reference graph of the given source set.
+         */
+        public static ReferenceGraph build(SourceSet src) {
+            ReferenceGraph refs = new ReferenceGraph();
+            RefFinder finder = new RefFinder(src, refs.field_accesses, refs.field_assignments, refs.ext_accesses, refs.ext_assignments,
+                    refs.method_invokes, refs.ext_invokes, refs.inits, refs.ext_inits, refs.array_inits, refs.ext_array_inits, refs.anons);
+            for (TypeEntry type : src.getAllClasses()) {
+                type.accept(finder);
+            }
+            return refs;
+        }
+
+    }
+
     private static class RefFinder implements InstructionVisitor, StatementVisitor, TypeVisitor {
 
         private SourceSet set;
@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.merge.stats;
+
+import org.spongepowered.obfuscation.merge.MergeEngine;
+
+/**
+ * A listener notified of the progress of a merge.
+ */
+public interface MergeListener {
+
+    /**
+     * Called before the first operation is run.
+     */
+    default void onMergeStart(MergeEngine engine) {
+    }
+
+    /**
+     * Called after each operation has run.
+     */
+    default void onOperation(MergeEngine engine, OperationStats stats) {
+    }
+
+    /**
+     * Called when the operations jump back to run another cycle or when the
+     * last cycle completes.
+     */
+    default void onCycleEnd(MergeEngine engine, int cycle) {
+    }
+
+    /**
+     * Called once all matches have been written to the new mappings.
+     */
+    default void onMergeEnd(MergeEngine engine) {
+    }
+
+}
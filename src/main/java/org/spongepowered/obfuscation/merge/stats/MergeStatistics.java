@@ -0,0 +1,164 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.merge.stats;
+
+import org.spongepowered.obfuscation.merge.MergeEngine;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A merge listener which records the stats of every operation run and can
+ * write them out as json or csv.
+ */
+public class MergeStatistics implements MergeListener {
+
+    private final List<OperationStats> operations = new ArrayList<>();
+    private int cycles = 0;
+    private long start;
+    private long total_time;
+
+    public List<OperationStats> getOperations() {
+        return Collections.unmodifiableList(this.operations);
+    }
+
+    /**
+     * Gets the number of cycles through the operations the merge took.
+     */
+    public int getCycleCount() {
+        return this.cycles;
+    }
+
+    /**
+     * Gets the total wall time of the merge in nanoseconds.
+     */
+    public long getTotalTime() {
+        return this.total_time;
+    }
+
+    @Override
+    public void onMergeStart(MergeEngine engine) {
+        this.operations.clear();
+        this.cycles = 0;
+        this.start = System.nanoTime();
+    }
+
+    @Override
+    public void onOperation(MergeEngine engine, OperationStats stats) {
+        this.operations.add(stats);
+    }
+
+    @Override
+    public void onCycleEnd(MergeEngine engine, int cycle) {
+        this.cycles = cycle + 1;
+    }
+
+    @Override
+    public void onMergeEnd(MergeEngine engine) {
+        this.total_time = System.nanoTime() - this.start;
+    }
+
+    /**
+     * Prints the total time, votes and matches of each operation summed over
+     * all cycles. Allocation is printed as n/a where it was not tracked.
+     */
+    public void printSummary() {
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        for (OperationStats stats : this.operations) {
+            long[] total = totals.get(stats.getOperation());
+            if (total == null) {
+                total = new long[4];
+                // stays -1 unless allocation tracking was available
+                total[1] = -1;
+                totals.put(stats.getOperation(), total);
+            }
+            total[0] += stats.getTime();
+            if (stats.getAllocated() >= 0) {
+                total[1] = Math.max(total[1], 0) + stats.getAllocated();
+            }
+            total[2] += stats.getVotes();
+            total[3] += stats.getMatches();
+        }
+        System.out.printf("Merged in %dms over %d cycles\n", this.total_time / 1000000, this.cycles);
+        for (Map.Entry<String, long[]> e : totals.entrySet()) {
+            long[] total = e.getValue();
+            String allocated = total[1] < 0 ? "n/a" : (total[1] / 1024) + "KB";
+            System.out.printf("  %-24s %8dms %12s %8d votes %8d matches\n", e.getKey(), total[0] / 1000000, allocated, total[2], total[3]);
+        }
+    }
+
+    /**
+     * Writes the stats to the given file, as json if the file name ends with
+     * .json or as csv otherwise.
+     */
+    public void write(Path out) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            if (out.getFileName().toString().endsWith(".json")) {
+                writeJson(writer);
+            } else {
+                writeCsv(writer);
+            }
+        }
+    }
+
+    public void writeCsv(Writer out) {
+        PrintWriter writer = new PrintWriter(out);
+        writer.println("cycle,index,operation,time_ns,allocated_bytes,votes,matches,pending_types,pending_methods,pending_fields");
+        for (OperationStats stats : this.operations) {
+            writer.printf("%d,%d,%s,%d,%d,%d,%d,%d,%d,%d\n", stats.getCycle(), stats.getIndex(), stats.getOperation(), stats.getTime(),
+                    stats.getAllocated(), stats.getVotes(), stats.getMatches(), stats.getPendingTypes(), stats.getPendingMethods(),
+                    stats.getPendingFields());
+        }
+        writer.flush();
+    }
+
+    public void writeJson(Writer out) {
+        PrintWriter writer = new PrintWriter(out);
+        writer.println("{");
+        writer.printf("  \"total_time_ns\": %d,\n", this.total_time);
+        writer.printf("  \"cycles\": %d,\n", this.cycles);
+        writer.println("  \"operations\": [");
+        for (int i = 0; i < this.operations.size(); i++) {
+            OperationStats stats = this.operations.get(i);
+            writer.printf("    {\"cycle\": %d, \"index\": %d, \"operation\": \"%s\", \"time_ns\": %d, \"allocated_bytes\": %d, \"votes\": %d, "
+                    + "\"matches\": %d, \"pending_types\": %d, \"pending_methods\": %d, \"pending_fields\": %d}%s\n", stats.getCycle(),
+                    stats.getIndex(), stats.getOperation(), stats.getTime(), stats.getAllocated(), stats.getVotes(), stats.getMatches(),
+                    stats.getPendingTypes(), stats.getPendingMethods(), stats.getPendingFields(), i < this.operations.size() - 1 ? "," : "");
+        }
+        writer.println("  ]");
+        writer.println("}");
+        writer.flush();
+    }
+
+}
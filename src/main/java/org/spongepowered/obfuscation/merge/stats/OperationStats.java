@@ -0,0 +1,120 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.merge.stats;
+
+/**
+ * The measurements of a single run of a merge operation.
+ */
+public class OperationStats {
+
+    private final String operation;
+    private final int index;
+    private final int cycle;
+    private final long time;
+    private final long allocated;
+    private final int votes;
+    private final int matches;
+    private final int pending_types;
+    private final int pending_methods;
+    private final int pending_fields;
+
+    public OperationStats(String operation, int index, int cycle, long time, long allocated, int votes, int matches, int pending_types,
+            int pending_methods, int pending_fields) {
+        this.operation = operation;
+        this.index = index;
+        this.cycle = cycle;
+        this.time = time;
+        this.allocated = allocated;
+        this.votes = votes;
+        this.matches = matches;
+        this.pending_types = pending_types;
+        this.pending_methods = pending_methods;
+        this.pending_fields = pending_fields;
+    }
+
+    /**
+     * Gets the simple class name of the operation.
+     */
+    public String getOperation() {
+        return this.operation;
+    }
+
+    /**
+     * Gets the index of the operation in the engine's operation list.
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Gets the cycle the operation was run in, starting from zero.
+     */
+    public int getCycle() {
+        return this.cycle;
+    }
+
+    /**
+     * Gets the wall time of the operation in nanoseconds.
+     */
+    public long getTime() {
+        return this.time;
+    }
+
+    /**
+     * Gets the number of bytes allocated by the merging thread while the
+     * operation ran, or -1 if this is not supported by the jvm.
+     */
+    public long getAllocated() {
+        return this.allocated;
+    }
+
+    /**
+     * Gets the number of votes cast by the operation.
+     */
+    public int getVotes() {
+        return this.votes;
+    }
+
+    /**
+     * Gets the number of pending matches promoted to matches by the
+     * operation.
+     */
+    public int getMatches() {
+        return this.matches;
+    }
+
+    public int getPendingTypes() {
+        return this.pending_types;
+    }
+
+    public int getPendingMethods() {
+        return this.pending_methods;
+    }
+
+    public int getPendingFields() {
+        return this.pending_fields;
+    }
+
+}
@@ -0,0 +1,265 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.source;
+
+import com.google.common.io.CountingOutputStream;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.decompiler.BaseDecompiler;
+import org.spongepowered.despector.util.serialization.AstLoader;
+import org.spongepowered.despector.util.serialization.MessagePacker;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A directory of serialized source sets keyed by the content hash of the jar
+ * they were decompiled from.
+ *
+ * <p>Each cache file starts with a header recording the cache format, the
+ * decompiler version and the key of the entry which is validated before the
+ * ast is loaded. Entries are written to a temporary file and moved into place
+ * once complete so an interrupted write never leaves a truncated entry
+ * behind. The total size of the cache is bounded by evicting the least
+ * recently used entries.</p>
+ */
+public class AstCache {
+
+    private static final int MAGIC = 0x4F4D4153;
+    private static final int FORMAT_VERSION = 3;
+    private static final String EXTENSION = ".ast";
+
+    /**
+     * Gets the version of the decompiler producing the cached asts.
+     */
+    public static String getDecompilerVersion() {
+        String version = BaseDecompiler.class.getPackage().getImplementationVersion();
+        return version == null ? "dev" : version;
+    }
+
+    private final Path directory;
+    private final long max_size;
+
+    /**
+     * Creates a new cache in the given directory holding at most the given
+     * number of bytes.
+     */
+    public AstCache(Path directory, long max_size) throws IOException {
+        this.directory = directory;
+        this.max_size = max_size;
+        Files.createDirectories(directory);
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Gets the cache key for the given jar. The key is formed from the hash of
+     * the jar contents and the version of the cache format and decompiler.
+     */
+    public String getKey(Path jar) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        if (Files.isDirectory(jar)) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(jar)) {
+                files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                digest.update(jar.relativize(file).toString().getBytes("UTF-8"));
+                hash(digest, file);
+            }
+        } else {
+            hash(digest, jar);
+        }
+        digest.update(("/" + FORMAT_VERSION + "/" + getDecompilerVersion()).getBytes("UTF-8"));
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(Character.forDigit((b >> 4) & 0xF, 16));
+            key.append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    private static void hash(MessageDigest digest, Path file) throws IOException {
+        byte[] buffer = new byte[65536];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    private Path getPath(String key) {
+        return this.directory.resolve(key + EXTENSION);
+    }
+
+    /**
+     * Loads the cached ast for the given key into a new source set. Returns
+     * null if there is no valid entry for the key.
+     *
+     * <p>The entry is memory mapped and decoded in full.</p>
+     */
+    public SourceSet load(String key) throws IOException {
+        Path path = getPath(key);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        SourceSet set = readEntry(data, key);
+        if (set == null) {
+            System.err.println("Discarding invalid cache entry " + path.toString());
+            Files.deleteIfExists(path);
+            return null;
+        }
+        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        return set;
+    }
+
+    private static SourceSet readEntry(ByteBuffer data, String key) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteBufferInputStream(data));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            if (!in.readUTF().equals(getDecompilerVersion()) || !in.readUTF().equals(key)) {
+                return null;
+            }
+            long payload = in.readLong();
+            if (payload <= 0 || data.position() + payload != data.limit()) {
+                return null;
+            }
+            SourceSet set = new SourceSet();
+            AstLoader.loadSources(set, in);
+            return set;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores the given source set under the given key, replacing any existing
+     * entry, and then evicts old entries if the cache has grown too large.
+     */
+    public void store(String key, SourceSet set) throws IOException {
+        Path tmp = Files.createTempFile(this.directory, key, ".tmp");
+        try {
+            long header_size;
+            long total_size;
+            CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)));
+            try (MessagePacker packer = new MessagePacker(out)) {
+                DataOutputStream data = new DataOutputStream(out);
+                data.writeInt(MAGIC);
+                data.writeInt(FORMAT_VERSION);
+                data.writeUTF(getDecompilerVersion());
+                data.writeUTF(key);
+                // the payload size is filled in once it is known
+                data.writeLong(0);
+                data.flush();
+                header_size = out.getCount();
+                set.writeTo(packer);
+            }
+            total_size = out.getCount();
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer payload = ByteBuffer.allocate(8);
+                payload.putLong(0, total_size - header_size);
+                channel.write(payload, header_size - 8);
+            }
+            try {
+                Files.move(tmp, getPath(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, getPath(key), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        evict();
+    }
+
+    /**
+     * Removes the least recently used entries until the cache is within its
+     * maximum size.
+     */
+    public synchronized void evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(this.directory, "*" + EXTENSION)) {
+            for (Path entry : dir) {
+                entries.add(entry);
+                total += Files.size(entry);
+            }
+        }
+        if (total <= this.max_size) {
+            return;
+        }
+        Map<Path, FileTime> times = new HashMap<>();
+        for (Path entry : entries) {
+            times.put(entry, Files.getLastModifiedTime(entry));
+        }
+        Collections.sort(entries, (a, b) -> times.get(a).compareTo(times.get(b)));
+        for (Path entry : entries) {
+            if (total <= this.max_size) {
+                break;
+            }
+            long size = Files.size(entry);
+            Files.deleteIfExists(entry);
+            total -= size;
+            System.out.println("Evicted cached ast " + entry.getFileName().toString());
+        }
+    }
+
+}
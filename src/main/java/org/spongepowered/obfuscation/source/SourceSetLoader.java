@@ -0,0 +1,233 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.source;
+
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.decompiler.BaseDecompiler;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.decompiler.DirectoryWalker;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Loads the {@link SourceSet}s of the jars being mapped, either by decompiling
+ * the jar or by loading a previously cached ast.
+ */
+public class SourceSetLoader {
+
+    /**
+     * Creates a new java decompiler wired the same as
+     * {@link Decompilers#JAVA}. The task queue of a decompiler is not thread
+     * safe so each concurrent load needs its own instance.
+     */
+    public static BaseDecompiler createJavaDecompiler() {
+        BaseDecompiler decompiler = new BaseDecompiler(Language.JAVA);
+        Decompilers.wireJavaDecompiler(decompiler);
+        return decompiler;
+    }
+
+    private final Path root;
+    private final Supplier<BaseDecompiler> decompilers;
+    private final AstCache cache;
+
+    /**
+     * Creates a new loader, if a cache is given then decompiled sources are
+     * stored in it and reused by later loads of the same jar. A new
+     * decompiler is taken from the given supplier for each decompiled jar.
+     */
+    public SourceSetLoader(Path root, Supplier<BaseDecompiler> decompilers, AstCache cache) {
+        this.root = root;
+        this.decompilers = decompilers;
+        this.cache = cache;
+    }
+
+    /**
+     * Loads the given jar into a new source set.
+     */
+    public LoadResult load(String jar) throws IOException {
+        Path jar_path = this.root.resolve(jar);
+        String key = null;
+        if (this.cache != null) {
+            long start = System.nanoTime();
+            key = this.cache.getKey(jar_path);
+            SourceSet source = this.cache.load(key);
+            if (source != null) {
+                long end = System.nanoTime();
+                return new LoadResult(source, source.getAllClasses().size(), true, (end - start) / 1000000);
+            }
+        }
+        SourceSet source = new SourceSet();
+        BaseDecompiler decompiler = this.decompilers.get();
+        long start = System.nanoTime();
+        DirectoryWalker walker = new DirectoryWalker(jar_path);
+        walker.walk(source, decompiler);
+        decompiler.flushTasks();
+        long end = System.nanoTime();
+        if (this.cache != null) {
+            this.cache.store(key, source);
+        }
+        return new LoadResult(source, source.getAllClasses().size(), false, (end - start) / 1000000);
+    }
+
+    /**
+     * Loads all of the given jars concurrently with one worker per jar, each
+     * decompiling with its own decompiler. The results are returned in the
+     * same order as the given jars.
+     */
+    public List<LoadResult> loadAll(List<String> jars) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(jars.size());
+        try {
+            List<Future<LoadResult>> pending = new ArrayList<>();
+            for (String jar : jars) {
+                pending.add(executor.submit(() -> load(jar)));
+            }
+            List<LoadResult> results = new ArrayList<>();
+            for (Future<LoadResult> future : pending) {
+                results.add(getResult(future));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static LoadResult getResult(Future<LoadResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading sources", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * The outcome of loading a single jar.
+     */
+    public static class LoadResult {
+
+        private final SourceSet source;
+        private final int class_count;
+        private final boolean from_cache;
+        private final long time;
+        private int failed_methods = 0;
+        private int total_methods = 0;
+
+        LoadResult(SourceSet source, int class_count, boolean from_cache, long time) {
+            this.source = source;
+            this.class_count = class_count;
+            this.from_cache = from_cache;
+            this.time = time;
+            if (!from_cache) {
+                // The decompiler only tracks failures in a global counter which
+                // is shared by all concurrent loads so we count them from the
+                // loaded methods instead.
+                for (TypeEntry type : source.getAllClasses()) {
+                    countMethods(type.getMethods());
+                    countMethods(type.getStaticMethods());
+                }
+            }
+        }
+
+        private void countMethods(Iterable<MethodEntry> methods) {
+            for (MethodEntry mth : methods) {
+                if (mth.isAbstract() || mth.isNative()) {
+                    continue;
+                }
+                this.total_methods++;
+                if (mth.getInstructions() == null) {
+                    this.failed_methods++;
+                }
+            }
+        }
+
+        public SourceSet getSourceSet() {
+            return this.source;
+        }
+
+        public int getClassCount() {
+            return this.class_count;
+        }
+
+        public boolean isFromCache() {
+            return this.from_cache;
+        }
+
+        /**
+         * Gets the time taken to load the sources in milliseconds.
+         */
+        public long getTime() {
+            return this.time;
+        }
+
+        public int getFailedMethodCount() {
+            return this.failed_methods;
+        }
+
+        public int getTotalMethodCount() {
+            return this.total_methods;
+        }
+
+        /**
+         * Prints a summary of this load, the version is a short description of
+         * which jar was loaded.
+         */
+        public void print(String version) {
+            int classes = this.class_count;
+            if (this.from_cache) {
+                System.out.println("Loaded cached ast with " + classes + " classes from the " + version + " version");
+                System.out.println("Loaded in " + this.time + "ms");
+                return;
+            }
+            System.out.println("Loaded and decompiled " + classes + " classes from the " + version + " version");
+            System.out.println("Loaded in " + this.time + "ms");
+            int failed = this.failed_methods;
+            int total = this.total_methods;
+            System.out.println("Failed to decompile " + failed + "/" + total + " (" + ((failed / (float) total) * 100) + "%)");
+        }
+
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.util;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from long keys to long values. A key of -1 is
+ * reserved to mark empty slots.
+ */
+public final class LongLongMap {
+
+    private static final long EMPTY = -1;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    // counts added and removed keys
+    private int mod_count;
+
+    public LongLongMap() {
+        this(16);
+    }
+
+    public LongLongMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) * 2;
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+        Arrays.fill(this.keys, EMPTY);
+    }
+
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int slot(long key) {
+        int mask = this.keys.length - 1;
+        for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+            long k = this.keys[i];
+            if (k == key || k == EMPTY) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Gets the value for the given key, or the given default if there is no
+     * value for the key.
+     */
+    public long get(long key, long missing) {
+        int i = slot(key);
+        return this.keys[i] == EMPTY ? missing : this.values[i];
+    }
+
+    public boolean containsKey(long key) {
+        return this.keys[slot(key)] != EMPTY;
+    }
+
+    /**
+     * Sets the value for the given key, returning the previous value or the
+     * given default if there was none.
+     */
+    public long put(long key, long value, long missing) {
+        int i = slot(key);
+        if (this.keys[i] != EMPTY) {
+            long previous = this.values[i];
+            this.values[i] = value;
+            return previous;
+        }
+        this.keys[i] = key;
+        this.values[i] = value;
+        this.mod_count++;
+        if (++this.size * 2 > this.keys.length) {
+            rehash(this.keys.length * 2);
+        }
+        return missing;
+    }
+
+    /**
+     * Removes the value for the given key, returning it or the given default
+     * if there was none.
+     */
+    public long remove(long key, long missing) {
+        int i = slot(key);
+        if (this.keys[i] == EMPTY) {
+            return missing;
+        }
+        long previous = this.values[i];
+        this.keys[i] = EMPTY;
+        this.size--;
+        this.mod_count++;
+        // shift back the following entries of the probe sequence so that no
+        // lookup stops early at the freed slot
+        int mask = this.keys.length - 1;
+        for (int j = (i + 1) & mask; this.keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = hash(this.keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                this.keys[i] = this.keys[j];
+                this.values[i] = this.values[j];
+                this.keys[j] = EMPTY;
+                i = j;
+            }
+        }
+        return previous;
+    }
+
+    private void rehash(int capacity) {
+        long[] old_keys = this.keys;
+        long[] old_values = this.values;
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+        Arrays.fill(this.keys, EMPTY);
+        for (int i = 0; i < old_keys.length; i++) {
+            if (old_keys[i] != EMPTY) {
+                int j = slot(old_keys[i]);
+                this.keys[j] = old_keys[i];
+                this.values[j] = old_values[i];
+            }
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets a count of the keys added to and removed from the map, which
+     * changes whenever the slots of the entries may have moved.
+     */
+    public int modCount() {
+        return this.mod_count;
+    }
+
+    /**
+     * Gets the number of slots in the table, used with {@link #keyAt} and
+     * {@link #valueAt} to iterate the entries without allocating.
+     */
+    public int capacity() {
+        return this.keys.length;
+    }
+
+    /**
+     * Gets the key in the given slot, or -1 if the slot is empty.
+     */
+    public long keyAt(int slot) {
+        return this.keys[slot];
+    }
+
+    public long valueAt(int slot) {
+        return this.values[slot];
+    }
+
+}
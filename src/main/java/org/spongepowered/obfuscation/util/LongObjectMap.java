@@ -0,0 +1,168 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.util;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from long keys to object values. A key of -1 is
+ * reserved to mark empty slots.
+ */
+public final class LongObjectMap<V> {
+
+    private static final long EMPTY = -1;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    // counts added and removed keys
+    private int mod_count;
+
+    public LongObjectMap() {
+        this(16);
+    }
+
+    public LongObjectMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) * 2;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        Arrays.fill(this.keys, EMPTY);
+    }
+
+    private int slot(long key) {
+        int mask = this.keys.length - 1;
+        for (int i = LongLongMap.hash(key) & mask;; i = (i + 1) & mask) {
+            long k = this.keys[i];
+            if (k == key || k == EMPTY) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Gets the value for the given key, or null if there is no value for the
+     * key.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        return (V) this.values[slot(key)];
+    }
+
+    /**
+     * Sets the value for the given key, returning the previous value if any.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        int i = slot(key);
+        if (this.keys[i] != EMPTY) {
+            V previous = (V) this.values[i];
+            this.values[i] = value;
+            return previous;
+        }
+        this.keys[i] = key;
+        this.values[i] = value;
+        this.mod_count++;
+        if (++this.size * 2 > this.keys.length) {
+            rehash(this.keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the value for the given key, returning it if present.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int i = slot(key);
+        if (this.keys[i] == EMPTY) {
+            return null;
+        }
+        V previous = (V) this.values[i];
+        this.keys[i] = EMPTY;
+        this.values[i] = null;
+        this.size--;
+        this.mod_count++;
+        int mask = this.keys.length - 1;
+        for (int j = (i + 1) & mask; this.keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = LongLongMap.hash(this.keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                this.keys[i] = this.keys[j];
+                this.values[i] = this.values[j];
+                this.keys[j] = EMPTY;
+                this.values[j] = null;
+                i = j;
+            }
+        }
+        return previous;
+    }
+
+    private void rehash(int capacity) {
+        long[] old_keys = this.keys;
+        Object[] old_values = this.values;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        Arrays.fill(this.keys, EMPTY);
+        for (int i = 0; i < old_keys.length; i++) {
+            if (old_keys[i] != EMPTY) {
+                int j = slot(old_keys[i]);
+                this.keys[j] = old_keys[i];
+                this.values[j] = old_values[i];
+            }
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets a count of the keys added to and removed from the map, which
+     * changes whenever the slots of the entries may have moved.
+     */
+    public int modCount() {
+        return this.mod_count;
+    }
+
+    /**
+     * Gets the number of slots in the table, used with {@link #keyAt} and
+     * {@link #valueAt} to iterate the entries without allocating.
+     */
+    public int capacity() {
+        return this.keys.length;
+    }
+
+    /**
+     * Gets the key in the given slot, or -1 if the slot is empty.
+     */
+    public long keyAt(int slot) {
+        return this.keys[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int slot) {
+        return (V) this.values[slot];
+    }
+
+}
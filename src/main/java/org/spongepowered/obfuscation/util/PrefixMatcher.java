@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Matches names against a fixed set of prefixes.
+ *
+ * <p>Prefixes covered by a shorter prefix are dropped and the rest are kept
+ * sorted, so the only prefix which can match a name is the greatest prefix
+ * not after it. A match is a single binary search regardless of the number
+ * of prefixes.</p>
+ */
+public final class PrefixMatcher {
+
+    private final String[] prefixes;
+    // the utf-8 encoded prefixes in unsigned byte order
+    private final byte[][] encoded;
+
+    public PrefixMatcher(Collection<String> prefixes) {
+        List<String> kept = new ArrayList<>();
+        for (String prefix : new TreeSet<>(prefixes)) {
+            if (kept.isEmpty() || !prefix.startsWith(kept.get(kept.size() - 1))) {
+                kept.add(prefix);
+            }
+        }
+        this.prefixes = kept.toArray(new String[kept.size()]);
+        this.encoded = new byte[this.prefixes.length][];
+        for (int i = 0; i < this.prefixes.length; i++) {
+            this.encoded[i] = this.prefixes[i].getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(this.encoded, PrefixMatcher::compare);
+    }
+
+    public boolean isEmpty() {
+        return this.prefixes.length == 0;
+    }
+
+    /**
+     * Gets if the given name starts with any of the prefixes.
+     */
+    public boolean matches(String name) {
+        int low = 0;
+        int high = this.prefixes.length - 1;
+        int floor = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = this.prefixes[mid].compareTo(name);
+            if (cmp <= 0) {
+                floor = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return floor != -1 && name.startsWith(this.prefixes[floor]);
+    }
+
+    /**
+     * Gets if the name encoded as UTF-8 in the given range of the buffer
+     * starts with any of the prefixes.
+     */
+    public boolean matches(ByteBuffer data, int start, int end) {
+        int low = 0;
+        int high = this.encoded.length - 1;
+        int floor = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compare(this.encoded[mid], data, start, end) <= 0) {
+                floor = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (floor == -1) {
+            return false;
+        }
+        byte[] prefix = this.encoded[floor];
+        if (prefix.length > end - start) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (prefix[i] != data.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int cmp = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    private static int compare(byte[] a, ByteBuffer data, int start, int end) {
+        int length = Math.min(a.length, end - start);
+        for (int i = 0; i < length; i++) {
+            int cmp = (a[i] & 0xFF) - (data.get(start + i) & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return a.length - (end - start);
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Interns names to dense int ids. Looking up a name which is already present
+ * does not allocate.
+ */
+public final class SymbolTable {
+
+    /**
+     * Combines two ids into a single composite key.
+     */
+    public static long pair(int first, int second) {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    public static int first(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    public static int second(long pair) {
+        return (int) pair;
+    }
+
+    private String[] names;
+    // ids offset by one so that zero marks an empty slot
+    private int[] table;
+    private int size;
+
+    public SymbolTable() {
+        this(64);
+    }
+
+    public SymbolTable(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) * 2;
+        this.names = new String[capacity / 2];
+        this.table = new int[capacity];
+    }
+
+    private static int hash(String name) {
+        int h = name.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Gets the id of the given name, or -1 if the name has not been interned.
+     */
+    public int get(String name) {
+        int mask = this.table.length - 1;
+        for (int i = hash(name) & mask;; i = (i + 1) & mask) {
+            int id = this.table[i] - 1;
+            if (id == -1) {
+                return -1;
+            }
+            if (this.names[id].equals(name)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Gets the id of the given name, assigning it a new id if the name has not
+     * been seen before.
+     */
+    public int intern(String name) {
+        int mask = this.table.length - 1;
+        int i = hash(name) & mask;
+        for (;; i = (i + 1) & mask) {
+            int id = this.table[i] - 1;
+            if (id == -1) {
+                break;
+            }
+            if (this.names[id].equals(name)) {
+                return id;
+            }
+        }
+        return add(name, i);
+    }
+
+    /**
+     * Gets the id of the name encoded as UTF-8 in the given range of the
+     * buffer, assigning it a new id if the name has not been seen before.
+     * Ascii names which are already present are found without decoding the
+     * bytes.
+     */
+    public int intern(ByteBuffer data, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            byte next = data.get(i);
+            if (next < 0) {
+                byte[] bytes = new byte[end - start];
+                for (int j = 0; j < bytes.length; j++) {
+                    bytes[j] = data.get(start + j);
+                }
+                return intern(new String(bytes, StandardCharsets.UTF_8));
+            }
+            h = 31 * h + next;
+        }
+        h *= 0x9E3779B9;
+        h ^= h >>> 16;
+        int mask = this.table.length - 1;
+        int i = h & mask;
+        for (;; i = (i + 1) & mask) {
+            int id = this.table[i] - 1;
+            if (id == -1) {
+                break;
+            }
+            if (matches(this.names[id], data, start, end)) {
+                return id;
+            }
+        }
+        char[] chars = new char[end - start];
+        for (int j = 0; j < chars.length; j++) {
+            chars[j] = (char) data.get(start + j);
+        }
+        return add(new String(chars), i);
+    }
+
+    private static boolean matches(String name, ByteBuffer data, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != data.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int add(String name, int slot) {
+        int id = this.size++;
+        if (id == this.names.length) {
+            this.names = Arrays.copyOf(this.names, id * 2);
+        }
+        this.names[id] = name;
+        this.table[slot] = id + 1;
+        if (this.size * 2 > this.table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        int[] table = new int[this.table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < this.size; id++) {
+            int i = hash(this.names[id]) & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = id + 1;
+        }
+        this.table = table;
+    }
+
+    /**
+     * Gets the name with the given id.
+     */
+    public String name(int id) {
+        return this.names[id];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+}
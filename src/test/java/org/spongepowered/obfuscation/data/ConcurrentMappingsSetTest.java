@@ -0,0 +1,162 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.Test;
+import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.function.Consumer;
+
+public class ConcurrentMappingsSetTest {
+
+    private static final int THREADS = 8;
+    private static final int TYPES = 200;
+
+    /**
+     * Runs the given task on several threads at once, passing each the index
+     * of its thread.
+     */
+    private static void race(Consumer<Integer> task) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Throwable> errors = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int index = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    task.accept(index);
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!errors.isEmpty()) {
+            throw new AssertionError(errors.get(0));
+        }
+    }
+
+    /**
+     * Maps a share of the types and their members from each thread.
+     */
+    private static void populate(MappingsSet mappings, int thread) {
+        for (int i = thread; i < TYPES; i += THREADS) {
+            String type = "c" + i;
+            mappings.addTypeMapping(type, "net/Type" + i);
+            for (int j = 0; j < 10; j++) {
+                mappings.addFieldMapping(type, "f" + j, "field" + j);
+                mappings.addMethodMapping(type, "m", "(I" + j + ")V", "method" + j);
+            }
+        }
+    }
+
+    @Test
+    public void testDisjointInserts() throws Exception {
+        ConcurrentMappingsSet mappings = new ConcurrentMappingsSet();
+        race((thread) -> populate(mappings, thread));
+
+        MutableMappingsSet expected = new MutableMappingsSet();
+        populate(expected, 0);
+        for (int i = 1; i < THREADS; i++) {
+            populate(expected, i);
+        }
+        assertEquals(0, mappings.getConflicts().getTotal());
+        assertEquals(expected.typeCount(), mappings.typeCount());
+        assertEquals(expected.fieldCount(), mappings.fieldCount());
+        assertEquals(expected.methodCount(), mappings.methodCount());
+        assertEquals(expected.getMappedFields(), mappings.getMappedFields());
+        assertEquals(expected.getMappedMethods(), mappings.getMappedMethods());
+        for (String type : expected.getMappedTypes()) {
+            String mapped = mappings.mapType(type);
+            assertEquals(expected.mapType(type), mapped);
+            assertEquals(type, mappings.inverseType(mapped));
+            for (String fld : expected.getOwnerFields(type)) {
+                assertEquals(fld, mappings.inverseField(mapped, mappings.mapField(type, fld)));
+            }
+            for (MethodMapping mth : expected.getOwnerMethods(type)) {
+                MethodMapping actual = mappings.getMethodMapping(type, mth.getObf(), mth.getObfSignature());
+                assertNotNull(actual);
+                assertEquals(mth.getMapped(), actual.getMapped());
+                assertEquals(mth.getObf(), mappings.inverseMethod(mapped, mth.getMapped(), mth.getObfSignature()));
+            }
+        }
+    }
+
+    @Test
+    public void testContendedInserts() throws Exception {
+        ConcurrentMappingsSet mappings = new ConcurrentMappingsSet();
+        race((thread) -> {
+            for (int i = 0; i < TYPES; i++) {
+                String type = "c" + i;
+                mappings.addTypeMapping(type, "net/Type" + i + "_" + thread);
+                mappings.addFieldMapping(type, "f", "field" + thread);
+                mappings.addMethodMapping(type, "m", "()V", "method" + thread);
+            }
+        });
+
+        // every key keeps exactly one of the attempted mappings, rejected type
+        // and field mappings are recorded while methods are skipped silently
+        // as in the mutable set
+        assertEquals(TYPES, mappings.typeCount());
+        assertEquals(TYPES, mappings.fieldCount());
+        assertEquals(TYPES, mappings.methodCount());
+        assertEquals(TYPES, mappings.getMappedTypeNames().size());
+        assertEquals(TYPES * (THREADS - 1) * 2, mappings.getConflicts().getTotal());
+        for (int i = 0; i < TYPES; i++) {
+            String type = "c" + i;
+            String mapped = mappings.mapType(type);
+            assertEquals(type, mappings.inverseType(mapped));
+            String fld = mappings.mapField(type, "f");
+            assertEquals("f", mappings.inverseField(mapped, fld));
+            String mth = mappings.mapMethod(type, "m", "()V");
+            assertEquals("m", mappings.inverseMethod(mapped, mth, "()V"));
+        }
+    }
+
+    @Test
+    public void testFreeze() throws Exception {
+        ConcurrentMappingsSet mappings = new ConcurrentMappingsSet();
+        race((thread) -> populate(mappings, thread));
+        MappingsSet frozen = mappings.freeze();
+        assertEquals(mappings.getMappedTypes(), frozen.getMappedTypes());
+        assertEquals(mappings.getMappedFields(), frozen.getMappedFields());
+        assertEquals(mappings.getMappedMethods(), frozen.getMappedMethods());
+        assertEquals(mappings.methodCount(), frozen.methodCount());
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spongepowered.obfuscation.config.ObfConfig;
+import org.spongepowered.obfuscation.config.ObfConfigManager;
+import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class LazyMappingsSetTest {
+
+    private static final int TYPES = 300;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ObfConfig saved;
+
+    @Before
+    public void setUp() {
+        this.saved = ObfConfigManager.getConfig();
+        ObfConfig config = new ObfConfig();
+        config.excluded_packages.add("com/excluded/");
+        config.lazy_index_sidecar = true;
+        ObfConfigManager.restore(config);
+    }
+
+    @After
+    public void tearDown() {
+        ObfConfigManager.restore(this.saved);
+    }
+
+    /**
+     * Creates the lines of an srg file with overloads and excluded entries.
+     * Types come before members as a full load requires, but are otherwise
+     * in the order given by the seed.
+     */
+    private static List<String> createLines(long seed) {
+        Random random = new Random(seed);
+        List<String> types = new ArrayList<>();
+        List<String> members = new ArrayList<>();
+        for (int i = 0; i < TYPES; i++) {
+            String obf = "c" + i;
+            String mapped = (i % 10 == 0 ? "com/excluded/Type" : "net/minecraft/src/Type") + i;
+            types.add("CL: " + obf + " " + mapped);
+            members.add("FD: " + obf + "/a " + mapped + "/field" + i);
+            members.add("MD: " + obf + "/a (I)V " + mapped + "/method" + i + " (I)V");
+            members.add("MD: " + obf + "/a (L" + obf + ";)V " + mapped + "/overload" + i + " (L" + mapped + ";)V");
+        }
+        Collections.shuffle(types, random);
+        Collections.shuffle(members, random);
+        List<String> lines = new ArrayList<>();
+        lines.add("PK: net/minecraft/src net/minecraft/src");
+        lines.addAll(types);
+        lines.addAll(members);
+        return lines;
+    }
+
+    private static void assertSameLookups(MappingsSet expected, MappingsSet lazy) {
+        assertEquals(expected.mapPackage("net/minecraft/src"), lazy.mapPackage("net/minecraft/src"));
+        for (int i = 0; i < TYPES; i++) {
+            String obf = "c" + i;
+            assertEquals(obf, expected.mapType(obf), lazy.mapType(obf));
+            assertEquals(obf, expected.mapField(obf, "a"), lazy.mapField(obf, "a"));
+            assertEquals(obf, expected.mapMethod(obf, "a", "(I)V"), lazy.mapMethod(obf, "a", "(I)V"));
+            assertEquals(obf, expected.mapMethod(obf, "a", "(L" + obf + ";)V"), lazy.mapMethod(obf, "a", "(L" + obf + ";)V"));
+        }
+        assertNull(lazy.mapType("c" + TYPES));
+        assertNull(lazy.mapField("c1", "b"));
+        assertNull(lazy.mapMethod("c1", "a", "()V"));
+    }
+
+    private static MappingsSet openLazy(Path file) throws IOException {
+        MappingsSet lazy = MappingsIO.openLazy(file);
+        assertTrue(lazy instanceof LazyMappingsSet);
+        return lazy;
+    }
+
+    @Test
+    public void testMatchesLoad() throws IOException {
+        Path file = this.folder.getRoot().toPath().resolve("mappings.srg");
+        Path sidecar = file.resolveSibling("mappings.srg" + LazyMappingsSet.INDEX_EXTENSION);
+        Files.write(file, createLines(1), StandardCharsets.UTF_8);
+        MappingsSet loaded = MappingsIO.load(file);
+
+        assertSameLookups(loaded, openLazy(file));
+        assertTrue(Files.exists(sidecar));
+        // excluded entries are skipped by their mapped name
+        assertNull(loaded.mapType("c10"));
+        assertNull(loaded.mapMethod("c10", "a", "(I)V"));
+        assertEquals("net/minecraft/src/Type11", loaded.mapType("c11"));
+
+        // read back through the sidecar
+        assertSameLookups(loaded, openLazy(file));
+    }
+
+    @Test
+    public void testStaleSidecar() throws IOException {
+        Path file = this.folder.getRoot().toPath().resolve("mappings.srg");
+        Files.write(file, createLines(1), StandardCharsets.UTF_8);
+        openLazy(file);
+
+        // the same lines in another order leave the size unchanged but move
+        // the offsets of the stored index
+        Files.write(file, createLines(2), StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10000));
+        assertSameLookups(MappingsIO.load(file), openLazy(file));
+    }
+
+}
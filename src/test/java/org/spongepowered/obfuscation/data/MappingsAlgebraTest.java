@@ -0,0 +1,203 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class MappingsAlgebraTest {
+
+    private static final int NEXT_MEMBER = 42;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static MutableMappingsSet createBase(String world) {
+        MutableMappingsSet mappings = new MutableMappingsSet();
+        mappings.addPackageMapping("net/minecraft/src", "net/minecraft/src");
+        mappings.addTypeMapping("a", "net/minecraft/src/Block");
+        mappings.addTypeMapping("b", world);
+        mappings.addFieldMapping("a", "a", "hardness");
+        mappings.addFieldMapping("a", "b", "resistance");
+        mappings.addMethodMapping("a", "a", "(I)V", "tick");
+        mappings.addMethodMapping("a", "b", "(F)La;", "setHardness");
+        mappings.addMethodMapping("b", "a", "()V", "update");
+        return mappings;
+    }
+
+    /**
+     * Creates the base mappings with a type renamed and added, members
+     * added, removed and renamed, and a method whose mapped name collides
+     * with another method of its owner.
+     */
+    private static MutableMappingsSet createChanged() {
+        MutableMappingsSet mappings = new MutableMappingsSet();
+        mappings.addPackageMapping("net/minecraft/src", "net/minecraft/src");
+        mappings.addTypeMapping("a", "net/minecraft/src/Block");
+        mappings.addTypeMapping("b", "net/minecraft/src/Level");
+        mappings.addTypeMapping("c", "net/minecraft/src/Entity");
+        mappings.addFieldMapping("a", "a", "strength");
+        mappings.addFieldMapping("a", "c", "lightValue");
+        mappings.addMethodMapping("a", "a", "(I)V", "tick");
+        mappings.addMethodMapping("a", "c", "(I)V", "tick");
+        mappings.addMethodMapping("b", "a", "()V", "tick");
+        mappings.addMethodMapping("c", "a", "()V", "update");
+        return mappings;
+    }
+
+    private static void assertMembersEqual(MappingsSet expected, MappingsSet actual) {
+        assertEquals(expected.packagesCount(), actual.packagesCount());
+        for (String pkg : expected.getMappedPackages()) {
+            assertEquals(pkg, expected.mapPackage(pkg), actual.mapPackage(pkg));
+        }
+        assertEquals(expected.typeCount(), actual.typeCount());
+        for (String type : expected.getMappedTypes()) {
+            assertEquals(type, expected.mapType(type), actual.mapType(type));
+        }
+        assertEquals(expected.fieldCount(), actual.fieldCount());
+        for (String key : expected.getMappedFields()) {
+            assertEquals(key, expected.mapField(key), actual.mapField(key));
+        }
+        assertEquals(expected.methodCount(), actual.methodCount());
+        for (String key : expected.getMappedMethods()) {
+            for (MethodMapping mth : expected.getMethods(key)) {
+                assertEquals(key + mth.getObfSignature(), mth.getMapped(), actual.mapMethod(mth.getObfOwner(), mth.getObf(), mth.getObfSignature()));
+            }
+        }
+    }
+
+    private MappingsDiff roundTrip(MappingsDiff diff) throws IOException {
+        Path delta = this.folder.getRoot().toPath().resolve("mappings" + MappingsDiff.DELTA_EXTENSION);
+        diff.writeDelta(delta);
+        return MappingsDiff.readDelta(delta);
+    }
+
+    @Test
+    public void testDeltaRoundTrip() throws IOException {
+        MappingsSet base = createBase("net/minecraft/src/World");
+        MappingsSet changed = createChanged();
+        MappingsDiff diff = MappingsAlgebra.diff(base, changed);
+        diff.setNextMember(NEXT_MEMBER);
+        MappingsDiff read = roundTrip(diff);
+        assertEquals(diff.getChanges().size(), read.getChanges().size());
+        assertEquals(NEXT_MEMBER, read.getNextMember());
+
+        MappingConflicts conflicts = new MappingConflicts();
+        MappingsSet patched = MappingsAlgebra.apply(base, read, conflicts);
+        assertMembersEqual(changed, patched);
+        assertEquals(0, conflicts.getTotal());
+        assertNull(patched.mapField("a", "b"));
+        assertNull(patched.mapMethod("a", "b", "(F)La;"));
+    }
+
+    @Test
+    public void testDeltaKeepsGeneratedNames() throws IOException {
+        Path root = this.folder.getRoot().toPath();
+        Path base = root.resolve("base.srg");
+        Path delta = root.resolve("mappings" + MappingsDiff.DELTA_EXTENSION);
+        Path full = root.resolve("full.srg");
+        Path patched = root.resolve("patched.srg");
+        MappingsSet base_mappings = createBase("net/minecraft/src/World");
+        MappingsIO.write(base, base_mappings, 0);
+        MappingsIO.writeDelta(delta, base_mappings, createChanged(), NEXT_MEMBER);
+        MappingsIO.write(full, createChanged(), NEXT_MEMBER);
+        MappingsIO.applyDelta(base, delta, patched);
+
+        List<String> lines = Files.readAllLines(full);
+        assertTrue(lines.contains("MD: a/c (I)V net/minecraft/src/Block/mth_" + NEXT_MEMBER + "_c (I)V"));
+        assertEquals(lines, Files.readAllLines(patched));
+    }
+
+    @Test
+    public void testDeltaBaseMismatch() throws IOException {
+        MappingsDiff diff = roundTrip(MappingsAlgebra.diff(createBase("net/minecraft/src/World"), createChanged()));
+        MappingConflicts conflicts = new MappingConflicts();
+        MappingsSet patched = MappingsAlgebra.apply(createBase("net/minecraft/src/Dimension"), diff, conflicts);
+        assertEquals(1, conflicts.getCount(MappingConflicts.Kind.DELTA));
+        assertEquals(1, conflicts.getTotal());
+        // the mismatched entry keeps its base mapping, the others are patched
+        assertEquals("net/minecraft/src/Dimension", patched.mapType("b"));
+        assertEquals("strength", patched.mapField("a", "a"));
+        assertEquals("tick", patched.mapMethod("b", "a", "()V"));
+        assertEquals("net/minecraft/src/Entity", patched.mapType("c"));
+    }
+
+    @Test
+    public void testCompose() {
+        MutableMappingsSet second = new MutableMappingsSet();
+        second.addTypeMapping("net/minecraft/src/Block", "net/minecraft/block/Block");
+        second.addTypeMapping("net/minecraft/src/Extra", "net/minecraft/block/Extra");
+        second.addFieldMapping("net/minecraft/src/Block", "hardness", "blockHardness");
+        second.addMethodMapping("net/minecraft/src/Block", "tick", "(I)V", "update");
+        second.addMethodMapping("net/minecraft/src/Block", "setHardness", "(F)Lnet/minecraft/src/Block;", "withHardness");
+        MappingsSet composed = MappingsAlgebra.compose(createBase("net/minecraft/src/World"), second);
+
+        assertEquals("net/minecraft/src", composed.mapPackage("net/minecraft/src"));
+        assertEquals("net/minecraft/block/Block", composed.mapType("a"));
+        assertEquals("blockHardness", composed.mapField("a", "a"));
+        assertEquals("update", composed.mapMethod("a", "a", "(I)V"));
+        assertEquals("withHardness", composed.mapMethod("a", "b", "(F)La;"));
+        // names not mapped by the second set keep their first mapping
+        assertEquals("net/minecraft/src/World", composed.mapType("b"));
+        assertEquals("resistance", composed.mapField("a", "b"));
+        assertEquals("update", composed.mapMethod("b", "a", "()V"));
+        // names not renamed by the first set are mapped from themselves
+        assertEquals("net/minecraft/block/Extra", composed.mapType("net/minecraft/src/Extra"));
+        assertEquals(3, composed.typeCount());
+        assertEquals(2, composed.fieldCount());
+        assertEquals(3, composed.methodCount());
+    }
+
+    @Test
+    public void testInvert() {
+        MappingsSet mappings = createBase("net/minecraft/src/World");
+        MappingsSet inverted = MappingsAlgebra.invert(mappings);
+
+        assertEquals("a", inverted.mapType("net/minecraft/src/Block"));
+        assertEquals("b", inverted.mapType("net/minecraft/src/World"));
+        assertEquals("a", inverted.mapField("net/minecraft/src/Block", "hardness"));
+        assertEquals("a", inverted.mapMethod("net/minecraft/src/Block", "tick", "(I)V"));
+        assertEquals("b", inverted.mapMethod("net/minecraft/src/Block", "setHardness", "(F)Lnet/minecraft/src/Block;"));
+        assertMembersEqual(mappings, MappingsAlgebra.invert(inverted));
+
+        // composing with the inverse maps every name back to itself
+        MappingsSet identity = MappingsAlgebra.compose(mappings, inverted);
+        assertEquals("b", identity.mapType("b"));
+        assertEquals("a", identity.mapField("a", "a"));
+        assertEquals("b", identity.mapMethod("a", "b", "(F)La;"));
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class MappingsFormatTest {
+
+    private static final List<String> PACKAGE_FORMATS = Arrays.asList("srg", "tsrg", "binary");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static MappingsSet createMappings() {
+        return createMappings(true);
+    }
+
+    private static MappingsSet createMappings(boolean fields) {
+        MutableMappingsSet mappings = new MutableMappingsSet();
+        mappings.addPackageMapping("net/minecraft/src", "net/minecraft/src");
+        mappings.addTypeMapping("a", "net/minecraft/src/Block");
+        mappings.addTypeMapping("b", "net/minecraft/src/World");
+        mappings.addTypeMapping("b$a", "net/minecraft/src/World$Chunk");
+        if (fields) {
+            mappings.addFieldMapping("a", "a", "hardness");
+            mappings.addFieldMapping("a", "b", "resistance");
+            mappings.addFieldMapping("b$a", "a", "x");
+        }
+        mappings.addMethodMapping("a", "a", "(Lb;III)V", "onPlaced");
+        mappings.addMethodMapping("a", "a", "(F)La;", "setHardness");
+        mappings.addMethodMapping("b", "a", "([Lb$a;J)[I", "getHeights");
+        mappings.addMethodMapping("b$a", "b", "()Ljava/lang/String;", "getName");
+        return mappings;
+    }
+
+    private static void assertMembersEqual(MappingsSet expected, MappingsSet actual) {
+        assertEquals(expected.typeCount(), actual.typeCount());
+        for (String type : expected.getMappedTypes()) {
+            assertEquals(type, expected.mapType(type), actual.mapType(type));
+        }
+        assertEquals(expected.fieldCount(), actual.fieldCount());
+        for (String key : expected.getMappedFields()) {
+            assertEquals(key, expected.mapField(key), actual.mapField(key));
+        }
+        assertEquals(expected.methodCount(), actual.methodCount());
+        for (String key : expected.getMappedMethods()) {
+            for (MethodMapping mth : expected.getMethods(key)) {
+                String desc = key + mth.getObfSignature();
+                assertEquals(desc, mth.getMapped(), actual.mapMethod(mth.getObfOwner(), mth.getObf(), mth.getObfSignature()));
+            }
+        }
+    }
+
+    private Path write(MappingsFormat format, MappingsSet mappings) throws IOException {
+        Path file = this.folder.getRoot().toPath().resolve("mappings" + format.getExtensions().get(0));
+        format.write(file, mappings);
+        return file;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (MappingsFormat format : MappingsIO.getFormats()) {
+            MappingsSet expected = createMappings(format.canWriteFields());
+            Path file = write(format, expected);
+            MappingsSet actual = format.read(file, new MappingConflicts());
+            assertMembersEqual(expected, actual);
+            assertEquals(format.getName(), 0, actual.getConflicts().getTotal());
+        }
+    }
+
+    @Test
+    public void testDetectFormat() throws IOException {
+        for (MappingsFormat format : MappingsIO.getFormats()) {
+            MappingsSet expected = createMappings(format.canWriteFields());
+            Path file = write(format, expected);
+            assertSame(format.getName(), format, MappingsIO.detectFormat(file));
+            // detection does not depend on the extension
+            Path renamed = Files.move(file, file.resolveSibling("mappings.unknown"), StandardCopyOption.REPLACE_EXISTING);
+            assertSame(format.getName(), format, MappingsIO.detectFormat(renamed));
+            assertMembersEqual(expected, MappingsIO.load(renamed, new MappingConflicts()));
+        }
+    }
+
+    @Test
+    public void testPackages() throws IOException {
+        for (MappingsFormat format : MappingsIO.getFormats()) {
+            MappingsSet expected = createMappings(format.canWriteFields());
+            MappingsSet actual = format.read(write(format, expected), new MappingConflicts());
+            if (PACKAGE_FORMATS.contains(format.getName())) {
+                assertEquals(format.getName(), "net/minecraft/src", actual.mapPackage("net/minecraft/src"));
+            } else {
+                // tiny and proguard have no package mappings
+                assertEquals(format.getName(), 0, actual.packagesCount());
+            }
+        }
+    }
+
+    @Test
+    public void testConvert() throws IOException {
+        MappingsSet expected = createMappings(false);
+        Path in = write(MappingsIO.getFormat("tiny"), expected);
+        Path out = this.folder.getRoot().toPath().resolve("converted.map");
+        MappingsIO.convert(in, out);
+        assertSame(MappingsIO.getFormat("proguard"), MappingsIO.detectFormat(out));
+        assertMembersEqual(expected, MappingsIO.load(out, new MappingConflicts()));
+    }
+
+    @Test
+    public void testFieldsWithoutTypesRejected() throws IOException {
+        for (MappingsFormat format : MappingsIO.getFormats()) {
+            if (format.canWriteFields()) {
+                continue;
+            }
+            Path file = this.folder.getRoot().toPath().resolve("fields" + format.getExtensions().get(0));
+            try {
+                format.write(file, createMappings());
+                fail(format.getName());
+            } catch (IllegalArgumentException expected) {
+                assertFalse(format.getName(), Files.exists(file));
+            }
+        }
+        assertFalse(MappingsIO.getFormat("tiny").canWriteFields());
+        assertFalse(MappingsIO.getFormat("proguard").canWriteFields());
+    }
+
+    @Test
+    public void testTextFilesNotClaimed() throws IOException {
+        assertSame(MappingsIO.getFormat("srg"), MappingsIO.getFormatForOutput(this.folder.getRoot().toPath().resolve("notes.txt")));
+        Path dir = this.folder.newFolder("shards").toPath();
+        MappingsIO.getFormat("srg").write(dir.resolve("a.srg"), createMappings());
+        Files.write(dir.resolve("README.txt"), Collections.singletonList("Mappings for the next release"), StandardCharsets.UTF_8);
+        List<Path> files = MappingsIO.findFiles(dir);
+        assertEquals(Collections.singletonList(dir.resolve("a.srg")), files);
+        MappingsSet loaded = MappingsIO.load(dir, new MappingConflicts());
+        assertMembersEqual(createMappings(), loaded);
+    }
+
+    @Test
+    public void testProGuardDetectedByContent() throws IOException {
+        Path file = this.folder.getRoot().toPath().resolve("mappings.txt");
+        Files.write(file, Arrays.asList("net.minecraft.src.Block -> a:", "    float hardness -> a", "    void onPlaced(int) -> a"),
+                StandardCharsets.UTF_8);
+        MappingsFormat format = MappingsIO.detectFormat(file);
+        assertNotNull(format);
+        assertEquals("proguard", format.getName());
+        MappingsSet mappings = MappingsIO.load(file, new MappingConflicts());
+        assertEquals("net/minecraft/src/Block", mappings.mapType("a"));
+        assertEquals("hardness", mappings.mapField("a", "a"));
+        assertEquals("onPlaced", mappings.mapMethod("a", "a", "(I)V"));
+        assertTrue(mappings.getConflicts().getTotal() == 0);
+        assertFalse(MappingsIO.isSharded(file));
+    }
+
+    @Test
+    public void testGlobCharactersInFileName() throws IOException {
+        Path dir = this.folder.newFolder("globs").toPath();
+        MappingsFormat srg = MappingsIO.getFormat("srg");
+        srg.write(dir.resolve("mappings1.srg"), createMappings());
+        Path glob = dir.resolve("mappings[1].srg");
+        assertTrue(MappingsIO.isSharded(glob));
+        assertEquals(Collections.singletonList(dir.resolve("mappings1.srg")), MappingsIO.findFiles(glob));
+
+        MutableMappingsSet literal = new MutableMappingsSet();
+        literal.addTypeMapping("a", "net/minecraft/src/Literal");
+        srg.write(glob, literal);
+        assertFalse(MappingsIO.isSharded(glob));
+        assertEquals(Collections.singletonList(glob), MappingsIO.findFiles(glob));
+        assertEquals("net/minecraft/src/Literal", MappingsIO.load(glob, new MappingConflicts()).mapType("a"));
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+import org.spongepowered.obfuscation.data.ValidationReport.Category;
+import org.spongepowered.obfuscation.data.ValidationReport.Kind;
+import org.spongepowered.obfuscation.data.ValidationReport.Mismatch;
+
+public class MappingsValidatorTest {
+
+    @Test
+    public void testIdentityMethodsNotExtra() {
+        MutableMappingsSet mappings = new MutableMappingsSet();
+        mappings.addTypeMapping("a", "net/minecraft/src/Block");
+        mappings.addMethodMapping("a", "run", "()V", "run");
+        mappings.addMethodMapping("a", "a", "()V", "tick");
+        mappings.addMethodMapping("a", "b", "()V", "update");
+        MutableMappingsSet validation = new MutableMappingsSet();
+        validation.addTypeMapping("a", "net/minecraft/src/Block");
+        validation.addMethodMapping("a", "b", "()V", "onUpdate");
+
+        ValidationReport report = MappingsValidator.validate(mappings, validation);
+        assertEquals(1, report.getCount(Kind.METHOD, Category.EXTRA));
+        assertEquals(1, report.getCount(Kind.METHOD, Category.WRONG));
+        assertEquals(2, report.getErrors(Kind.METHOD));
+        for (Mismatch mismatch : report.getMismatches()) {
+            assertNotEquals("a/run()V", mismatch.getObfuscated());
+        }
+    }
+
+}
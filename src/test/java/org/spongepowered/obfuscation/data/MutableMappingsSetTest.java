@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+public class MutableMappingsSetTest {
+
+    private static MutableMappingsSet createMappings() {
+        MutableMappingsSet mappings = new MutableMappingsSet();
+        for (int i = 0; i < 4; i++) {
+            mappings.addTypeMapping("c" + i, "net/Type" + i);
+            mappings.addFieldMapping("c" + i, "a", "field");
+            mappings.addMethodMapping("c" + i, "a", "()V", "method");
+        }
+        return mappings;
+    }
+
+    @Test
+    public void testKeyViews() {
+        MutableMappingsSet mappings = createMappings();
+        Set<String> fields = new HashSet<>(mappings.getMappedFields());
+        assertEquals(4, fields.size());
+        assertEquals(4, mappings.getMappedFieldNames().size());
+        assertEquals(4, new HashSet<>(mappings.getMappedMethods()).size());
+        assertEquals(4, new HashSet<>(mappings.getMemberOwners()).size());
+        for (String key : fields) {
+            assertEquals(true, mappings.getMappedFields().contains(key));
+        }
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testFieldViewFailsFast() {
+        MutableMappingsSet mappings = createMappings();
+        Iterator<String> keys = mappings.getMappedFields().iterator();
+        keys.next();
+        mappings.addFieldMapping("c0", "b", "other");
+        keys.next();
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testMethodViewFailsFast() {
+        MutableMappingsSet mappings = createMappings();
+        Iterator<String> keys = mappings.getMappedMethods().iterator();
+        keys.next();
+        mappings.addMethodMapping("c0", "b", "()V", "other");
+        keys.hasNext();
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testOwnerViewFailsFast() {
+        MutableMappingsSet mappings = createMappings();
+        Iterator<String> owners = mappings.getMemberOwners().iterator();
+        owners.next();
+        mappings.addTypeMapping("c9", "net/Type9");
+        mappings.addFieldMapping("c9", "a", "field");
+        owners.next();
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.obfuscation.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spongepowered.obfuscation.data.MappingsSet.MethodMapping;
+import org.spongepowered.obfuscation.util.PrefixMatcher;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class SrgReaderTest {
+
+    private static final int TYPES = 8000;
+    private static final PrefixMatcher EXCLUDED = new PrefixMatcher(Collections.singletonList("com/excluded/"));
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Writes a file large enough to be read in chunks, with excluded entries
+     * and conflicting duplicates spread through it.
+     */
+    private Path writeLargeFile() throws IOException {
+        Path file = this.folder.getRoot().toPath().resolve("large.srg");
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("PK: net/minecraft/src net/minecraft/src\n");
+            for (int i = 0; i < TYPES; i++) {
+                String obf = "c" + i;
+                String pkg = i % 50 == 0 ? "com/excluded/" : "net/minecraft/src/";
+                String mapped = pkg + "Type" + i;
+                writer.write("CL: " + obf + " " + mapped + "\n");
+                writer.write("FD: " + obf + "/a " + mapped + "/field" + i + "\n");
+                writer.write("MD: " + obf + "/a (L" + obf + ";I)V " + mapped + "/method" + i + " (L" + mapped + ";I)V\n");
+                if (i % 97 == 96) {
+                    String prev = "c" + (i - 1);
+                    writer.write("CL: " + prev + " net/minecraft/src/Other" + i + "\n");
+                    writer.write("FD: " + prev + "/a net/minecraft/src/Other" + i + "/other\n");
+                    writer.write("MD: " + prev + "/a (L" + prev + ";I)V net/minecraft/src/Other" + i + "/other (Lnet/minecraft/src/Other"
+                            + i + ";I)V\n");
+                }
+            }
+        }
+        return file;
+    }
+
+    private static MappingsSet read(Path file, int threads) throws IOException {
+        MappingsSet mappings = new MutableMappingsSet(new MappingConflicts(TYPES));
+        SrgReader.read(file, mappings, EXCLUDED, threads);
+        return mappings;
+    }
+
+    private static List<String> describe(MappingConflicts conflicts) {
+        List<String> result = new ArrayList<>();
+        for (MappingConflicts.Conflict conflict : conflicts.getSample()) {
+            result.add(conflict.toString());
+        }
+        return result;
+    }
+
+    @Test
+    public void testChunkedMatchesSingleThreaded() throws IOException {
+        Path file = writeLargeFile();
+        assertTrue(Files.size(file) >= SrgReader.PARALLEL_THRESHOLD);
+        MappingsSet single = read(file, 1);
+        MappingsSet chunked = read(file, 7);
+
+        assertEquals("net/minecraft/src", chunked.mapPackage("net/minecraft/src"));
+        assertEquals(single.typeCount(), chunked.typeCount());
+        for (String type : single.getMappedTypes()) {
+            assertEquals(type, single.mapType(type), chunked.mapType(type));
+        }
+        assertEquals(single.fieldCount(), chunked.fieldCount());
+        for (String key : single.getMappedFields()) {
+            assertEquals(key, single.mapField(key), chunked.mapField(key));
+        }
+        assertEquals(single.methodCount(), chunked.methodCount());
+        for (String key : single.getMappedMethods()) {
+            for (MethodMapping mth : single.getMethods(key)) {
+                assertEquals(key, mth.getMapped(), chunked.mapMethod(mth.getObfOwner(), mth.getObf(), mth.getObfSignature()));
+            }
+        }
+
+        // members are excluded by their mapped name
+        assertNull(chunked.mapType("c50"));
+        assertNull(chunked.mapField("c50", "a"));
+        assertNull(chunked.mapMethod("c50", "a", "(Lc50;I)V"));
+        // the first mapping of a duplicate is kept
+        assertEquals("net/minecraft/src/Type95", chunked.mapType("c95"));
+        assertEquals("field95", chunked.mapField("c95", "a"));
+        assertEquals("method95", chunked.mapMethod("c95", "a", "(Lc95;I)V"));
+
+        MappingConflicts conflicts = chunked.getConflicts();
+        assertTrue(conflicts.getCount(MappingConflicts.Kind.TYPE) > 0);
+        assertTrue(conflicts.getCount(MappingConflicts.Kind.FIELD) > 0);
+        assertEquals(single.getConflicts().getTotal(), conflicts.getTotal());
+        for (MappingConflicts.Kind kind : MappingConflicts.Kind.values()) {
+            assertEquals(kind.name(), single.getConflicts().getCount(kind), conflicts.getCount(kind));
+        }
+        assertEquals(describe(single.getConflicts()), describe(conflicts));
+    }
+
+}